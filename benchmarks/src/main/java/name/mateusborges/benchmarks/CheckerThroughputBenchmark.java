@@ -0,0 +1,190 @@
+package name.mateusborges.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.annotation.processing.Processor;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.checkerframework.checker.nullness.NullnessChecker;
+import org.checkerframework.common.subtyping.SubtypingChecker;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TreeScanner;
+
+import name.mateusborges.checker.HemileiaChecker;
+import name.mateusborges.cli.CheckerRun;
+import name.mateusborges.workload.WorkloadGenerator;
+import name.mateusborges.workload.WorkloadSpec;
+
+/**
+ * End-to-end throughput of checking a source corpus in-process through the javac API.
+ *
+ * <p>Each invocation compiles every file of the corpus with a fresh {@code JavacTask}, with one
+ * of these processor setups:
+ * <ul>
+ *   <li>{@code javac} - no processor, the cost of plain compilation</li>
+ *   <li>{@code subtyping} - the Checker Framework's {@link SubtypingChecker} over the Hemileia
+ *       qualifiers, the cost of the framework itself</li>
+ *   <li>{@code hemileia} - {@link HemileiaChecker}</li>
+ *   <li>{@code nullness-separate} - {@link HemileiaChecker} and {@link NullnessChecker} as two
+ *       processors, each building its own control flow graphs</li>
+ *   <li>{@code nullness-shared} - {@link NullnessChecker} as a subchecker of Hemileia through
+ *       {@code -Ahemileia.subcheckers}, sharing one control flow graph per method</li>
+ * </ul>
+ *
+ * <p>Corpora are directories under {@code -Dhemileia.corpus.root} (default {@code ../checker/tests}), or
+ * {@code generated-<n>} for a {@link WorkloadGenerator} workload with {@code n} methods.
+ * Besides checks per second, the {@code lines} and {@code methods} counters report source lines
+ * and method declarations checked per second; their inverse is the time per line or method.
+ * Run with {@code -prof gc} for the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {
+        "--add-exports=jdk.compiler/com.sun.tools.javac.api=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.code=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.comp=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.file=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.main=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.model=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.parser=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.processing=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.tree=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.util=ALL-UNNAMED",
+        "--add-opens=jdk.compiler/com.sun.tools.javac.comp=ALL-UNNAMED",
+        "--add-opens=jdk.compiler/com.sun.tools.javac.code=ALL-UNNAMED"
+})
+public class CheckerThroughputBenchmark {
+
+    /** Qualifiers handed to the subtyping checker baseline. */
+    private static final String HEMILEIA_QUALS = String.join(",",
+            "name.mateusborges.annotations.Owned",
+            "name.mateusborges.annotations.Borrowed",
+            "name.mateusborges.annotations.MutBorrowed",
+            "name.mateusborges.annotations.Moved");
+
+    /** Prefix of corpus names that are generated instead of read from disk. */
+    private static final String GENERATED = "generated-";
+
+    @Param({"basictests", "generated-100"})
+    public String corpus;
+
+    @Param({"javac", "subtyping", "hemileia", "nullness-separate", "nullness-shared"})
+    public String checker;
+
+    private List<Path> files;
+    private List<String> options;
+    private long corpusLines;
+    private long corpusMethods;
+
+    /** Per-invocation work counters, reported by JMH as rates next to the main score. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Work {
+        public long lines;
+        public long methods;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            lines = 0;
+            methods = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void loadCorpus() throws IOException {
+        Path root;
+        if (corpus.startsWith(GENERATED)) {
+            root = Files.createTempDirectory("hemileia-corpus");
+            WorkloadSpec spec = WorkloadSpec.defaults()
+                    .with(List.of("methods=" + corpus.substring(GENERATED.length())));
+            new WorkloadGenerator(spec).writeTo(root);
+        } else {
+            root = Path.of(System.getProperty("hemileia.corpus.root", "../checker/tests"), corpus);
+        }
+        root = root.toAbsolutePath().normalize();
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(p -> p.toString().endsWith(".java")).sorted().toList();
+        }
+        if (files.isEmpty()) {
+            throw new IllegalStateException("no .java files in corpus " + root);
+        }
+        for (Path file : files) {
+            try (Stream<String> lines = Files.lines(file)) {
+                corpusLines += lines.count();
+            }
+        }
+        corpusMethods = countMethods(files);
+
+        options = new ArrayList<>(List.of("-classpath", System.getProperty("java.class.path")));
+        if (checker.equals("subtyping")) {
+            options.add("-Aquals=" + HEMILEIA_QUALS);
+        } else if (checker.equals("nullness-shared")) {
+            options.add("-A" + HemileiaChecker.SUBCHECKERS_OPTION + "=" + NullnessChecker.class.getName());
+        }
+    }
+
+    @Benchmark
+    public CheckerRun.Result check(Work work) throws IOException {
+        CheckerRun.Result result = CheckerRun.compile(files, options, processors());
+        work.lines += corpusLines;
+        work.methods += corpusMethods;
+        return result;
+    }
+
+    private List<Processor> processors() {
+        return switch (checker) {
+            case "javac" -> List.of();
+            case "subtyping" -> List.of(new SubtypingChecker());
+            case "hemileia", "nullness-shared" -> List.of(new HemileiaChecker());
+            case "nullness-separate" -> List.of(new HemileiaChecker(), new NullnessChecker());
+            default -> throw new IllegalArgumentException("unknown checker " + checker);
+        };
+    }
+
+    private static long countMethods(List<Path> files) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        long[] count = {0};
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, Locale.ROOT, null)) {
+            JavacTask task = (JavacTask) compiler.getTask(null, fileManager, d -> { }, null, null,
+                    fileManager.getJavaFileObjectsFromPaths(files));
+            for (CompilationUnitTree unit : task.parse()) {
+                unit.accept(new TreeScanner<Void, Void>() {
+                    @Override
+                    public Void visitMethod(MethodTree tree, Void p) {
+                        count[0]++;
+                        return super.visitMethod(tree, p);
+                    }
+                }, null);
+            }
+        }
+        return count[0];
+    }
+}
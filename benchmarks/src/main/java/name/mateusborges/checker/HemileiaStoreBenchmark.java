@@ -0,0 +1,126 @@
+package name.mateusborges.checker;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.lang.model.element.Element;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lattice and bookkeeping operations of {@link HemileiaStore} in isolation.
+ *
+ * <p>Two stores are built over the same {@link StoreFixture} variables: each has {@code moved}
+ * moved variables and {@code borrows} borrow relations, and they agree on half of each, so
+ * merges and subsumption checks do real work. Run with {@code -prof gc} to get the bytes
+ * allocated per operation ({@code gc.alloc.rate.norm}) next to the time.
+ *
+ * <p>This benchmark lives in the checker's package so it can call the protected
+ * {@link HemileiaStore#supersetOf}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {
+        "--add-exports=jdk.compiler/com.sun.tools.javac.api=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.code=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.comp=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.file=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.main=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.model=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.parser=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.processing=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.tree=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.util=ALL-UNNAMED",
+        "--add-opens=jdk.compiler/com.sun.tools.javac.comp=ALL-UNNAMED",
+        "--add-opens=jdk.compiler/com.sun.tools.javac.code=ALL-UNNAMED"
+})
+public class HemileiaStoreBenchmark {
+
+    @Param({"0", "16", "256"})
+    public int moved;
+
+    @Param({"0", "16", "256"})
+    public int borrows;
+
+    private HemileiaStore left;
+    private HemileiaStore right;
+    private Element owner;
+    private Element freshBorrower;
+
+    @Setup
+    public void buildStores() {
+        // Variables: moved ones, then (owner, borrower) pairs, then one spare borrower.
+        StoreFixture fixture = StoreFixture.create(2 * moved + 4 * borrows + 2);
+        List<Element> vars = fixture.variables;
+        left = fixture.emptyStore();
+        right = fixture.emptyStore();
+
+        // left moves [0, moved), right moves [moved / 2, moved + moved / 2)
+        for (int i = 0; i < moved; i++) {
+            left.markMoved(vars.get(i));
+            right.markMoved(vars.get(moved / 2 + i));
+        }
+
+        // Borrows go from owners to borrowers; every third one is mutable.
+        int base = 2 * moved;
+        for (int i = 0; i < borrows; i++) {
+            Element borrowOwner = vars.get(base + i % Math.max(1, borrows / 4));
+            left.addBorrow(vars.get(base + borrows + i), borrowOwner, i % 3 == 0);
+            right.addBorrow(vars.get(base + borrows + borrows / 2 + i), borrowOwner, i % 3 == 0);
+        }
+        owner = vars.get(base);
+        freshBorrower = vars.get(vars.size() - 1);
+    }
+
+    @Benchmark
+    public HemileiaStore copy() {
+        return left.copy();
+    }
+
+    @Benchmark
+    public HemileiaStore leastUpperBound() {
+        return left.leastUpperBound(right);
+    }
+
+    @Benchmark
+    public HemileiaStore widenedUpperBound() {
+        return left.widenedUpperBound(right);
+    }
+
+    @Benchmark
+    public boolean supersetOf() {
+        return left.supersetOf(right);
+    }
+
+    @Benchmark
+    public int hashCodeOfStore() {
+        return left.hashCode();
+    }
+
+    /** Adds and removes one borrow, leaving the store unchanged. */
+    @Benchmark
+    public HemileiaStore addAndRemoveBorrow() {
+        left.addBorrow(freshBorrower, owner, false);
+        left.removeBorrow(freshBorrower);
+        return left;
+    }
+
+    /** The queries the visitor makes when it checks a new borrow of {@code owner}. */
+    @Benchmark
+    public boolean conflictQueries() {
+        return left.hasMutableBorrow(owner) | left.hasImmutableBorrows(owner) | left.isMoved(owner);
+    }
+}
@@ -0,0 +1,88 @@
+package name.mateusborges.checker;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+
+/**
+ * A real {@link HemileiaAnalysis} and a pool of javac {@link Element}s, for building
+ * {@link HemileiaStore}s outside of a compilation.
+ *
+ * <p>The fixture compiles a synthetic class with {@code size} fields through the checker, keeps
+ * the checker's type factory, and uses the fields as the variables stores talk about.
+ */
+final class StoreFixture {
+
+    final HemileiaAnalysis analysis;
+    final List<Element> variables;
+
+    private StoreFixture(HemileiaAnalysis analysis, List<Element> variables) {
+        this.analysis = analysis;
+        this.variables = variables;
+    }
+
+    static StoreFixture create(int size) {
+        StringBuilder source = new StringBuilder("class StoreFixtureVariables {\n");
+        for (int i = 0; i < size; i++) {
+            source.append("    Object v").append(i).append(";\n");
+        }
+        source.append("}\n");
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///StoreFixtureVariables.java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        HemileiaChecker checker = new HemileiaChecker();
+        List<Element> variables = new ArrayList<>();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavacTask task = (JavacTask) compiler.getTask(null, null, diagnostics,
+                List.of("-proc:full", "-classpath", System.getProperty("java.class.path")),
+                null, List.of(file));
+        task.setProcessors(List.of(checker));
+        task.addTaskListener(new TaskListener() {
+            @Override
+            public void finished(TaskEvent e) {
+                if (e.getKind() == TaskEvent.Kind.ANALYZE && variables.isEmpty()) {
+                    TypeElement type = e.getTypeElement();
+                    variables.addAll(ElementFilter.fieldsIn(type.getEnclosedElements()));
+                }
+            }
+        });
+        // Stops after flow analysis, where the checker runs, so no class file is written.
+        try {
+            task.analyze();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (diagnostics.getDiagnostics().stream().anyMatch(d -> d.getKind() == Diagnostic.Kind.ERROR)) {
+            throw new IllegalStateException("fixture compilation failed: " + diagnostics.getDiagnostics());
+        }
+
+        HemileiaAnnotatedTypeFactory factory = (HemileiaAnnotatedTypeFactory) checker.getTypeFactory();
+        return new StoreFixture(new HemileiaAnalysis(checker, factory), variables);
+    }
+
+    HemileiaStore emptyStore() {
+        return analysis.createEmptyStore(true);
+    }
+}
@@ -0,0 +1,48 @@
+package name.mateusborges;
+
+import java.util.Arrays;
+import java.util.List;
+
+import name.mateusborges.cli.CheckCommand;
+import name.mateusborges.cli.DaemonClient;
+import name.mateusborges.cli.DaemonCommand;
+
+/**
+ * Command line entry point.
+ *
+ * <p>{@code hemileia check <source roots> [--classpath ...]} checks source trees with the
+ * Hemileia checker independently of any build tool; see {@link CheckCommand}.
+ * {@code hemileia daemon} keeps a warm checker JVM running and {@code hemileia client check ...}
+ * sends it the same requests; see {@link DaemonCommand} and {@link DaemonClient}.
+ *
+ * <p>The Checker Framework uses javac internals, so the JVM must be started with the
+ * {@code --add-exports jdk.compiler/...=ALL-UNNAMED} flags listed in the README.
+ */
+public class Main {
+
+    public static void main(String[] args) throws Exception {
+        System.exit(run(Arrays.asList(args)));
+    }
+
+    static int run(List<String> args) throws Exception {
+        if (args.isEmpty() || args.get(0).equals("--help") || args.get(0).equals("-h")) {
+            System.out.print(usage());
+            return args.isEmpty() ? 2 : 0;
+        }
+        List<String> commandArgs = args.subList(1, args.size());
+        return switch (args.get(0)) {
+            case "check" -> CheckCommand.main(commandArgs, System.out, System.err);
+            case "daemon" -> DaemonCommand.main(commandArgs, System.err);
+            case "client" -> DaemonClient.main(commandArgs, System.out, System.err);
+            default -> {
+                System.err.println("hemileia: unknown command " + args.get(0));
+                System.err.print(usage());
+                yield 2;
+            }
+        };
+    }
+
+    private static String usage() {
+        return CheckCommand.usage() + "\n" + DaemonCommand.usage() + "\n" + DaemonClient.usage();
+    }
+}
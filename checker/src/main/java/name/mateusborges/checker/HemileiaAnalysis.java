@@ -0,0 +1,284 @@
+package name.mateusborges.checker;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.dataflow.analysis.TransferInput;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.UnderlyingAST;
+import org.checkerframework.dataflow.cfg.block.Block;
+import org.checkerframework.framework.flow.CFAbstractAnalysis;
+import org.checkerframework.framework.type.GenericAnnotatedTypeFactory;
+import org.checkerframework.javacutil.AnnotationMirrorSet;
+import org.checkerframework.javacutil.TreeUtils;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+
+import name.mateusborges.checker.events.FixpointIterationEvent;
+import name.mateusborges.checker.events.MethodAnalysisEvent;
+
+/**
+ * The dataflow analysis for the Hemileia ownership type system.
+ *
+ * <p>This analysis extends the standard Checker Framework dataflow analysis
+ * with ownership-specific tracking for moved variables and active borrows.
+ *
+ * <p>Each analyzed method is held to the {@link HemileiaBudget} configured on the command
+ * line. A method that exceeds it is abandoned mid-fixpoint: its partial results are not
+ * trusted, a warning names the method, and {@link HemileiaVisitor} skips the flow-sensitive
+ * ownership checks for it.
+ *
+ * <p>Methods outside the {@link HemileiaEditScope} (and their lambdas) are not analyzed at all.
+ */
+public class HemileiaAnalysis
+        extends CFAbstractAnalysis<HemileiaValue, HemileiaStore, HemileiaTransfer> {
+
+    /** Warning reported for a method whose analysis exceeded its budget. */
+    private static final String BUDGET_EXCEEDED = "analysis.budget.exceeded";
+
+    private final HemileiaBudget budget;
+
+    /** Collected numbers, or null unless {@code -Ahemileia.stats} is given. */
+    private final HemileiaStatistics statistics;
+
+    /** Methods and lambdas whose analysis was abandoned, compared by identity. */
+    private final Set<Tree> degraded = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** Block visits in the current {@link #performAnalysis(ControlFlowGraph, List)} call. */
+    private long iterations;
+
+    /** Start time of the current {@link #performAnalysis(ControlFlowGraph, List)} call. */
+    private long startNanos;
+
+    /** The exceeded limit for the current CFG, or null while it is within budget. */
+    private String exceededLimit;
+
+    /** Most tracked variables seen in one store of the current CFG. */
+    private int maxTrackedVariables;
+
+    /** Whether the current CFG belongs to a method outside the {@link HemileiaEditScope}. */
+    private boolean outOfScope;
+
+    public HemileiaAnalysis(
+            BaseTypeChecker checker,
+            GenericAnnotatedTypeFactory<HemileiaValue, HemileiaStore, HemileiaTransfer, HemileiaAnalysis> factory) {
+        super(checker, factory, factory.getQualifierHierarchy().numberOfIterationsBeforeWidening());
+        this.budget = HemileiaBudget.fromOptions(checker);
+        this.statistics = factory instanceof HemileiaAnnotatedTypeFactory hemileiaFactory
+                ? hemileiaFactory.getStatistics()
+                : null;
+    }
+
+    /**
+     * Returns the statistics being collected, or null unless {@code -Ahemileia.stats} is given.
+     */
+    HemileiaStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public void performAnalysis(ControlFlowGraph cfg, List<FieldInitialValue<HemileiaValue>> fieldValues) {
+        outOfScope = !isInEditScope(cfg.getUnderlyingAST());
+        if (outOfScope) {
+            // Still initialized for this CFG, so the factory does not pick up stale results.
+            super.performAnalysis(cfg, fieldValues);
+            return;
+        }
+        iterations = 0;
+        maxTrackedVariables = 0;
+        MethodAnalysisEvent event = new MethodAnalysisEvent();
+        event.begin();
+        startNanos = System.nanoTime();
+        exceededLimit = budget.checkBeforeAnalysis(cfg);
+        super.performAnalysis(cfg, fieldValues);
+        event.end();
+        if (event.shouldCommit()) {
+            event.method = describe(cfg.getUnderlyingAST());
+            event.blocks = cfg.getAllBlocks().size();
+            event.iterations = iterations;
+            event.trackedVariables = maxTrackedVariables;
+            event.exceededLimit = exceededLimit;
+            event.commit();
+        }
+        if (statistics != null) {
+            statistics.addFixpoint(describe(cfg.getUnderlyingAST()), System.nanoTime() - startNanos,
+                    iterations, cfg.getAllBlocks().size());
+        }
+        if (exceededLimit != null) {
+            UnderlyingAST ast = cfg.getUnderlyingAST();
+            Tree tree = declarationTree(ast);
+            degraded.add(tree);
+            checker.reportWarning(tree, BUDGET_EXCEEDED, describe(ast), exceededLimit);
+        }
+    }
+
+    @Override
+    public void performAnalysisBlock(Block b) {
+        int variables = 0;
+        if (exceededLimit == null && !outOfScope) {
+            iterations++;
+            TransferInput<HemileiaValue, HemileiaStore> input = getInput(b);
+            variables = input == null ? 0 : input.getThenStore().trackedVariableCount();
+            maxTrackedVariables = Math.max(maxTrackedVariables, variables);
+            exceededLimit = budget.checkDuringAnalysis(iterations, variables, System.nanoTime() - startNanos);
+        }
+        if (exceededLimit != null || outOfScope) {
+            // Abandon the fixpoint: drop the remaining work so performAnalysis returns
+            while (!worklist.isEmpty()) {
+                worklist.poll();
+            }
+            return;
+        }
+        FixpointIterationEvent event = new FixpointIterationEvent();
+        event.begin();
+        super.performAnalysisBlock(b);
+        event.end();
+        if (event.shouldCommit()) {
+            event.method = describe(cfg.getUnderlyingAST());
+            event.blockId = b.getUid();
+            event.blockType = b.getType().name();
+            event.iteration = iterations;
+            event.trackedVariables = variables;
+            event.commit();
+        }
+    }
+
+    /**
+     * Checks whether the analysis of a method or lambda was abandoned because it exceeded
+     * its budget.
+     *
+     * @param tree a method or lambda expression tree
+     * @return true if the flow-sensitive results for the tree must not be trusted
+     */
+    public boolean isDegraded(Tree tree) {
+        return degraded.contains(tree);
+    }
+
+    /**
+     * Checks whether the CFG being analyzed belongs to a method outside the
+     * {@link HemileiaEditScope}.
+     *
+     * @return true if the current fixpoint is skipped
+     */
+    boolean isOutOfScope() {
+        return outOfScope;
+    }
+
+    private boolean isInEditScope(UnderlyingAST ast) {
+        MethodTree method = switch (ast.getKind()) {
+            case METHOD -> ((UnderlyingAST.CFGMethod) ast).getMethod();
+            case LAMBDA -> ((UnderlyingAST.CFGLambda) ast).getEnclosingMethod();
+            default -> null;
+        };
+        return method == null || !(atypeFactory instanceof HemileiaAnnotatedTypeFactory factory)
+                || factory.isInEditScope(method);
+    }
+
+    /**
+     * Returns the tree that declares the code of a CFG: the method, the lambda, or the
+     * initializer statement itself.
+     */
+    private static Tree declarationTree(UnderlyingAST ast) {
+        switch (ast.getKind()) {
+            case METHOD:
+                return ((UnderlyingAST.CFGMethod) ast).getMethod();
+            case LAMBDA:
+                return ((UnderlyingAST.CFGLambda) ast).getLambdaTree();
+            default:
+                return ast.getCode();
+        }
+    }
+
+    /**
+     * Returns a human-readable name for the code of a CFG, such as
+     * {@code pkg.Outer.method(java.lang.String)}.
+     *
+     * @param ast the underlying AST of a CFG
+     * @return a name suitable for diagnostics and reports
+     */
+    public static String describe(UnderlyingAST ast) {
+        switch (ast.getKind()) {
+            case METHOD: {
+                UnderlyingAST.CFGMethod method = (UnderlyingAST.CFGMethod) ast;
+                return qualifiedName(method.getClassTree(), method.getMethod());
+            }
+            case LAMBDA: {
+                UnderlyingAST.CFGLambda lambda = (UnderlyingAST.CFGLambda) ast;
+                MethodTree enclosing = lambda.getEnclosingMethod();
+                return (enclosing == null
+                        ? TreeUtils.elementFromDeclaration(lambda.getClassTree()).getQualifiedName().toString()
+                        : qualifiedName(lambda.getClassTree(), enclosing)) + "$lambda";
+            }
+            default: {
+                UnderlyingAST.CFGStatement statement = (UnderlyingAST.CFGStatement) ast;
+                return TreeUtils.elementFromDeclaration(statement.getClassTree()).getQualifiedName()
+                        + ".<initializer>";
+            }
+        }
+    }
+
+    /**
+     * Returns the same name as {@link #describe(UnderlyingAST)} for a method declaration.
+     *
+     * @param methodTree a method declaration
+     * @return a name suitable for diagnostics and reports
+     */
+    public static String describe(MethodTree methodTree) {
+        ExecutableElement method = TreeUtils.elementFromDeclaration(methodTree);
+        return qualifiedName((TypeElement) method.getEnclosingElement(), method);
+    }
+
+    private static String qualifiedName(ClassTree classTree, MethodTree methodTree) {
+        return qualifiedName(TreeUtils.elementFromDeclaration(classTree), TreeUtils.elementFromDeclaration(methodTree));
+    }
+
+    private static String qualifiedName(TypeElement classElement, ExecutableElement method) {
+        StringJoiner parameters = new StringJoiner(",", "(", ")");
+        for (VariableElement parameter : method.getParameters()) {
+            parameters.add(HemileiaAnnotatedTypeFactory.erasedName(parameter.asType()));
+        }
+        String name = method.getKind() == ElementKind.CONSTRUCTOR
+                ? classElement.getSimpleName().toString()
+                : method.getSimpleName().toString();
+        return classElement.getQualifiedName() + "." + name + parameters;
+    }
+
+    @Override
+    public HemileiaStore createEmptyStore(boolean sequentialSemantics) {
+        return new HemileiaStore(this, sequentialSemantics);
+    }
+
+    @Override
+    public HemileiaStore createCopiedStore(HemileiaStore store) {
+        return new HemileiaStore(store);
+    }
+
+    @Override
+    public HemileiaValue createAbstractValue(
+            AnnotationMirrorSet annotations, TypeMirror underlyingType) {
+        if (underlyingType == null) {
+            return null;
+        }
+        javax.lang.model.type.TypeKind kind = underlyingType.getKind();
+        // Don't track primitive types, void, or executable types
+        if (kind.isPrimitive() || kind == javax.lang.model.type.TypeKind.VOID
+                || kind == javax.lang.model.type.TypeKind.EXECUTABLE
+                || kind == javax.lang.model.type.TypeKind.NONE
+                || kind == javax.lang.model.type.TypeKind.ERROR) {
+            return null;
+        }
+        return new HemileiaValue(this, annotations, underlyingType);
+    }
+}
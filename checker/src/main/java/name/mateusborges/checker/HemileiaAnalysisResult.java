@@ -0,0 +1,54 @@
+package name.mateusborges.checker;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.checkerframework.dataflow.analysis.AnalysisResult;
+import org.checkerframework.dataflow.analysis.TransferInput;
+import org.checkerframework.dataflow.analysis.TransferResult;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.block.Block;
+import org.checkerframework.dataflow.cfg.node.Node;
+
+import com.sun.source.tree.Tree;
+
+/**
+ * The flow results of a top-level class, with support for dropping the results of a single
+ * control flow graph once they are no longer needed.
+ *
+ * <p>Used by {@link HemileiaAnnotatedTypeFactory} when {@code -Ahemileia.releaseMethodResults}
+ * is given, so that the stores of a method are garbage once {@link HemileiaVisitor} has
+ * finished checking it.
+ */
+public class HemileiaAnalysisResult extends AnalysisResult<HemileiaValue, HemileiaStore> {
+
+    public HemileiaAnalysisResult(
+            Map<TransferInput<HemileiaValue, HemileiaStore>,
+                    IdentityHashMap<Node, TransferResult<HemileiaValue, HemileiaStore>>> analysisCaches) {
+        super(analysisCaches);
+    }
+
+    /**
+     * Removes the block inputs, node values, tree lookups and cached per-node results that
+     * were produced for the given CFG.
+     *
+     * @param cfg a control flow graph whose results were combined into this result
+     */
+    public void release(ControlFlowGraph cfg) {
+        for (Block block : cfg.getAllBlocks()) {
+            TransferInput<HemileiaValue, HemileiaStore> input = inputs.remove(block);
+            if (input != null) {
+                analysisCaches.remove(input);
+            }
+        }
+        for (Node node : cfg.getAllNodes()) {
+            nodeValues.remove(node);
+        }
+        for (Tree tree : cfg.getTreeLookup().keySet()) {
+            treeLookup.remove(tree);
+        }
+        for (Tree tree : cfg.getPostfixNodeLookup().keySet()) {
+            postfixLookup.remove(tree);
+        }
+    }
+}
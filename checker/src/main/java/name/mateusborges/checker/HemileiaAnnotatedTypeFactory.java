@@ -0,0 +1,694 @@
+package name.mateusborges.checker;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.util.ElementFilter;
+
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.UnderlyingAST;
+import org.checkerframework.dataflow.cfg.block.SpecialBlock;
+import org.checkerframework.dataflow.cfg.block.SpecialBlockImpl;
+import org.checkerframework.framework.flow.CFAbstractAnalysis.FieldInitialValue;
+import org.checkerframework.framework.type.AnnotatedTypeMirror;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclaredType;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedPrimitiveType;
+import org.checkerframework.framework.type.GenericAnnotatedTypeFactory;
+import org.checkerframework.framework.type.QualifierHierarchy;
+import org.checkerframework.framework.type.treeannotator.ListTreeAnnotator;
+import org.checkerframework.framework.type.treeannotator.TreeAnnotator;
+import org.checkerframework.framework.util.defaults.QualifierDefaults;
+import org.checkerframework.javacutil.AnnotationBuilder;
+import org.checkerframework.javacutil.ElementUtils;
+import org.checkerframework.javacutil.TreeUtils;
+import org.checkerframework.javacutil.UserError;
+import org.plumelib.util.IPair;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.MemberReferenceTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreeScanner;
+
+import name.mateusborges.annotations.Borrowed;
+import name.mateusborges.annotations.BorrowedByResult;
+import name.mateusborges.annotations.BorrowsCaptures;
+import name.mateusborges.annotations.Consumes;
+import name.mateusborges.annotations.EndsBorrows;
+import name.mateusborges.annotations.InvalidatesBorrows;
+import name.mateusborges.annotations.Moved;
+import name.mateusborges.annotations.MovesCaptures;
+import name.mateusborges.annotations.MutBorrowed;
+import name.mateusborges.annotations.Owned;
+import name.mateusborges.annotations.ReturnsBorrow;
+import name.mateusborges.annotations.SharesHeldBorrows;
+
+/**
+ * The annotated type factory for the Hemileia ownership type system.
+ *
+ * <p>This factory provides:
+ * <ul>
+ *   <li>Flow-sensitive type refinement (enabled by default)</li>
+ *   <li>The qualifier hierarchy: {@code @Owned} > {@code @Borrowed}, {@code @MutBorrowed} > {@code @Moved}</li>
+ *   <li>Helper methods for checking ownership annotations</li>
+ * </ul>
+ */
+public class HemileiaAnnotatedTypeFactory
+        extends GenericAnnotatedTypeFactory<HemileiaValue, HemileiaStore, HemileiaTransfer, HemileiaAnalysis> {
+
+    /** Cached annotation mirrors for efficient lookup */
+    private final AnnotationMirror OWNED;
+    private final AnnotationMirror BORROWED;
+    private final AnnotationMirror MUT_BORROWED;
+    private final AnnotationMirror MOVED;
+
+    /**
+     * Type names given with {@code -Ahemileia.trackedTypes}, or null if every reference
+     * type is tracked (the default).
+     */
+    private final Set<String> trackedTypeNames;
+
+    /** Memoized answers of {@link #isTrackedType} for type declarations. */
+    private final Map<TypeElement, Boolean> trackedDeclarations = new HashMap<>();
+
+    /** Whether {@code -Ahemileia.releaseMethodResults} was given. */
+    private final boolean releaseMethodResults;
+
+    /**
+     * The CFGs of each method (including its lambdas) whose results are still held by
+     * {@link #flowResult}. Only populated when {@link #releaseMethodResults} is set.
+     */
+    private final Map<MethodTree, List<ControlFlowGraph>> unreleasedGraphs = new IdentityHashMap<>();
+
+    /** Whether the flow analysis of the current top-level class created a held borrow. */
+    private boolean heldBorrowsCreated;
+
+    /** Collected numbers, or null unless {@code -Ahemileia.stats} is given. */
+    private final HemileiaStatistics statistics;
+
+    /** Removable copies found by the visitor, or null unless {@code -Ahemileia.copyReport} is given. */
+    private final HemileiaCopyReport copyReport;
+
+    /** The methods to check, narrowed by {@code -Ahemileia.changedLines}. */
+    private final HemileiaEditScope editScope;
+
+    @SuppressWarnings("this-escape")
+    public HemileiaAnnotatedTypeFactory(BaseTypeChecker checker) {
+        super(checker);
+
+        // Create cached annotation mirrors
+        OWNED = AnnotationBuilder.fromClass(elements, Owned.class);
+        BORROWED = AnnotationBuilder.fromClass(elements, Borrowed.class);
+        MUT_BORROWED = AnnotationBuilder.fromClass(elements, MutBorrowed.class);
+        MOVED = AnnotationBuilder.fromClass(elements, Moved.class);
+
+        if (checker.hasOption(HemileiaChecker.TRACKED_TYPES_OPTION)) {
+            List<String> names = checker.getStringsOption(HemileiaChecker.TRACKED_TYPES_OPTION, ',', List.of());
+            trackedTypeNames = new HashSet<>();
+            for (String name : names) {
+                trackedTypeNames.add(name.trim());
+            }
+        } else {
+            trackedTypeNames = null;
+        }
+        releaseMethodResults = checker.hasOption(HemileiaChecker.RELEASE_METHOD_RESULTS_OPTION);
+        statistics = checker.hasOption(HemileiaChecker.STATS_OPTION) ? new HemileiaStatistics() : null;
+        if (statistics != null) {
+            // Reject a bad value before checking rather than when the statistics are printed
+            HemileiaChecker.statsTop(checker);
+        }
+        if (checker.hasOption(HemileiaChecker.COPY_REPORT_OPTION)) {
+            String file = checker.getOption(HemileiaChecker.COPY_REPORT_OPTION);
+            if (file == null || file.isBlank()) {
+                throw new UserError("-A%s expects a file name", HemileiaChecker.COPY_REPORT_OPTION);
+            }
+            copyReport = new HemileiaCopyReport();
+        } else {
+            copyReport = null;
+        }
+        editScope = HemileiaEditScope.fromOptions(checker, trees);
+
+        // Initialize the factory after setting up annotations
+        postInit();
+    }
+
+    @Override
+    protected Set<Class<? extends Annotation>> createSupportedTypeQualifiers() {
+        return Set.of(Owned.class, Borrowed.class, MutBorrowed.class, Moved.class);
+    }
+
+    @Override
+    public HemileiaTransfer createFlowTransferFunction(
+            org.checkerframework.framework.flow.CFAbstractAnalysis<HemileiaValue, HemileiaStore, HemileiaTransfer> analysis) {
+        return new HemileiaTransfer((HemileiaAnalysis) analysis);
+    }
+
+    @Override
+    protected HemileiaAnalysis createFlowAnalysis() {
+        return new HemileiaAnalysis(checker, this);
+    }
+
+    @Override
+    protected QualifierHierarchy createQualifierHierarchy() {
+        return new HemileiaQualifierHierarchy(this.getSupportedTypeQualifiers(), elements, this);
+    }
+
+    @Override
+    protected void addCheckedCodeDefaults(QualifierDefaults defs) {
+        // Default to @Owned for all locations
+        defs.addCheckedCodeDefault(OWNED, org.checkerframework.framework.qual.TypeUseLocation.ALL);
+    }
+
+    @Override
+    protected TreeAnnotator createTreeAnnotator() {
+        return new ListTreeAnnotator(super.createTreeAnnotator());
+    }
+
+    /**
+     * Boxing copies a primitive into a new object, which the caller owns. Primitives carry no
+     * qualifier, so the boxed type is the top one, {@code @Borrowed}, and a subtask returning an
+     * {@code int} would not fit the type variable of {@code fork}, which is bounded by an owned
+     * type. Boxed values are therefore {@code @Owned} at calls that share captures with a task,
+     * and inside such tasks; elsewhere boxing keeps its default.
+     */
+    @Override
+    public AnnotatedDeclaredType getBoxedType(AnnotatedPrimitiveType type) {
+        AnnotatedDeclaredType boxed = super.getBoxedType(type);
+        if (isAtCaptureSharingCall()) {
+            boxed.replaceAnnotation(OWNED);
+        }
+        return boxed;
+    }
+
+    /**
+     * Checks if the visitor is at, or inside an argument of, a call with a
+     * {@code @BorrowsCaptures} parameter.
+     */
+    private boolean isAtCaptureSharingCall() {
+        for (TreePath path = getVisitorTreePath(); path != null; path = path.getParentPath()) {
+            Tree leaf = path.getLeaf();
+            if (leaf instanceof MethodInvocationTree call) {
+                for (VariableElement parameter : TreeUtils.elementFromUse(call).getParameters()) {
+                    if (borrowsCaptures(parameter)) {
+                        return true;
+                    }
+                }
+            } else if (leaf instanceof MethodTree || leaf instanceof ClassTree) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void performFlowAnalysisForClass(ClassTree classTree) {
+        if (flowResult == null) {
+            heldBorrowsCreated = false;
+        }
+        if (releaseMethodResults && flowResult == null) {
+            // Same reset the superclass does for a new top-level class, but with a result
+            // that can drop individual methods.
+            regularExitStores.clear();
+            exceptionalExitStores.clear();
+            returnStatementStores.clear();
+            unreleasedGraphs.clear();
+            flowResult = new HemileiaAnalysisResult(flowResultAnalysisCaches);
+        }
+        super.performFlowAnalysisForClass(classTree);
+    }
+
+    @Override
+    protected ControlFlowGraph analyze(
+            Queue<IPair<ClassTree, HemileiaStore>> queue,
+            Queue<IPair<LambdaExpressionTree, HemileiaStore>> lambdaQueue,
+            UnderlyingAST ast,
+            List<FieldInitialValue<HemileiaValue>> fieldValues,
+            ControlFlowGraph cfg,
+            boolean isInitializationCode,
+            boolean updateInitializationStore,
+            boolean isStatic,
+            HemileiaStore capturedStore) {
+        long start = statistics == null ? 0 : System.nanoTime();
+        if (cfg == null && ast.getKind() == UnderlyingAST.Kind.METHOD
+                && !isInEditScope(((UnderlyingAST.CFGMethod) ast).getMethod())) {
+            // Building the graph costs more than analyzing it; an empty one also keeps the
+            // method's lambdas and local classes out of the queues.
+            cfg = emptyGraph(ast);
+        }
+        ControlFlowGraph result = super.analyze(queue, lambdaQueue, ast, fieldValues, cfg,
+                isInitializationCode, updateInitializationStore, isStatic, capturedStore);
+        if (statistics != null) {
+            statistics.addAnalyze(System.nanoTime() - start);
+        }
+        if (releaseMethodResults) {
+            MethodTree owner = switch (ast.getKind()) {
+                case METHOD -> ((UnderlyingAST.CFGMethod) ast).getMethod();
+                case LAMBDA -> ((UnderlyingAST.CFGLambda) ast).getEnclosingMethod();
+                default -> null;
+            };
+            // Field initializers and initializer blocks are kept until the class is done.
+            if (owner != null) {
+                unreleasedGraphs.computeIfAbsent(owner, k -> new ArrayList<>()).add(result);
+            }
+        }
+        return result;
+    }
+
+    /** A graph that goes straight from entry to exit, for methods that are not checked. */
+    private static ControlFlowGraph emptyGraph(UnderlyingAST ast) {
+        SpecialBlockImpl entry = new SpecialBlockImpl(SpecialBlock.SpecialBlockType.ENTRY);
+        SpecialBlockImpl exit = new SpecialBlockImpl(SpecialBlock.SpecialBlockType.EXIT);
+        entry.setSuccessor(exit);
+        return new ControlFlowGraph(entry, exit,
+                new SpecialBlockImpl(SpecialBlock.SpecialBlockType.EXCEPTIONAL_EXIT), ast,
+                new IdentityHashMap<>(), new IdentityHashMap<>(), new IdentityHashMap<>(),
+                List.of(), List.of(), List.of());
+    }
+
+    @Override
+    public AnnotatedTypeMirror getAnnotatedType(Tree tree) {
+        if (statistics != null) {
+            statistics.countTypeLookup();
+        }
+        return super.getAnnotatedType(tree);
+    }
+
+    @Override
+    public AnnotatedTypeMirror getAnnotatedType(Element elt) {
+        if (statistics != null) {
+            statistics.countTypeLookup();
+        }
+        return super.getAnnotatedType(elt);
+    }
+
+    /** Records that the flow analysis created a held borrow, see {@link #mayHoldBorrows}. */
+    void noteHeldBorrow() {
+        heldBorrowsCreated = true;
+    }
+
+    /**
+     * Checks if any store of the current top-level class may have held borrows. Most classes
+     * start no scoped tasks and hold nothing, so checks of held borrows can skip looking up the
+     * store before every call.
+     */
+    public boolean mayHoldBorrows() {
+        return heldBorrowsCreated;
+    }
+
+    /**
+     * Returns the statistics being collected, or null unless {@code -Ahemileia.stats} is given.
+     */
+    public HemileiaStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Returns the removable copies being collected, or null unless {@code -Ahemileia.copyReport}
+     * is given.
+     */
+    public HemileiaCopyReport getCopyReport() {
+        return copyReport;
+    }
+
+    /**
+     * Drops the flow results of a method and of the lambdas inside it. Does nothing unless
+     * {@code -Ahemileia.releaseMethodResults} was given.
+     *
+     * <p>Must only be called once every check that queries the method's stores has run;
+     * afterwards its trees are typed as if flow-insensitively.
+     *
+     * @param tree a method that has been fully visited
+     */
+    public void releaseFlowResults(MethodTree tree) {
+        List<ControlFlowGraph> graphs = unreleasedGraphs.remove(tree);
+        if (graphs == null) {
+            return;
+        }
+        for (ControlFlowGraph cfg : graphs) {
+            Tree code = cfg.getUnderlyingAST().getCode();
+            regularExitStores.remove(code);
+            exceptionalExitStores.remove(code);
+            ((HemileiaAnalysisResult) flowResult).release(cfg);
+        }
+        regularExitStores.remove(tree);
+        exceptionalExitStores.remove(tree);
+        returnStatementStores.remove(tree);
+    }
+
+    /**
+     * Checks whether the flow analysis of a method or lambda was abandoned because it
+     * exceeded its {@link HemileiaBudget}.
+     *
+     * @param tree a method or lambda expression tree
+     * @return true if only flow-insensitive checks should be applied to the tree
+     */
+    public boolean isAnalysisDegraded(Tree tree) {
+        return analysis.isDegraded(tree);
+    }
+
+    /**
+     * Checks whether a method of the current compilation unit is checked at all, see
+     * {@link HemileiaEditScope}.
+     *
+     * @param tree a method declaration
+     * @return false if {@code -Ahemileia.changedLines} leaves the method out
+     */
+    public boolean isInEditScope(MethodTree tree) {
+        return editScope.includes(root, tree);
+    }
+
+    /**
+     * Checks whether ownership is tracked for values of the given type.
+     *
+     * <p>Without {@code -Ahemileia.trackedTypes} every declared type is tracked, and of the
+     * arrays only {@code byte[]}, which is handed off as a buffer. Other arrays are mostly passed
+     * to helpers such as {@code Arrays.toString} that only read them, so they are treated like
+     * primitives. With the option, only the listed types, types whose declaration carries an
+     * ownership qualifier, and their subtypes are tracked; everything else is treated like a
+     * primitive.
+     *
+     * @param type the type to check
+     * @return true if moves and borrows of values of this type are tracked
+     */
+    public boolean isTrackedType(TypeMirror type) {
+        if (trackedTypeNames == null) {
+            return type.getKind() != TypeKind.ARRAY
+                    || ((ArrayType) type).getComponentType().getKind() == TypeKind.BYTE;
+        }
+        switch (type.getKind()) {
+            case DECLARED:
+                return isTrackedDeclaration((TypeElement) ((DeclaredType) type).asElement());
+            case ARRAY:
+                return trackedTypeNames.contains(erasedName(type))
+                        || isTrackedType(((ArrayType) type).getComponentType());
+            case TYPEVAR:
+                return isTrackedType(((TypeVariable) type).getUpperBound());
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Checks whether a type declaration is tracked, walking its supertypes.
+     */
+    private boolean isTrackedDeclaration(TypeElement element) {
+        Boolean cached = trackedDeclarations.get(element);
+        if (cached != null) {
+            return cached;
+        }
+        boolean tracked = trackedTypeNames.contains(element.getQualifiedName().toString());
+        if (!tracked) {
+            for (AnnotationMirror anno : element.getAnnotationMirrors()) {
+                if (isSupportedQualifier(anno)) {
+                    tracked = true;
+                    break;
+                }
+            }
+        }
+        if (!tracked) {
+            for (TypeMirror supertype : types.directSupertypes(element.asType())) {
+                if (isTrackedType(supertype)) {
+                    tracked = true;
+                    break;
+                }
+            }
+        }
+        trackedDeclarations.put(element, tracked);
+        return tracked;
+    }
+
+    /**
+     * Returns the source-style name of the erasure of a type, e.g. {@code byte[]} or
+     * {@code java.lang.String[][]}, without any type annotations.
+     *
+     * @param type the type to name
+     * @return the erased name of the type
+     */
+    static String erasedName(TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return erasedName(((ArrayType) type).getComponentType()) + "[]";
+            case DECLARED:
+                return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+            case TYPEVAR:
+                return erasedName(((TypeVariable) type).getUpperBound());
+            default:
+                return type.getKind().toString().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    // Helper methods for checking annotations
+
+    /**
+     * Checks if a type has the {@code @Owned} annotation.
+     */
+    public boolean hasOwned(AnnotatedTypeMirror type) {
+        return type.hasPrimaryAnnotation(OWNED);
+    }
+
+    /**
+     * Checks if a type has the {@code @Borrowed} annotation.
+     */
+    public boolean hasBorrowed(AnnotatedTypeMirror type) {
+        return type.hasPrimaryAnnotation(BORROWED);
+    }
+
+    /**
+     * Checks if a type has the {@code @MutBorrowed} annotation.
+     */
+    public boolean hasMutBorrowed(AnnotatedTypeMirror type) {
+        return type.hasPrimaryAnnotation(MUT_BORROWED);
+    }
+
+    /**
+     * Checks if a type has the {@code @Moved} annotation.
+     */
+    public boolean hasMoved(AnnotatedTypeMirror type) {
+        return type.hasPrimaryAnnotation(MOVED);
+    }
+
+    /**
+     * Checks if a method takes ownership of its receiver, see {@link Consumes}.
+     */
+    public boolean isConsuming(ExecutableElement method) {
+        return getDeclAnnotation(method, Consumes.class) != null;
+    }
+
+    /**
+     * Checks if a method, or the method overriding it in the receiver's type, takes ownership of
+     * its receiver. The {@code close()} call that the CFG adds for a try-with-resources statement
+     * invokes {@link AutoCloseable#close()}, not the resource's own {@code close()}.
+     */
+    public boolean isConsuming(ExecutableElement method, TypeMirror receiverType) {
+        return hasDeclAnnotationInReceiverType(method, receiverType, Consumes.class);
+    }
+
+    /**
+     * Checks if a method invalidates the borrows of its receiver (see {@link InvalidatesBorrows}),
+     * resolved like {@link #isConsuming(ExecutableElement, TypeMirror)}, or overrides a method
+     * that does: the stubs annotate {@code Collection.add}, not every implementation such as
+     * {@code LinkedList.add}. Methods of the concurrent collections never do, as their iterators
+     * tolerate modification.
+     */
+    public boolean invalidatesBorrows(ExecutableElement method, TypeMirror receiverType) {
+        if (hasDeclAnnotationInReceiverType(method, receiverType, InvalidatesBorrows.class)) {
+            return true;
+        }
+        return !ElementUtils.enclosingPackage(method).getQualifiedName().contentEquals("java.util.concurrent")
+                && overridesDeclAnnotation(method, InvalidatesBorrows.class);
+    }
+
+    /**
+     * Checks if a method ends the borrows its receiver holds, see {@link EndsBorrows}.
+     */
+    public boolean endsBorrows(ExecutableElement method) {
+        return getDeclAnnotation(method, EndsBorrows.class) != null;
+    }
+
+    /**
+     * Checks if a method, or the method overriding it in the receiver's type, ends the borrows
+     * its receiver holds; see {@link #isConsuming(ExecutableElement, TypeMirror)}.
+     */
+    public boolean endsBorrows(ExecutableElement method, TypeMirror receiverType) {
+        return hasDeclAnnotationInReceiverType(method, receiverType, EndsBorrows.class);
+    }
+
+    /**
+     * Checks if a parameter ends the borrows held by its argument, see {@link EndsBorrows}.
+     */
+    public boolean endsBorrows(VariableElement parameter) {
+        return getDeclAnnotation(parameter, EndsBorrows.class) != null;
+    }
+
+    private boolean overridesDeclAnnotation(ExecutableElement method, Class<? extends Annotation> annotation) {
+        for (ExecutableElement overridden : ElementUtils.getOverriddenMethods(method, types)) {
+            if (getDeclAnnotation(overridden, annotation) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasDeclAnnotationInReceiverType(ExecutableElement method, TypeMirror receiverType,
+            Class<? extends Annotation> annotation) {
+        if (getDeclAnnotation(method, annotation) != null) {
+            return true;
+        }
+        if (!(receiverType instanceof DeclaredType declared)) {
+            return false;
+        }
+        TypeElement type = (TypeElement) declared.asElement();
+        for (ExecutableElement member : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+            if (member.getSimpleName().equals(method.getSimpleName()) && !member.equals(method)
+                    && elements.overrides(member, method, type) && getDeclAnnotation(member, annotation) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a parameter shares what its argument captures with the receiver, see
+     * {@link BorrowsCaptures}.
+     */
+    public boolean borrowsCaptures(VariableElement parameter) {
+        return getDeclAnnotation(parameter, BorrowsCaptures.class) != null;
+    }
+
+    /**
+     * Checks if a method's result holds the argument of a parameter, see {@link BorrowedByResult}.
+     */
+    public boolean borrowedByResult(VariableElement parameter) {
+        return getDeclAnnotation(parameter, BorrowedByResult.class) != null;
+    }
+
+    /**
+     * Returns the parameter a lambda is passed to, if it is an argument of a method invocation.
+     *
+     * @param lambda the lambda
+     * @return the parameter, or null if the lambda is not a method argument
+     */
+    public VariableElement parameterOf(LambdaExpressionTree lambda) {
+        TreePath path = getPath(lambda);
+        if (path == null || !(path.getParentPath().getLeaf() instanceof MethodInvocationTree invocation)) {
+            return null;
+        }
+        int index = invocation.getArguments().indexOf(lambda);
+        List<? extends VariableElement> parameters = TreeUtils.elementFromUse(invocation).getParameters();
+        return index < 0 || index >= parameters.size() ? null : parameters.get(index);
+    }
+
+    /**
+     * Returns the local variables and parameters of the enclosing method that a lambda, method
+     * reference or anonymous class captures.
+     *
+     * @param tree the argument tree
+     * @return the captured variables, empty if the tree is not one of those
+     */
+    public Set<VariableElement> capturedVariables(Tree tree) {
+        if (!(tree instanceof LambdaExpressionTree || tree instanceof MemberReferenceTree
+                || (tree instanceof NewClassTree newClass && newClass.getClassBody() != null))) {
+            return Set.of();
+        }
+        Set<VariableElement> declared = new HashSet<>();
+        Set<VariableElement> used = new LinkedHashSet<>();
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void visitVariable(VariableTree variable, Void p) {
+                declared.add(TreeUtils.elementFromDeclaration(variable));
+                return super.visitVariable(variable, p);
+            }
+
+            @Override
+            public Void visitIdentifier(IdentifierTree identifier, Void p) {
+                if (TreeUtils.elementFromUse(identifier) instanceof VariableElement variable
+                        && (ElementUtils.isLocalVariable(variable) || variable.getKind() == ElementKind.PARAMETER)) {
+                    used.add(variable);
+                }
+                return null;
+            }
+        }.scan(tree, null);
+        used.removeAll(declared);
+        return used;
+    }
+
+    /**
+     * Checks if a parameter takes ownership of what its argument captures, see {@link MovesCaptures}.
+     */
+    public boolean movesCaptures(VariableElement parameter) {
+        return getDeclAnnotation(parameter, MovesCaptures.class) != null;
+    }
+
+    /**
+     * Checks if a method, or a method it overrides, returns a value that borrows from its
+     * receiver, see {@link ReturnsBorrow}. The iterator of a {@code LinkedList} borrows from it
+     * like the {@code Iterable.iterator()} the stubs annotate.
+     */
+    public boolean returnsBorrow(ExecutableElement method) {
+        return getDeclAnnotation(method, ReturnsBorrow.class) != null
+                || overridesDeclAnnotation(method, ReturnsBorrow.class);
+    }
+
+    /**
+     * Checks if a method returns a value that holds what its receiver holds, see
+     * {@link SharesHeldBorrows}.
+     */
+    public boolean sharesHeldBorrows(ExecutableElement method) {
+        return getDeclAnnotation(method, SharesHeldBorrows.class) != null;
+    }
+
+    /**
+     * Gets the {@code @Owned} annotation mirror.
+     */
+    public AnnotationMirror getOwnedAnnotation() {
+        return OWNED;
+    }
+
+    /**
+     * Gets the {@code @Borrowed} annotation mirror.
+     */
+    public AnnotationMirror getBorrowedAnnotation() {
+        return BORROWED;
+    }
+
+    /**
+     * Gets the {@code @MutBorrowed} annotation mirror.
+     */
+    public AnnotationMirror getMutBorrowedAnnotation() {
+        return MUT_BORROWED;
+    }
+
+    /**
+     * Gets the {@code @Moved} annotation mirror.
+     */
+    public AnnotationMirror getMovedAnnotation() {
+        return MOVED;
+    }
+}
@@ -0,0 +1,100 @@
+package name.mateusborges.checker;
+
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.framework.source.SourceChecker;
+import org.checkerframework.javacutil.UserError;
+
+/**
+ * Per-method limits for the Hemileia dataflow analysis.
+ *
+ * <p>Each limit is read from an {@code -A} option and is unlimited when the option is absent:
+ * <ul>
+ *   <li>{@code -Ahemileia.budget.blocks} - basic blocks in the method's CFG</li>
+ *   <li>{@code -Ahemileia.budget.variables} - local variables tracked by a single store</li>
+ *   <li>{@code -Ahemileia.budget.iterations} - block visits before the fixpoint is reached</li>
+ *   <li>{@code -Ahemileia.budget.millis} - wall-clock time spent analyzing the method</li>
+ * </ul>
+ *
+ * <p>When a method exceeds any of them, {@link HemileiaAnalysis} stops analyzing it and the
+ * method is only checked flow-insensitively (see {@link HemileiaVisitor}).
+ */
+public final class HemileiaBudget {
+
+    private final int maxBlocks;
+    private final int maxVariables;
+    private final long maxIterations;
+    private final long maxNanos;
+
+    private HemileiaBudget(int maxBlocks, int maxVariables, long maxIterations, long maxNanos) {
+        this.maxBlocks = maxBlocks;
+        this.maxVariables = maxVariables;
+        this.maxIterations = maxIterations;
+        this.maxNanos = maxNanos;
+    }
+
+    /**
+     * Reads the budget from the checker's {@code -A} options.
+     *
+     * @param checker the checker whose options are read
+     * @return the configured budget
+     */
+    public static HemileiaBudget fromOptions(SourceChecker checker) {
+        return new HemileiaBudget(
+                (int) readLimit(checker, HemileiaChecker.BUDGET_BLOCKS_OPTION, Integer.MAX_VALUE),
+                (int) readLimit(checker, HemileiaChecker.BUDGET_VARIABLES_OPTION, Integer.MAX_VALUE),
+                readLimit(checker, HemileiaChecker.BUDGET_ITERATIONS_OPTION, Long.MAX_VALUE),
+                readLimit(checker, HemileiaChecker.BUDGET_MILLIS_OPTION, Long.MAX_VALUE / 1_000_000)
+                        * 1_000_000);
+    }
+
+    private static long readLimit(SourceChecker checker, String option, long unlimited) {
+        String value = checker.getOption(option);
+        if (value == null) {
+            return unlimited;
+        }
+        try {
+            long limit = Long.parseLong(value.trim());
+            if (limit <= 0) {
+                throw new UserError("-A%s must be positive, got %s", option, value);
+            }
+            return Math.min(limit, unlimited);
+        } catch (NumberFormatException e) {
+            throw new UserError("-A%s expects a number, got %s", option, value);
+        }
+    }
+
+    /**
+     * Checks the limits that are known before the analysis starts.
+     *
+     * @param cfg the control flow graph about to be analyzed
+     * @return a description of the exceeded limit, or null if the CFG is within budget
+     */
+    public String checkBeforeAnalysis(ControlFlowGraph cfg) {
+        int blocks = cfg.getAllBlocks().size();
+        if (blocks > maxBlocks) {
+            return "blocks (" + blocks + " > " + maxBlocks + ")";
+        }
+        return null;
+    }
+
+    /**
+     * Checks the limits that grow while the fixpoint is computed.
+     *
+     * @param iterations the number of block visits so far
+     * @param variables the number of variables tracked by the current store
+     * @param elapsedNanos the time spent on this method so far
+     * @return a description of the exceeded limit, or null if the analysis is within budget
+     */
+    public String checkDuringAnalysis(long iterations, int variables, long elapsedNanos) {
+        if (iterations > maxIterations) {
+            return "iterations (" + iterations + " > " + maxIterations + ")";
+        }
+        if (variables > maxVariables) {
+            return "variables (" + variables + " > " + maxVariables + ")";
+        }
+        if (elapsedNanos > maxNanos) {
+            return "time (" + elapsedNanos / 1_000_000 + "ms > " + maxNanos / 1_000_000 + "ms)";
+        }
+        return null;
+    }
+}
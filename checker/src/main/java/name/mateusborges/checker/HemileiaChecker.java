@@ -0,0 +1,403 @@
+package name.mateusborges.checker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.framework.qual.RelevantJavaTypes;
+import org.checkerframework.framework.qual.StubFiles;
+import org.checkerframework.framework.source.SourceChecker;
+import org.checkerframework.javacutil.UserError;
+
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
+
+import name.mateusborges.checker.events.CompilationUnitCheckEvent;
+import name.mateusborges.checker.events.DiagnosticEvent;
+
+/**
+ * The main entry point for the Hemileia type checker.
+ *
+ * <p>Hemileia implements Rust-style ownership and borrowing semantics for Java.
+ * It enforces the following rules at compile time:
+ * <ul>
+ *   <li>Each value has exactly one owner at a time</li>
+ *   <li>When ownership is transferred (moved), the original variable becomes invalid</li>
+ *   <li>You can have either one mutable borrow OR any number of immutable borrows</li>
+ *   <li>Borrows must not outlive the owner</li>
+ * </ul>
+ *
+ * <p>Usage: Run javac with the processor flag:
+ * <pre>
+ * javac -processor name.mateusborges.checker.HemileiaChecker MyFile.java
+ * </pre>
+ * or as a javac plugin, see {@link HemileiaPlugin}:
+ * <pre>
+ * javac -Xplugin:Hemileia MyFile.java
+ * </pre>
+ *
+ * <p>Supported options:
+ * <ul>
+ *   <li>{@code -Ahemileia.trackedTypes=a.b.C,d.e.F} - only track ownership for the listed
+ *       types, types whose declaration carries an ownership qualifier, and their subtypes.
+ *       Every other reference type is treated like a primitive.</li>
+ *   <li>{@code -Ahemileia.budget.blocks}, {@code -Ahemileia.budget.variables},
+ *       {@code -Ahemileia.budget.iterations}, {@code -Ahemileia.budget.millis} - per-method
+ *       analysis limits, see {@link HemileiaBudget}.</li>
+ *   <li>{@code -Ahemileia.releaseMethodResults} - drop each method's dataflow stores as soon
+ *       as it has been checked, instead of keeping them until its top-level class is done. This
+ *       lowers peak heap but does not bound it, because the fixpoint of the whole class is
+ *       still computed first.</li>
+ *   <li>{@code -Ahemileia.stats} - print per-phase timings, counters and the slowest methods at
+ *       the end of compilation (see {@link HemileiaStatistics}). {@code -Ahemileia.statsFile=path}
+ *       also writes them as JSON, and {@code -Ahemileia.statsTop=N} sets how many methods are
+ *       listed (default 10).</li>
+ *   <li>{@code -Ahemileia.copyReport=path} - write the defensive copies and read-only wrappers
+ *       that the ownership facts show to be removable to a JSON file, see
+ *       {@link HemileiaCopyReport}.</li>
+ *   <li>{@code -Ahemileia.changedLines=12-40,88} - only recheck the methods an edit touched, for
+ *       editors that check a file as it is typed; {@code Foo.java:12-40} names the file when
+ *       several are checked, see {@link HemileiaEditScope}.</li>
+ *   <li>{@code -Ahemileia.subcheckers=a.b.C,d.e.F} - run the listed Checker Framework checkers
+ *       as subcheckers of Hemileia in the same compilation, see
+ *       {@link #getImmediateSubcheckerClasses()}.</li>
+ * </ul>
+ *
+ * <p>The checker also emits JDK Flight Recorder events, all disabled by default (see the
+ * {@code name.mateusborges.checker.events} package).
+ */
+@StubFiles({"jdk.astub", "foreign.astub"})
+@RelevantJavaTypes({Object.class, Object[].class})
+@SupportedOptions({
+    HemileiaChecker.TRACKED_TYPES_OPTION,
+    HemileiaChecker.BUDGET_BLOCKS_OPTION,
+    HemileiaChecker.BUDGET_VARIABLES_OPTION,
+    HemileiaChecker.BUDGET_ITERATIONS_OPTION,
+    HemileiaChecker.BUDGET_MILLIS_OPTION,
+    HemileiaChecker.RELEASE_METHOD_RESULTS_OPTION,
+    HemileiaChecker.STATS_OPTION,
+    HemileiaChecker.STATS_FILE_OPTION,
+    HemileiaChecker.STATS_TOP_OPTION,
+    HemileiaChecker.COPY_REPORT_OPTION,
+    HemileiaChecker.CHANGED_LINES_OPTION,
+    HemileiaChecker.SUBCHECKERS_OPTION
+})
+public class HemileiaChecker extends BaseTypeChecker {
+
+    /** Comma-separated list of fully-qualified type names whose ownership is tracked. */
+    public static final String TRACKED_TYPES_OPTION = "hemileia.trackedTypes";
+
+    /** Maximum number of basic blocks in a method's CFG. */
+    public static final String BUDGET_BLOCKS_OPTION = "hemileia.budget.blocks";
+
+    /** Maximum number of local variables tracked by a single store. */
+    public static final String BUDGET_VARIABLES_OPTION = "hemileia.budget.variables";
+
+    /** Maximum number of block visits while computing a method's fixpoint. */
+    public static final String BUDGET_ITERATIONS_OPTION = "hemileia.budget.iterations";
+
+    /** Maximum wall-clock milliseconds spent analyzing a single method. */
+    public static final String BUDGET_MILLIS_OPTION = "hemileia.budget.millis";
+
+    /** Release a method's flow results once the visitor has finished with it. */
+    public static final String RELEASE_METHOD_RESULTS_OPTION = "hemileia.releaseMethodResults";
+
+    /** Collect and print checker statistics. */
+    public static final String STATS_OPTION = "hemileia.stats";
+
+    /** File the statistics are also written to, as JSON. */
+    public static final String STATS_FILE_OPTION = "hemileia.statsFile";
+
+    /** Number of slowest methods listed in the statistics. */
+    public static final String STATS_TOP_OPTION = "hemileia.statsTop";
+
+    /** File the removable defensive copies are written to, as JSON. */
+    public static final String COPY_REPORT_OPTION = "hemileia.copyReport";
+
+    /** Comma-separated lines and line ranges of an edit; only the affected methods are checked. */
+    public static final String CHANGED_LINES_OPTION = "hemileia.changedLines";
+
+    /** Comma-separated list of fully-qualified checker class names run as subcheckers. */
+    public static final String SUBCHECKERS_OPTION = "hemileia.subcheckers";
+
+    /** Options that did not come from {@code -A} flags, see {@link #addOptions}. */
+    private Map<String, String> addedOptions = Map.of();
+
+    /** Whether {@link #typeProcessingOver} leaves the reports to the caller, see {@link #deferReports}. */
+    private boolean deferReports;
+
+    /** The statistics of the finished compilation, or null without {@code -Ahemileia.stats}. */
+    private HemileiaStatistics statistics;
+
+    /** The copy report of the finished compilation, or null without {@code -Ahemileia.copyReport}. */
+    private HemileiaCopyReport copyReport;
+
+    /** The diagnostics reported for the class being checked, see {@link #reportOnce}. */
+    private final Set<List<Object>> reported = new HashSet<>();
+
+    /**
+     * Adds checker options that did not come from {@code -A} flags, such as the arguments of
+     * {@link HemileiaPlugin}. They take precedence over {@code -A} options of the same name.
+     * Must be called before {@link #init}, which already reads options.
+     *
+     * @param options option values by name; a null value stands for an option without a value
+     */
+    void addOptions(Map<String, String> options) {
+        Map<String, String> added = new HashMap<>(addedOptions);
+        added.putAll(options);
+        addedOptions = Collections.unmodifiableMap(added);
+    }
+
+    @Override
+    public Map<String, String> getOptions() {
+        if (activeOptions == null && !addedOptions.isEmpty()) {
+            Map<String, String> merged = new HashMap<>(super.getOptions());
+            merged.putAll(addedOptions);
+            activeOptions = Collections.unmodifiableMap(merged);
+        }
+        return super.getOptions();
+    }
+
+    /**
+     * Adds the checkers named by {@code -Ahemileia.subcheckers} as subcheckers of Hemileia.
+     *
+     * <p>Running another checker this way instead of as a separate {@code -processor} lets the
+     * two share work: the Checker Framework builds the control flow graph of each method once
+     * per checker hierarchy and hands the cached graph to every checker in it, and the
+     * compilation unit is traversed from a single task listener. Subcheckers check each class
+     * before Hemileia does and report their own diagnostics; their errors do not stop Hemileia
+     * from checking the class.
+     *
+     * <p>The option is read from the raw processor options and {@link #addOptions}, because the
+     * framework asks for the subcheckers while it computes the checker's options.
+     */
+    @Override
+    protected Set<Class<? extends SourceChecker>> getImmediateSubcheckerClasses() {
+        Set<Class<? extends SourceChecker>> checkers = new LinkedHashSet<>(super.getImmediateSubcheckerClasses());
+        String names = addedOptions.containsKey(SUBCHECKERS_OPTION)
+                ? addedOptions.get(SUBCHECKERS_OPTION)
+                : getProcessingEnvironment().getOptions().get(SUBCHECKERS_OPTION);
+        if (names == null) {
+            return checkers;
+        }
+        for (String name : names.split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            Class<?> checker;
+            try {
+                checker = Class.forName(name, false, getClass().getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new UserError("-A%s: checker class %s not found", SUBCHECKERS_OPTION, name);
+            }
+            if (!SourceChecker.class.isAssignableFrom(checker) || checker == getClass()) {
+                throw new UserError("-A%s: %s is not a checker that can run under Hemileia",
+                        SUBCHECKERS_OPTION, name);
+            }
+            checkers.add(checker.asSubclass(SourceChecker.class));
+        }
+        return checkers;
+    }
+
+    @Override
+    public void typeProcess(TypeElement element, TreePath tree) {
+        CompilationUnitCheckEvent event = new CompilationUnitCheckEvent();
+        event.begin();
+        reported.clear();
+        super.typeProcess(element, tree);
+        event.end();
+        if (event.shouldCommit()) {
+            event.sourceFile = tree.getCompilationUnit().getSourceFile().getName();
+            event.className = element.getQualifiedName().toString();
+            event.commit();
+        }
+    }
+
+    @Override
+    public void reportError(Object source, String messageKey, Object... args) {
+        if (reportOnce(source, "error", messageKey, args)) {
+            recordDiagnostic(source, "error", messageKey);
+            super.reportError(source, messageKey, args);
+        }
+    }
+
+    @Override
+    public void reportWarning(Object source, String messageKey, Object... args) {
+        if (reportOnce(source, "warning", messageKey, args)) {
+            recordDiagnostic(source, "warning", messageKey);
+            super.reportWarning(source, messageKey, args);
+        }
+    }
+
+    /**
+     * Returns whether a diagnostic has not been reported yet for the class being checked. The
+     * visitor can reach the same finding more than once, e.g. from the store and from the
+     * refined type of a moved variable, or from every later use of an invalidated iterator.
+     * Sources are compared by identity, as trees and elements are.
+     */
+    private boolean reportOnce(Object source, String kind, String messageKey, Object[] args) {
+        List<Object> diagnostic = new ArrayList<>(Arrays.asList(args));
+        diagnostic.add(0, messageKey);
+        diagnostic.add(0, kind);
+        diagnostic.add(0, source == null ? null : new IdentityKey(source));
+        return reported.add(diagnostic);
+    }
+
+    /** Compares a diagnostic source by identity. */
+    private record IdentityKey(Object source) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof IdentityKey key && key.source == source;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(source);
+        }
+    }
+
+    private void recordDiagnostic(Object source, String kind, String messageKey) {
+        DiagnosticEvent event = new DiagnosticEvent();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.kind = kind;
+        event.messageKey = messageKey;
+        if (currentRoot != null) {
+            event.sourceFile = currentRoot.getSourceFile().getName();
+            if (source instanceof Tree tree) {
+                long position = Trees.instance(getProcessingEnvironment()).getSourcePositions()
+                        .getStartPosition(currentRoot, tree);
+                event.line = position < 0 ? -1 : currentRoot.getLineMap().getLineNumber(position);
+            }
+        }
+        event.commit();
+    }
+
+    @Override
+    public void typeProcessingOver() {
+        super.typeProcessingOver();
+        // getTypeFactory() throws if the checker was never initialized, e.g. after an invalid option
+        if (!hasOption(STATS_OPTION) && !hasOption(COPY_REPORT_OPTION) || getVisitor() == null) {
+            return;
+        }
+        HemileiaAnnotatedTypeFactory factory = (HemileiaAnnotatedTypeFactory) getTypeFactory();
+        statistics = hasOption(STATS_OPTION) ? factory.getStatistics() : null;
+        copyReport = factory.getCopyReport();
+        if (!deferReports) {
+            Messager messager = getProcessingEnvironment().getMessager();
+            writeReports(statistics, copyReport, messager::printMessage);
+        }
+    }
+
+    /**
+     * Keeps the statistics and the copy report of this checker's compilation instead of printing
+     * and writing them when it ends. For callers that split a check into several javac tasks,
+     * which would otherwise each overwrite the files of the others; they merge the reports of all
+     * tasks with {@link #writeReports(List, BiConsumer)}. Must be called before the compilation.
+     */
+    public void deferReports() {
+        deferReports = true;
+    }
+
+    /**
+     * Merges the statistics and copy reports of checkers whose reports were deferred, prints the
+     * summaries and writes the files named by their options. The checkers must have been run
+     * with the same options.
+     *
+     * @param checkers checkers whose compilations have ended, see {@link #deferReports}
+     * @param log receives the summaries as notes, and warnings about files that cannot be written
+     */
+    public static void writeReports(List<HemileiaChecker> checkers, BiConsumer<Diagnostic.Kind, String> log) {
+        HemileiaChecker options = null;
+        HemileiaStatistics statistics = null;
+        HemileiaCopyReport copyReport = null;
+        for (HemileiaChecker checker : checkers) {
+            if (checker.statistics != null) {
+                statistics = statistics == null ? new HemileiaStatistics() : statistics;
+                statistics.addAll(checker.statistics);
+            }
+            if (checker.copyReport != null) {
+                copyReport = copyReport == null ? new HemileiaCopyReport() : copyReport;
+                copyReport.addAll(checker.copyReport);
+            }
+            if (options == null && (checker.statistics != null || checker.copyReport != null)) {
+                options = checker;
+            }
+        }
+        if (options != null) {
+            options.writeReports(statistics, copyReport, log);
+        }
+    }
+
+    private void writeReports(HemileiaStatistics statistics, HemileiaCopyReport copyReport,
+            BiConsumer<Diagnostic.Kind, String> log) {
+        if (statistics != null) {
+            int topN = statsTop(this);
+            log.accept(Diagnostic.Kind.NOTE, statistics.summary(topN));
+            String file = getOption(STATS_FILE_OPTION);
+            if (file != null) {
+                write(file, statistics.toJson(topN), "statistics", log);
+            }
+        }
+        if (copyReport != null) {
+            String file = getOption(COPY_REPORT_OPTION);
+            log.accept(Diagnostic.Kind.NOTE, copyReport.summary(file));
+            write(file, copyReport.toJson(), "copy report", log);
+        }
+    }
+
+    private static void write(String file, String content, String what, BiConsumer<Diagnostic.Kind, String> log) {
+        try {
+            Files.writeString(Path.of(file), content);
+        } catch (IOException e) {
+            log.accept(Diagnostic.Kind.WARNING,
+                    "could not write Hemileia " + what + " to " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the number of slowest methods to list from {@code -Ahemileia.statsTop}.
+     *
+     * @throws UserError if the value is not a positive number
+     */
+    static int statsTop(SourceChecker checker) {
+        String value = checker.getOption(STATS_TOP_OPTION);
+        if (value == null) {
+            return 10;
+        }
+        try {
+            int top = Integer.parseInt(value.trim());
+            if (top <= 0) {
+                throw new UserError("-A%s must be positive, got %s", STATS_TOP_OPTION, value);
+            }
+            return top;
+        } catch (NumberFormatException e) {
+            throw new UserError("-A%s expects a number, got %s", STATS_TOP_OPTION, value);
+        }
+    }
+
+    @Override
+    public boolean shouldResolveReflection() {
+        return false;
+    }
+}
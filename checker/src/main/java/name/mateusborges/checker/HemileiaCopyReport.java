@@ -0,0 +1,242 @@
+package name.mateusborges.checker;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+
+/**
+ * Defensive copies and read-only wrappers that the ownership facts show to be unnecessary,
+ * collected when {@code -Ahemileia.copyReport=path} is given.
+ *
+ * <p>{@link HemileiaVisitor} records a copy for one of two reasons:
+ * <ul>
+ *   <li><b>{@value #SOURCE_DEAD}</b> - the source is an {@code @Owned} local variable or
+ *       parameter that nothing borrows and that is not used after the copy, or is reassigned
+ *       right after it. The copy can take the source itself.</li>
+ *   <li><b>{@value #BORROWED_ONLY}</b> - the copy or wrapper is only passed where
+ *       {@code @Borrowed} suffices, and the source is not used while it is. The callees cannot
+ *       modify the source, so they can be given it directly.</li>
+ * </ul>
+ *
+ * <p>Only copies that give the same value as their source are considered: a copy constructor or
+ * {@code List/Set/Map.copyOf} whose source has the same kind of collection as the copy, see
+ * {@link #collectionKind}, so that nothing is deduplicated or reordered, and
+ * {@code Arrays.copyOf} or {@code Arrays.copyOfRange} of the whole array. A collection copy that
+ * may be modified afterwards is also skipped when its source's type may be immutable, such as
+ * {@code List}: the source could be a {@code List.of}.
+ *
+ * <p>Copies only borrow their source: the copy constructors are {@code @Borrowed} in the JDK
+ * stubs, like {@code Arrays.copyOf} of a {@code byte[]} and {@code clone()}. So a source is only
+ * dead when nothing uses it after the copy, which {@link HemileiaVisitor} checks itself.
+ *
+ * <p>Sizes are static estimates for a 64-bit JVM with compressed references: the number of
+ * elements copied, when the source's initializer in the same method gives it, and the bytes
+ * allocated for them. Wrappers copy no elements. Either is {@code null} in the
+ * JSON when unknown.
+ */
+public final class HemileiaCopyReport {
+
+    /** The source is owned and dead after the copy. */
+    public static final String SOURCE_DEAD = "source-dead";
+
+    /** The copy is only passed as {@code @Borrowed}. */
+    public static final String BORROWED_ONLY = "borrowed-only";
+
+    /** The kinds of {@link #collectionKind}, most specific first. */
+    private static final List<String> COLLECTION_KINDS = List.of("java.util.IdentityHashMap",
+            "java.util.SortedMap", "java.util.Map", "java.util.SortedSet", "java.util.Set", "java.util.List",
+            "java.util.PriorityQueue", "java.util.Deque", "java.util.Queue", "java.util.Collection");
+
+    /** One removable copy; {@code elements} and {@code bytes} are -1 when unknown. */
+    public record Copy(String file, long line, long column, String method, String kind, String source,
+            String reason, long elements, long bytes) {
+    }
+
+    private final List<Copy> copies = new ArrayList<>();
+
+    void add(Copy copy) {
+        copies.add(copy);
+    }
+
+    /** Adds the copies of another compilation, e.g. of another shard of the same check. */
+    public void addAll(HemileiaCopyReport other) {
+        copies.addAll(other.copies);
+    }
+
+    /** Returns the copies found so far, ordered by file and position. */
+    public List<Copy> copies() {
+        List<Copy> sorted = new ArrayList<>(copies);
+        sorted.sort(Comparator.comparing(Copy::file).thenComparingLong(Copy::line)
+                .thenComparingLong(Copy::column));
+        return sorted;
+    }
+
+    /**
+     * Returns the kind of copy a method or constructor makes of its first argument, or of its
+     * receiver for {@code clone()}, or null if it is not one.
+     *
+     * <p>Copies are the {@code java.util} copy constructors, {@code Arrays.copyOf},
+     * {@code Arrays.copyOfRange}, {@code List.copyOf}, {@code Set.copyOf}, {@code Map.copyOf} and
+     * {@code clone()}. Wrappers are {@code Collections.unmodifiable*}, see {@link #isWrapper}.
+     */
+    static String kindOf(ExecutableElement method) {
+        TypeElement owner = (TypeElement) method.getEnclosingElement();
+        String ownerName = owner.getQualifiedName().toString();
+        String name = method.getSimpleName().toString();
+        int parameters = method.getParameters().size();
+        if (method.getKind() == ElementKind.CONSTRUCTOR) {
+            if (parameters == 1 && ownerName.startsWith("java.util.")
+                    && isCollectionOrMap(method.getParameters().get(0).asType())) {
+                return "new " + owner.getSimpleName();
+            }
+            return null;
+        }
+        if (name.equals("clone") && parameters == 0) {
+            return "clone";
+        }
+        switch (ownerName) {
+            case "java.util.Arrays":
+                return name.equals("copyOf") || name.equals("copyOfRange") ? "Arrays." + name : null;
+            case "java.util.List":
+            case "java.util.Set":
+            case "java.util.Map":
+                return name.equals("copyOf") && parameters == 1 ? owner.getSimpleName() + ".copyOf" : null;
+            case "java.util.Collections":
+                return name.startsWith("unmodifiable") && parameters == 1 ? "Collections." + name : null;
+            default:
+                return null;
+        }
+    }
+
+    private static boolean isCollectionOrMap(TypeMirror type) {
+        String name = HemileiaAnnotatedTypeFactory.erasedName(type);
+        return name.equals("java.util.Collection") || name.equals("java.util.Map")
+                || name.equals("java.util.SortedSet") || name.equals("java.util.SortedMap");
+    }
+
+    /**
+     * Returns the kind of collection a type is, from the most specific one it implements: an
+     * {@code IdentityHashMap}, {@code SortedMap}, {@code Map}, {@code SortedSet}, {@code Set},
+     * {@code List}, {@code PriorityQueue}, {@code Deque}, {@code Queue} or {@code Collection}.
+     * A copy into a collection of another kind may drop duplicates or change the order.
+     *
+     * @param type a declared type
+     * @param types the type utilities
+     * @return the qualified name of the kind, or null if the type is not a collection or map
+     */
+    static String collectionKind(TypeMirror type, Types types) {
+        Set<String> supertypes = new HashSet<>();
+        addSupertypeNames(type, types, supertypes);
+        for (String kind : COLLECTION_KINDS) {
+            if (supertypes.contains(kind)) {
+                return kind;
+            }
+        }
+        return null;
+    }
+
+    private static void addSupertypeNames(TypeMirror type, Types types, Set<String> names) {
+        if (names.add(HemileiaAnnotatedTypeFactory.erasedName(type))) {
+            for (TypeMirror supertype : types.directSupertypes(type)) {
+                addSupertypeNames(supertype, types, names);
+            }
+        }
+    }
+
+    /** Checks if a kind returned by {@link #kindOf} wraps its source instead of copying it. */
+    static boolean isWrapper(String kind) {
+        return kind.startsWith("Collections.unmodifiable");
+    }
+
+    /**
+     * Estimates the bytes a copy allocates.
+     *
+     * @param kind a kind returned by {@link #kindOf}
+     * @param source the type of the copied value
+     * @param elements the number of elements copied, or -1 if unknown
+     * @return the estimated bytes, or -1 if unknown
+     */
+    static long estimateBytes(String kind, TypeMirror source, long elements) {
+        if (isWrapper(kind)) {
+            return 16;
+        }
+        if (elements < 0) {
+            return -1;
+        }
+        if (source.getKind() == TypeKind.ARRAY) {
+            return array(elementSize(((ArrayType) source).getComponentType()), elements);
+        }
+        long table = array(4, elements);
+        if (kind.contains("Hash") || kind.contains("Linked") || kind.contains("Tree")) {
+            // One node per element, plus the table of the hashed ones
+            return 48 + 32 * elements + (kind.contains("Hash") ? table : 0);
+        }
+        return 24 + table;
+    }
+
+    /** The size of an array with its 16-byte header, rounded to 8 bytes. */
+    private static long array(int elementSize, long elements) {
+        return (16 + elementSize * elements + 7) / 8 * 8;
+    }
+
+    private static int elementSize(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+            case BYTE:
+                return 1;
+            case SHORT:
+            case CHAR:
+                return 2;
+            case LONG:
+            case DOUBLE:
+                return 8;
+            default:
+                return 4;
+        }
+    }
+
+    /** Formats the number of copies and their estimated bytes for the compiler log. */
+    public String summary(String file) {
+        long known = copies.stream().filter(c -> c.bytes() >= 0).count();
+        long bytes = copies.stream().mapToLong(c -> Math.max(c.bytes(), 0)).sum();
+        return String.format(Locale.ROOT, "Hemileia found %d removable copies (%d bytes per execution for the"
+                + " %d with a known size), listed in %s", copies.size(), bytes, known, file);
+    }
+
+    /** Formats the copies as a JSON object. */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{\n  \"copies\": [");
+        List<Copy> sorted = copies();
+        for (int i = 0; i < sorted.size(); i++) {
+            Copy c = sorted.get(i);
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append("    {\"file\": \"").append(escape(c.file)).append('"')
+                    .append(", \"line\": ").append(c.line)
+                    .append(", \"column\": ").append(c.column)
+                    .append(", \"method\": \"").append(escape(c.method)).append('"')
+                    .append(", \"kind\": \"").append(escape(c.kind)).append('"')
+                    .append(", \"source\": \"").append(escape(c.source)).append('"')
+                    .append(", \"reason\": \"").append(c.reason).append('"')
+                    .append(", \"estimatedElements\": ").append(c.elements < 0 ? "null" : c.elements)
+                    .append(", \"estimatedBytes\": ").append(c.bytes < 0 ? "null" : c.bytes).append('}');
+        }
+        sb.append(sorted.isEmpty() ? "]\n" : "\n  ]\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
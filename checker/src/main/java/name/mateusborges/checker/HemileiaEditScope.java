@@ -0,0 +1,245 @@
+package name.mateusborges.checker;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import javax.lang.model.element.Element;
+
+import org.checkerframework.framework.source.SourceChecker;
+import org.checkerframework.javacutil.TreeUtils;
+import org.checkerframework.javacutil.UserError;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.LineMap;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreeScanner;
+import com.sun.source.util.Trees;
+
+/**
+ * The methods to recheck after an edit, read from {@code -Ahemileia.changedLines}.
+ *
+ * <p>The option lists edited lines and line ranges, e.g. {@code 12-40,88}, optionally prefixed
+ * with the file they belong to, e.g. {@code Foo.java:12-40,88,Bar.java:7}; lines without a prefix
+ * belong to the file of the previous prefix. A file matches every compilation unit whose path
+ * ends with it. Lines before any prefix belong to the only file being checked, and are an error
+ * if more than one compilation unit is checked. A method is rechecked if it contains one of the
+ * lines of its file. If an edited line lies in a method's signature
+ * (annotations, modifiers, return type, parameters), the ownership contract its callers rely on
+ * may have changed, so the methods of the same file that call it are rechecked too. Methods that
+ * enclose a rechecked method are rechecked as well, since the visitor reaches nested methods
+ * through them.
+ *
+ * <p>Without the option every method is checked. With it, every other method gets an empty
+ * control-flow graph that {@link HemileiaAnalysis} does not analyze, and {@link HemileiaVisitor}
+ * does not visit it, so it reports nothing; an editor keeps its diagnostics from the previous run.
+ */
+public final class HemileiaEditScope {
+
+    /** An inclusive range of changed lines, in {@code file} or, if it is null, in the only file. */
+    private record ChangedLines(Path file, long first, long last) {
+    }
+
+    /** The changed line ranges, or null to check everything. */
+    private final List<ChangedLines> changedLines;
+
+    private final Trees trees;
+
+    /** The first compilation unit checked, which lines without a file belong to. */
+    private CompilationUnitTree firstUnit;
+
+    /** The compilation unit {@link #selected} was computed for. */
+    private CompilationUnitTree unit;
+
+    /** The methods of {@link #unit} to recheck, compared by identity. */
+    private Set<MethodTree> selected;
+
+    private HemileiaEditScope(List<ChangedLines> changedLines, Trees trees) {
+        this.changedLines = changedLines;
+        this.trees = trees;
+    }
+
+    /**
+     * Reads the changed lines from the checker's {@code -A} options.
+     *
+     * @param checker the checker whose options are read
+     * @param trees the tree utilities used to map trees to lines
+     * @return the configured scope
+     */
+    public static HemileiaEditScope fromOptions(SourceChecker checker, Trees trees) {
+        String value = checker.getOption(HemileiaChecker.CHANGED_LINES_OPTION);
+        if (value == null) {
+            return new HemileiaEditScope(null, trees);
+        }
+        List<ChangedLines> ranges = new ArrayList<>();
+        Path file = null;
+        for (String range : value.split(",")) {
+            range = range.trim();
+            // A file prefix ends at the last colon, so a Windows drive letter stays in it
+            int colon = range.lastIndexOf(':');
+            try {
+                if (colon >= 0) {
+                    file = Path.of(range.substring(0, colon).trim()).normalize();
+                    range = range.substring(colon + 1).trim();
+                }
+            } catch (InvalidPathException e) {
+                throw new UserError("-A%s: invalid file in %s", HemileiaChecker.CHANGED_LINES_OPTION, range);
+            }
+            if (range.isEmpty()) {
+                continue;
+            }
+            int dash = range.indexOf('-');
+            try {
+                long first = Long.parseLong(dash < 0 ? range : range.substring(0, dash).trim());
+                long last = dash < 0 ? first : Long.parseLong(range.substring(dash + 1).trim());
+                if (first <= 0 || last < first) {
+                    throw new NumberFormatException(range);
+                }
+                ranges.add(new ChangedLines(file, first, last));
+            } catch (NumberFormatException e) {
+                throw new UserError("-A%s expects line numbers or ranges such as 12-40 or Foo.java:12-40, got %s",
+                        HemileiaChecker.CHANGED_LINES_OPTION, value);
+            }
+        }
+        return new HemileiaEditScope(ranges, trees);
+    }
+
+    /**
+     * Checks whether a method is to be checked.
+     *
+     * @param root the compilation unit that contains the method
+     * @param method a method declaration
+     * @return true if no lines were given or the method is rechecked after the edit
+     * @throws UserError if lines without a file were given and this is the second compilation
+     *         unit checked
+     */
+    public boolean includes(CompilationUnitTree root, MethodTree method) {
+        if (changedLines == null) {
+            return true;
+        }
+        if (root != unit) {
+            if (firstUnit == null) {
+                firstUnit = root;
+            }
+            selected = select(root, rangesOf(root));
+            unit = root;
+        }
+        return selected.contains(method);
+    }
+
+    /** Returns the changed line ranges of a compilation unit as {@code [first, last]} pairs. */
+    private List<long[]> rangesOf(CompilationUnitTree root) {
+        Path source = Path.of(root.getSourceFile().getName()).toAbsolutePath().normalize();
+        List<long[]> ranges = new ArrayList<>();
+        for (ChangedLines lines : changedLines) {
+            if (lines.file() == null) {
+                if (root != firstUnit) {
+                    throw new UserError("-A%s gives lines without a file, but more than one file is checked;"
+                            + " prefix them with their file, e.g. %s:%d", HemileiaChecker.CHANGED_LINES_OPTION,
+                            Path.of(firstUnit.getSourceFile().getName()).getFileName(), lines.first());
+                }
+                ranges.add(new long[] {lines.first(), lines.last()});
+            } else if (source.endsWith(lines.file())) {
+                ranges.add(new long[] {lines.first(), lines.last()});
+            }
+        }
+        return ranges;
+    }
+
+    private Set<MethodTree> select(CompilationUnitTree root, List<long[]> ranges) {
+        SourcePositions positions = trees.getSourcePositions();
+        LineMap lines = root.getLineMap();
+        Set<MethodTree> selected = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Element> changedSignatures = new HashSet<>();
+        new MethodScanner() {
+            @Override
+            void onMethod(MethodTree method, Deque<MethodTree> enclosing) {
+                long start = positions.getStartPosition(root, method);
+                long end = positions.getEndPosition(root, method);
+                if (start < 0 || end < 0) {
+                    return;
+                }
+                long bodyStart = method.getBody() == null ? end : positions.getStartPosition(root, method.getBody());
+                if (isChanged(ranges, lines.getLineNumber(start), lines.getLineNumber(end))) {
+                    selected.add(method);
+                    selected.addAll(enclosing);
+                }
+                if (isChanged(ranges, lines.getLineNumber(start), lines.getLineNumber(bodyStart))) {
+                    changedSignatures.add(TreeUtils.elementFromDeclaration(method));
+                }
+            }
+        }.scan(root, null);
+        if (!changedSignatures.isEmpty()) {
+            new MethodScanner() {
+                @Override
+                void onCall(Element callee, Deque<MethodTree> enclosing) {
+                    if (changedSignatures.contains(callee)) {
+                        selected.addAll(enclosing);
+                    }
+                }
+            }.scan(root, null);
+        }
+        return selected;
+    }
+
+    private static boolean isChanged(List<long[]> ranges, long first, long last) {
+        for (long[] range : ranges) {
+            if (range[0] <= last && first <= range[1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Walks a compilation unit and reports methods and calls with their enclosing methods. */
+    private abstract static class MethodScanner extends TreeScanner<Void, Void> {
+
+        /** The methods enclosing the current tree, innermost first. */
+        private final Deque<MethodTree> enclosing = new ArrayDeque<>();
+
+        void onMethod(MethodTree method, Deque<MethodTree> enclosing) {
+        }
+
+        void onCall(Element callee, Deque<MethodTree> enclosing) {
+        }
+
+        @Override
+        public Void visitMethod(MethodTree tree, Void p) {
+            onMethod(tree, enclosing);
+            enclosing.push(tree);
+            try {
+                return super.visitMethod(tree, p);
+            } finally {
+                enclosing.pop();
+            }
+        }
+
+        @Override
+        public Void visitMethodInvocation(MethodInvocationTree tree, Void p) {
+            reportCall(TreeUtils.elementFromUse(tree));
+            return super.visitMethodInvocation(tree, p);
+        }
+
+        @Override
+        public Void visitNewClass(NewClassTree tree, Void p) {
+            reportCall(TreeUtils.elementFromUse(tree));
+            return super.visitNewClass(tree, p);
+        }
+
+        private void reportCall(Element callee) {
+            if (callee != null && !enclosing.isEmpty()) {
+                onCall(callee, enclosing);
+            }
+        }
+    }
+}
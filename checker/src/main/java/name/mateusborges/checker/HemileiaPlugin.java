@@ -0,0 +1,132 @@
+package name.mateusborges.checker;
+
+import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+
+import com.sun.source.tree.Tree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.Plugin;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
+import com.sun.tools.javac.api.BasicJavacTask;
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+
+/**
+ * Runs {@link HemileiaChecker} as a javac plugin instead of an annotation processor:
+ * <pre>
+ * javac -Xplugin:Hemileia MyFile.java
+ * javac "-Xplugin:Hemileia hemileia.stats hemileia.trackedTypes=java.io.Closeable" MyFile.java
+ * </pre>
+ *
+ * <p>Plugin arguments are checker options without the {@code -A} prefix. {@code -A} options work
+ * as well; plugin arguments win when both set the same option. The plugin does not take part in
+ * annotation processing, so it needs no {@code -processor} flag, does not trigger processor
+ * discovery, and runs the same way whether or not other processors are present.
+ *
+ * <p>The checker itself is unchanged: it is initialized with javac's processing environment and
+ * checks each top-level class from the task listener the Checker Framework registers, right after
+ * javac's flow analysis of that class. In processor mode the framework learns which classes to
+ * check from the first processing round. Here the plugin hands it the classes of every
+ * compilation unit entered before attribution starts, which are the same root classes.
+ */
+public final class HemileiaPlugin implements Plugin {
+
+    @Override
+    public String getName() {
+        return "Hemileia";
+    }
+
+    @Override
+    public void init(JavacTask task, String... args) {
+        Context context = ((BasicJavacTask) task).getContext();
+        ProcessingEnvironment env = JavacProcessingEnvironment.instance(context);
+        HemileiaChecker checker = new HemileiaChecker();
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                options.put(arg, null);
+            } else {
+                options.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+        }
+        checker.addOptions(options);
+        checker.init(env);
+        task.addTaskListener(new RootCollector(checker, Trees.instance(task)));
+    }
+
+    /**
+     * Passes the top-level classes of the root compilation units to the checker, the way the
+     * first processing round would.
+     */
+    private static final class RootCollector implements TaskListener {
+        private final HemileiaChecker checker;
+        private final Trees trees;
+        private boolean attributing;
+
+        RootCollector(HemileiaChecker checker, Trees trees) {
+            this.checker = checker;
+            this.trees = trees;
+        }
+
+        @Override
+        public void started(TaskEvent e) {
+            if (e.getKind() == TaskEvent.Kind.ANALYZE) {
+                // Units entered from now on are implicitly loaded sources, not roots.
+                attributing = true;
+            }
+        }
+
+        @Override
+        public void finished(TaskEvent e) {
+            if (e.getKind() != TaskEvent.Kind.ENTER || attributing) {
+                return;
+            }
+            Set<Element> roots = new LinkedHashSet<>();
+            TreePath unit = new TreePath(e.getCompilationUnit());
+            for (Tree decl : e.getCompilationUnit().getTypeDecls()) {
+                Element element = trees.getElement(new TreePath(unit, decl));
+                if (element != null) {
+                    roots.add(element);
+                }
+            }
+            checker.process(Collections.emptySet(), new Round(roots));
+        }
+    }
+
+    /** A processing round that only reports its root elements. */
+    private record Round(Set<? extends Element> getRootElements) implements RoundEnvironment {
+
+        @Override
+        public boolean processingOver() {
+            return false;
+        }
+
+        @Override
+        public boolean errorRaised() {
+            return false;
+        }
+
+        @Override
+        public Set<? extends Element> getElementsAnnotatedWith(TypeElement a) {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public Set<? extends Element> getElementsAnnotatedWith(Class<? extends Annotation> a) {
+            return Collections.emptySet();
+        }
+    }
+}
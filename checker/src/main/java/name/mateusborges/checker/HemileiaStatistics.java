@@ -0,0 +1,207 @@
+package name.mateusborges.checker;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Counters and timers collected when {@code -Ahemileia.stats} is given.
+ *
+ * <p>Phases are measured where Hemileia can observe them:
+ * <ul>
+ *   <li><b>CFG construction</b> - time in {@code GenericAnnotatedTypeFactory.analyze} outside
+ *       the fixpoint, which is dominated by building the CFG</li>
+ *   <li><b>transfer</b> - fixpoint time outside store merges</li>
+ *   <li><b>store merges</b> - {@link HemileiaStore#leastUpperBound} and
+ *       {@link HemileiaStore#widenedUpperBound}</li>
+ *   <li><b>visitor checks</b> - {@link HemileiaVisitor} time per method, including the type
+ *       lookups it triggers</li>
+ * </ul>
+ *
+ * <p>Everything is a plain field update plus a {@link System#nanoTime()} pair per phase
+ * boundary, so collection is cheap enough to leave on. Per-method numbers are keyed by
+ * {@link HemileiaAnalysis#describe} names.
+ */
+public final class HemileiaStatistics {
+
+    /** The numbers collected for one method, lambda or initializer. */
+    public static final class MethodStatistics {
+        private final String name;
+        private long analysisNanos;
+        private long visitNanos;
+        private long iterations;
+        private int blocks;
+
+        private MethodStatistics(String name) {
+            this.name = name;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public long totalNanos() {
+            return analysisNanos + visitNanos;
+        }
+    }
+
+    private long analyzeNanos;
+    private long fixpointNanos;
+    private long mergeNanos;
+    private long visitNanos;
+    private long graphs;
+    private long iterations;
+    private long storeCopies;
+    private long leastUpperBounds;
+    private long widenings;
+    private long typeLookups;
+    private final Map<String, MethodStatistics> methods = new HashMap<>();
+
+    /** Records one call of {@code analyze}: CFG construction plus the fixpoint. */
+    void addAnalyze(long nanos) {
+        analyzeNanos += nanos;
+        graphs++;
+    }
+
+    /** Records the fixpoint of one CFG. */
+    void addFixpoint(String method, long nanos, long blockVisits, int blockCount) {
+        fixpointNanos += nanos;
+        iterations += blockVisits;
+        MethodStatistics stats = method(method);
+        stats.analysisNanos += nanos;
+        stats.iterations += blockVisits;
+        stats.blocks += blockCount;
+    }
+
+    /** Records one store merge. */
+    void addMerge(long nanos, boolean widening) {
+        mergeNanos += nanos;
+        if (widening) {
+            widenings++;
+        } else {
+            leastUpperBounds++;
+        }
+    }
+
+    /** Records the visitor checks of one method. */
+    void addVisit(String method, long nanos) {
+        visitNanos += nanos;
+        method(method).visitNanos += nanos;
+    }
+
+    void countStoreCopy() {
+        storeCopies++;
+    }
+
+    void countTypeLookup() {
+        typeLookups++;
+    }
+
+    /**
+     * Adds the numbers of another compilation, e.g. of another shard of the same check. Methods
+     * with the same name are summed.
+     */
+    public void addAll(HemileiaStatistics other) {
+        analyzeNanos += other.analyzeNanos;
+        fixpointNanos += other.fixpointNanos;
+        mergeNanos += other.mergeNanos;
+        visitNanos += other.visitNanos;
+        graphs += other.graphs;
+        iterations += other.iterations;
+        storeCopies += other.storeCopies;
+        leastUpperBounds += other.leastUpperBounds;
+        widenings += other.widenings;
+        typeLookups += other.typeLookups;
+        for (MethodStatistics m : other.methods.values()) {
+            MethodStatistics stats = method(m.name);
+            stats.analysisNanos += m.analysisNanos;
+            stats.visitNanos += m.visitNanos;
+            stats.iterations += m.iterations;
+            stats.blocks += m.blocks;
+        }
+    }
+
+    private MethodStatistics method(String name) {
+        return methods.computeIfAbsent(name, MethodStatistics::new);
+    }
+
+    /**
+     * Returns the methods with the highest analysis plus visitor time, slowest first.
+     *
+     * @param limit the maximum number of methods to return
+     */
+    public List<MethodStatistics> slowestMethods(int limit) {
+        List<MethodStatistics> sorted = new ArrayList<>(methods.values());
+        sorted.sort(Comparator.comparingLong(MethodStatistics::totalNanos).reversed()
+                .thenComparing(MethodStatistics::name));
+        return sorted.subList(0, Math.min(limit, sorted.size()));
+    }
+
+    /**
+     * Formats the totals and the {@code topN} slowest methods for the compiler log.
+     */
+    public String summary(int topN) {
+        StringBuilder sb = new StringBuilder("Hemileia statistics\n");
+        sb.append(String.format(Locale.ROOT, "  CFG construction  %10.1f ms (%d graphs)%n",
+                millis(analyzeNanos - fixpointNanos), graphs));
+        sb.append(String.format(Locale.ROOT, "  transfer          %10.1f ms (%d block visits)%n",
+                millis(fixpointNanos - mergeNanos), iterations));
+        sb.append(String.format(Locale.ROOT, "  store merges      %10.1f ms (%d lubs, %d widenings)%n",
+                millis(mergeNanos), leastUpperBounds, widenings));
+        sb.append(String.format(Locale.ROOT, "  visitor checks    %10.1f ms%n", millis(visitNanos)));
+        sb.append(String.format(Locale.ROOT, "  store copies      %10d%n", storeCopies));
+        sb.append(String.format(Locale.ROOT, "  type lookups      %10d%n", typeLookups));
+        List<MethodStatistics> slowest = slowestMethods(topN);
+        if (!slowest.isEmpty()) {
+            sb.append("  slowest methods (analysis + visitor):\n");
+            for (MethodStatistics m : slowest) {
+                sb.append(String.format(Locale.ROOT, "  %10.1f ms  %s (%d blocks, %d block visits)%n",
+                        millis(m.totalNanos()), m.name, m.blocks, m.iterations));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Formats the totals and the {@code topN} slowest methods as a JSON object. Times are in
+     * nanoseconds.
+     */
+    public String toJson(int topN) {
+        StringBuilder sb = new StringBuilder("{\n");
+        sb.append("  \"cfgConstructionNanos\": ").append(analyzeNanos - fixpointNanos).append(",\n");
+        sb.append("  \"transferNanos\": ").append(fixpointNanos - mergeNanos).append(",\n");
+        sb.append("  \"storeMergeNanos\": ").append(mergeNanos).append(",\n");
+        sb.append("  \"visitorNanos\": ").append(visitNanos).append(",\n");
+        sb.append("  \"graphs\": ").append(graphs).append(",\n");
+        sb.append("  \"blockVisits\": ").append(iterations).append(",\n");
+        sb.append("  \"leastUpperBounds\": ").append(leastUpperBounds).append(",\n");
+        sb.append("  \"widenings\": ").append(widenings).append(",\n");
+        sb.append("  \"storeCopies\": ").append(storeCopies).append(",\n");
+        sb.append("  \"typeLookups\": ").append(typeLookups).append(",\n");
+        sb.append("  \"slowestMethods\": [");
+        List<MethodStatistics> slowest = slowestMethods(topN);
+        for (int i = 0; i < slowest.size(); i++) {
+            MethodStatistics m = slowest.get(i);
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append("    {\"name\": \"").append(escape(m.name)).append('"')
+                    .append(", \"analysisNanos\": ").append(m.analysisNanos)
+                    .append(", \"visitorNanos\": ").append(m.visitNanos)
+                    .append(", \"blocks\": ").append(m.blocks)
+                    .append(", \"blockVisits\": ").append(m.iterations).append('}');
+        }
+        sb.append(slowest.isEmpty() ? "]\n" : "\n  ]\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,650 @@
+package name.mateusborges.checker;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.lang.model.element.Element;
+
+import com.sun.source.tree.Tree;
+
+import org.checkerframework.dataflow.cfg.visualize.CFGVisualizer;
+import org.checkerframework.dataflow.expression.JavaExpression;
+import org.checkerframework.framework.flow.CFAbstractAnalysis;
+import org.checkerframework.framework.flow.CFAbstractStore;
+
+/**
+ * The dataflow store for the Hemileia ownership type system.
+ *
+ * <p>In addition to standard type refinement (handled by the superclass),
+ * this store tracks:
+ * <ul>
+ *   <li><b>Moved variables:</b> Variables whose values have been moved away.
+ *       Any use of a moved variable is an error.</li>
+ *   <li><b>Active borrows:</b> For each owned variable, tracks which other
+ *       variables are currently borrowing it (immutably or mutably).</li>
+ *   <li><b>Borrow sources:</b> For each borrowed variable, tracks which
+ *       owned variable it borrows from.</li>
+ *   <li><b>Held borrows:</b> For each variable holding shared borrows on behalf of
+ *       concurrent tasks, such as a task scope, tracks the variables the tasks share. Some
+ *       holders, such as an array slice, hold their variables exclusively.</li>
+ *   <li><b>Invalidated borrows:</b> For each borrowed variable whose owner was structurally
+ *       modified, such as an iterator over a collection that was added to, tracks the call
+ *       that modified it.</li>
+ *   <li><b>Captures:</b> For each variable holding a lambda, method reference or anonymous
+ *       class, tracks the variables it captures, so that handing the variable to another
+ *       thread moves them.</li>
+ * </ul>
+ */
+public class HemileiaStore extends CFAbstractStore<HemileiaValue, HemileiaStore> {
+
+    /**
+     * Set of variable elements that have been moved (ownership transferred away).
+     * Using an element from this set is a use-after-move error.
+     */
+    private final Set<Element> movedVariables;
+
+    /**
+     * Maps owned variables to the set of variables currently borrowing from them.
+     * Used to enforce borrow exclusivity rules.
+     */
+    private final Map<Element, Set<Element>> activeBorrows;
+
+    /**
+     * Maps borrowed variables to their source (the owned variable they borrow from).
+     * Used to track borrow lifetimes.
+     */
+    private final Map<Element, Element> borrowSources;
+
+    /**
+     * Maps borrowed variables to whether they are mutable borrows.
+     */
+    private final Map<Element, Boolean> mutableBorrows;
+
+    /**
+     * Maps variables holding borrows for tasks they started to the variables those tasks share.
+     * Unlike the borrows above these are kept at merge points if either branch has them: the
+     * tasks may be running on every path until the holder ends its borrows.
+     */
+    private final Map<Element, Set<Element>> heldBorrows;
+
+    /** The holders in {@link #heldBorrows} whose variables may not be used at all while held. */
+    private final Set<Element> exclusiveHolders;
+
+    /**
+     * Maps borrowed variables whose owner was structurally modified to the first call that
+     * modified it. Kept at merge points if either branch has them.
+     */
+    private final Map<Element, Tree> invalidatedBorrows;
+
+    /**
+     * Maps variables holding a lambda, method reference or anonymous class to the variables it
+     * captures. Kept at merge points if either branch has them.
+     */
+    private final Map<Element, Set<Element>> captures;
+
+    public HemileiaStore(
+            CFAbstractAnalysis<HemileiaValue, HemileiaStore, HemileiaTransfer> analysis,
+            boolean sequentialSemantics) {
+        super(analysis, sequentialSemantics);
+        this.movedVariables = new HashSet<>();
+        this.activeBorrows = new HashMap<>();
+        this.borrowSources = new HashMap<>();
+        this.mutableBorrows = new HashMap<>();
+        this.heldBorrows = new HashMap<>();
+        this.exclusiveHolders = new HashSet<>();
+        this.invalidatedBorrows = new HashMap<>();
+        this.captures = new HashMap<>();
+    }
+
+    /**
+     * Copy constructor.
+     */
+    protected HemileiaStore(HemileiaStore other) {
+        super(other);
+        HemileiaStatistics statistics = statistics();
+        if (statistics != null) {
+            statistics.countStoreCopy();
+        }
+        this.movedVariables = new HashSet<>(other.movedVariables);
+        this.activeBorrows = new HashMap<>();
+        for (Map.Entry<Element, Set<Element>> entry : other.activeBorrows.entrySet()) {
+            this.activeBorrows.put(entry.getKey(), new HashSet<>(entry.getValue()));
+        }
+        this.borrowSources = new HashMap<>(other.borrowSources);
+        this.mutableBorrows = new HashMap<>(other.mutableBorrows);
+        this.heldBorrows = new HashMap<>();
+        addAllSets(this.heldBorrows, other.heldBorrows);
+        this.exclusiveHolders = new HashSet<>(other.exclusiveHolders);
+        this.invalidatedBorrows = new HashMap<>(other.invalidatedBorrows);
+        this.captures = new HashMap<>();
+        addAllSets(this.captures, other.captures);
+    }
+
+    @Override
+    public HemileiaStore copy() {
+        return new HemileiaStore(this);
+    }
+
+    /**
+     * Marks a variable as moved. After this, any use of the variable is an error.
+     *
+     * @param element the variable element that has been moved
+     */
+    public void markMoved(Element element) {
+        movedVariables.add(element);
+    }
+
+    /**
+     * Checks if a variable has been moved.
+     *
+     * @param element the variable element to check
+     * @return true if the variable has been moved
+     */
+    public boolean isMoved(Element element) {
+        return movedVariables.contains(element);
+    }
+
+    /**
+     * Clears the moved status for a variable (e.g., when it's reassigned).
+     *
+     * @param element the variable element
+     */
+    public void clearMoved(Element element) {
+        movedVariables.remove(element);
+    }
+
+    /**
+     * Records that a variable is borrowing from an owner.
+     *
+     * @param borrower the variable that is borrowing
+     * @param owner the owned variable being borrowed from
+     * @param isMutable true if this is a mutable borrow
+     */
+    public void addBorrow(Element borrower, Element owner, boolean isMutable) {
+        activeBorrows.computeIfAbsent(owner, k -> new HashSet<>()).add(borrower);
+        borrowSources.put(borrower, owner);
+        mutableBorrows.put(borrower, isMutable);
+    }
+
+    /**
+     * Removes a borrow when the borrowing variable goes out of scope or is reassigned.
+     *
+     * @param borrower the variable that was borrowing
+     */
+    public void removeBorrow(Element borrower) {
+        Element owner = borrowSources.remove(borrower);
+        mutableBorrows.remove(borrower);
+        invalidatedBorrows.remove(borrower);
+        if (owner != null) {
+            Set<Element> borrows = activeBorrows.get(owner);
+            if (borrows != null) {
+                borrows.remove(borrower);
+                if (borrows.isEmpty()) {
+                    activeBorrows.remove(owner);
+                }
+            }
+        }
+    }
+
+    /**
+     * Invalidates every variable borrowing from an owner, e.g. the iterators over a collection.
+     *
+     * @param owner the variable that was structurally modified
+     * @param modification the call that modified it
+     */
+    public void invalidateBorrows(Element owner, Tree modification) {
+        for (Element borrower : getBorrowsFrom(owner)) {
+            invalidatedBorrows.putIfAbsent(borrower, modification);
+        }
+    }
+
+    /**
+     * Gets the call that invalidated a borrowed variable by modifying its owner.
+     *
+     * @param borrower the borrowed variable
+     * @return the modifying call, or null if the borrow is still valid
+     */
+    public Tree getInvalidation(Element borrower) {
+        return invalidatedBorrows.get(borrower);
+    }
+
+    /**
+     * Gets the set of variables currently borrowing from an owned variable.
+     *
+     * @param owner the owned variable
+     * @return set of borrowing variables, or empty set if none
+     */
+    public Set<Element> getBorrowsFrom(Element owner) {
+        return activeBorrows.getOrDefault(owner, Set.of());
+    }
+
+    /**
+     * Gets the owner that a borrowed variable borrows from.
+     *
+     * @param borrower the borrowed variable
+     * @return the owner element, or null if not a borrow
+     */
+    public Element getBorrowSource(Element borrower) {
+        return borrowSources.get(borrower);
+    }
+
+    /**
+     * Follows the chain of owners a borrowed variable borrows from, e.g. a slice borrowing from a
+     * segment that borrows from an arena, to the first one that has been moved.
+     *
+     * @param borrower the borrowed variable
+     * @return the moved owner, or null if the variable is not a borrow or all its owners are valid
+     */
+    public Element getMovedOwner(Element borrower) {
+        Set<Element> visited = new HashSet<>();
+        for (Element owner = borrowSources.get(borrower); owner != null && visited.add(owner);
+                owner = borrowSources.get(owner)) {
+            if (movedVariables.contains(owner)) {
+                return owner;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Records that a holder, such as a task scope, shares a variable with the tasks it started.
+     *
+     * @param holder the variable holding the borrow
+     * @param owner the variable being shared
+     * @param exclusive whether the owner may not be used at all while held, rather than only
+     *        not mutated or moved
+     */
+    public void addHeldBorrow(Element holder, Element owner, boolean exclusive) {
+        heldBorrows.computeIfAbsent(holder, k -> new HashSet<>()).add(owner);
+        if (exclusive) {
+            exclusiveHolders.add(holder);
+        }
+    }
+
+    /**
+     * Ends every borrow a holder has taken, e.g. when the tasks it started have completed.
+     *
+     * @param holder the variable holding the borrows
+     */
+    public void endHeldBorrows(Element holder) {
+        heldBorrows.remove(holder);
+        exclusiveHolders.remove(holder);
+    }
+
+    /**
+     * Makes a variable hold what another holder holds, in the same way, e.g. a slice split off
+     * another. Does nothing if the other holds nothing.
+     *
+     * @param holder the variable taking the borrows
+     * @param from the holder whose borrows are shared
+     */
+    public void shareHeldBorrows(Element holder, Element from) {
+        Set<Element> owners = heldBorrows.get(from);
+        if (owners == null) {
+            return;
+        }
+        heldBorrows.computeIfAbsent(holder, k -> new HashSet<>()).addAll(owners);
+        if (exclusiveHolders.contains(from)) {
+            exclusiveHolders.add(holder);
+        }
+    }
+
+    /**
+     * Moves the borrows of one holder to another, e.g. to the variable holding the task a slice
+     * was moved into.
+     *
+     * @param holder the variable taking the borrows
+     * @param from the holder giving them up
+     */
+    public void moveHeldBorrows(Element holder, Element from) {
+        shareHeldBorrows(holder, from);
+        endHeldBorrows(from);
+    }
+
+    /**
+     * Gets another holder that holds one of the variables a holder holds, e.g. the slice a piece
+     * was split off.
+     *
+     * @param holder the variable holding borrows
+     * @return another holder of one of its variables, or null if there is none
+     */
+    public Element getOtherHolder(Element holder) {
+        Set<Element> owners = heldBorrows.get(holder);
+        if (owners == null) {
+            return null;
+        }
+        for (Map.Entry<Element, Set<Element>> entry : heldBorrows.entrySet()) {
+            if (!entry.getKey().equals(holder) && !Collections.disjoint(entry.getValue(), owners)) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    /** Checks if any holder currently shares or holds variables. */
+    public boolean hasHeldBorrows() {
+        return !heldBorrows.isEmpty();
+    }
+
+    /**
+     * Stops sharing a variable with the tasks of any holder, e.g. inside such a task, where the
+     * variable is already {@code @Borrowed}.
+     *
+     * @param owner the shared variable
+     */
+    public void removeHeldBorrowsOf(Element owner) {
+        heldBorrows.values().forEach(owners -> owners.remove(owner));
+        heldBorrows.values().removeIf(Set::isEmpty);
+    }
+
+    /**
+     * Gets a holder that currently shares a variable with its tasks.
+     *
+     * @param owner the shared variable
+     * @return a holder sharing the variable, or null if it is not shared
+     */
+    public Element getBorrowHolder(Element owner) {
+        for (Map.Entry<Element, Set<Element>> entry : heldBorrows.entrySet()) {
+            if (entry.getValue().contains(owner)) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets a holder that currently holds a variable exclusively.
+     *
+     * @param owner the held variable
+     * @return a holder holding the variable exclusively, or null if there is none
+     */
+    public Element getExclusiveHolder(Element owner) {
+        for (Element holder : exclusiveHolders) {
+            Set<Element> owners = heldBorrows.get(holder);
+            if (owners != null && owners.contains(owner)) {
+                return holder;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Records the variables captured by the lambda, method reference or anonymous class a
+     * variable now holds, replacing what it captured before.
+     *
+     * @param variable the variable being assigned
+     * @param captured the variables captured by its new value, empty if it captures nothing
+     */
+    public void setCaptures(Element variable, Set<? extends Element> captured) {
+        if (captured.isEmpty()) {
+            captures.remove(variable);
+        } else {
+            captures.put(variable, new HashSet<>(captured));
+        }
+    }
+
+    /**
+     * Gets the variables captured by the lambda, method reference or anonymous class a variable
+     * may hold.
+     *
+     * @param variable the variable holding it
+     * @return the captured variables, or an empty set if none are known
+     */
+    public Set<Element> getCaptures(Element variable) {
+        return captures.getOrDefault(variable, Set.of());
+    }
+
+    private static void addAllSets(Map<Element, Set<Element>> target, Map<Element, Set<Element>> source) {
+        for (Map.Entry<Element, Set<Element>> entry : source.entrySet()) {
+            target.computeIfAbsent(entry.getKey(), k -> new HashSet<>()).addAll(entry.getValue());
+        }
+    }
+
+    /**
+     * Checks if a variable has a mutable borrow active.
+     *
+     * @param owner the owned variable to check
+     * @return true if there is an active mutable borrow
+     */
+    public boolean hasMutableBorrow(Element owner) {
+        Set<Element> borrows = activeBorrows.get(owner);
+        if (borrows == null) {
+            return false;
+        }
+        for (Element borrower : borrows) {
+            if (Boolean.TRUE.equals(mutableBorrows.get(borrower))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a variable has any immutable borrows active.
+     *
+     * @param owner the owned variable to check
+     * @return true if there are active immutable borrows
+     */
+    public boolean hasImmutableBorrows(Element owner) {
+        Set<Element> borrows = activeBorrows.get(owner);
+        if (borrows == null) {
+            return false;
+        }
+        for (Element borrower : borrows) {
+            if (!Boolean.TRUE.equals(mutableBorrows.get(borrower))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a specific variable is a mutable borrow.
+     *
+     * @param borrower the variable to check
+     * @return true if it is a mutable borrow
+     */
+    public boolean isMutableBorrow(Element borrower) {
+        return Boolean.TRUE.equals(mutableBorrows.get(borrower));
+    }
+
+    /**
+     * Gets all moved variables.
+     *
+     * @return set of moved variable elements
+     */
+    public Set<Element> getMovedVariables() {
+        return Set.copyOf(movedVariables);
+    }
+
+    /**
+     * Returns the number of local variables this store holds a value for.
+     *
+     * @return the number of tracked local variables
+     */
+    public int trackedVariableCount() {
+        return localVariableValues.size();
+    }
+
+    /**
+     * Refuses to store refinements for expressions whose type is not tracked
+     * (see {@code -Ahemileia.trackedTypes}), so such values cost nothing in the store.
+     */
+    @Override
+    protected boolean shouldInsert(JavaExpression expr, HemileiaValue value, boolean permitNondeterministic) {
+        HemileiaAnnotatedTypeFactory factory = (HemileiaAnnotatedTypeFactory) analysis.getTypeFactory();
+        if (!factory.isTrackedType(expr.getType())) {
+            return false;
+        }
+        return super.shouldInsert(expr, value, permitNondeterministic);
+    }
+
+    private HemileiaStatistics statistics() {
+        return ((HemileiaAnalysis) analysis).getStatistics();
+    }
+
+    @Override
+    public HemileiaStore leastUpperBound(HemileiaStore other) {
+        HemileiaStatistics statistics = statistics();
+        long start = statistics == null ? 0 : System.nanoTime();
+        HemileiaStore result = super.leastUpperBound(other);
+        // At merge points, a variable is moved if it's moved in either branch
+        result.movedVariables.addAll(this.movedVariables);
+        result.movedVariables.addAll(other.movedVariables);
+        // Borrows are invalidated at merge points if they differ
+        // (conservative: keep borrows that exist in both)
+        for (Map.Entry<Element, Set<Element>> entry : this.activeBorrows.entrySet()) {
+            Set<Element> otherBorrows = other.activeBorrows.get(entry.getKey());
+            if (otherBorrows != null) {
+                Set<Element> intersection = new HashSet<>(entry.getValue());
+                intersection.retainAll(otherBorrows);
+                if (!intersection.isEmpty()) {
+                    result.activeBorrows.put(entry.getKey(), intersection);
+                }
+            }
+        }
+        for (Element borrower : this.borrowSources.keySet()) {
+            if (other.borrowSources.containsKey(borrower)) {
+                result.borrowSources.put(borrower, this.borrowSources.get(borrower));
+                result.mutableBorrows.put(borrower, this.mutableBorrows.get(borrower));
+            }
+        }
+        addAllSets(result.heldBorrows, this.heldBorrows);
+        addAllSets(result.heldBorrows, other.heldBorrows);
+        result.exclusiveHolders.addAll(this.exclusiveHolders);
+        result.exclusiveHolders.addAll(other.exclusiveHolders);
+        result.invalidatedBorrows.putAll(other.invalidatedBorrows);
+        result.invalidatedBorrows.putAll(this.invalidatedBorrows);
+        addAllSets(result.captures, this.captures);
+        addAllSets(result.captures, other.captures);
+        if (statistics != null) {
+            statistics.addMerge(System.nanoTime() - start, false);
+        }
+        return result;
+    }
+
+    @Override
+    public HemileiaStore widenedUpperBound(HemileiaStore previous) {
+        HemileiaStatistics statistics = statistics();
+        long start = statistics == null ? 0 : System.nanoTime();
+        HemileiaStore result = super.widenedUpperBound(previous);
+        // Same semantics as leastUpperBound for ownership tracking
+        result.movedVariables.addAll(this.movedVariables);
+        result.movedVariables.addAll(previous.movedVariables);
+        addAllSets(result.heldBorrows, this.heldBorrows);
+        addAllSets(result.heldBorrows, previous.heldBorrows);
+        result.exclusiveHolders.addAll(this.exclusiveHolders);
+        result.exclusiveHolders.addAll(previous.exclusiveHolders);
+        result.invalidatedBorrows.putAll(this.invalidatedBorrows);
+        result.invalidatedBorrows.putAll(previous.invalidatedBorrows);
+        addAllSets(result.captures, this.captures);
+        addAllSets(result.captures, previous.captures);
+        if (statistics != null) {
+            statistics.addMerge(System.nanoTime() - start, true);
+        }
+        return result;
+    }
+
+    @Override
+    protected boolean supersetOf(CFAbstractStore<HemileiaValue, HemileiaStore> other) {
+        if (!super.supersetOf(other)) {
+            return false;
+        }
+
+        if (!(other instanceof HemileiaStore otherHemileia)) {
+            return false;
+        }
+
+        // A superset must contain all moved variables from the other store
+        if (!this.movedVariables.containsAll(otherHemileia.movedVariables)) {
+            return false;
+        }
+
+        // Check borrow relationships
+        for (Map.Entry<Element, Set<Element>> entry : otherHemileia.activeBorrows.entrySet()) {
+            Set<Element> thisBorrows = this.activeBorrows.get(entry.getKey());
+            if (thisBorrows == null || !thisBorrows.containsAll(entry.getValue())) {
+                return false;
+            }
+        }
+
+        for (Map.Entry<Element, Element> entry : otherHemileia.borrowSources.entrySet()) {
+            if (!Objects.equals(this.borrowSources.get(entry.getKey()), entry.getValue())) {
+                return false;
+            }
+        }
+
+        for (Map.Entry<Element, Boolean> entry : otherHemileia.mutableBorrows.entrySet()) {
+            if (!Objects.equals(this.mutableBorrows.get(entry.getKey()), entry.getValue())) {
+                return false;
+            }
+        }
+
+        for (Map.Entry<Element, Set<Element>> entry : otherHemileia.heldBorrows.entrySet()) {
+            Set<Element> thisHeld = this.heldBorrows.get(entry.getKey());
+            if (thisHeld == null || !thisHeld.containsAll(entry.getValue())) {
+                return false;
+            }
+        }
+
+        if (!this.exclusiveHolders.containsAll(otherHemileia.exclusiveHolders)) {
+            return false;
+        }
+
+        if (!this.invalidatedBorrows.keySet().containsAll(otherHemileia.invalidatedBorrows.keySet())) {
+            return false;
+        }
+
+        for (Map.Entry<Element, Set<Element>> entry : otherHemileia.captures.entrySet()) {
+            Set<Element> thisCaptures = this.captures.get(entry.getKey());
+            if (thisCaptures == null || !thisCaptures.containsAll(entry.getValue())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = super.hashCode();
+        result = 31 * result + movedVariables.hashCode();
+        result = 31 * result + activeBorrows.hashCode();
+        result = 31 * result + borrowSources.hashCode();
+        result = 31 * result + mutableBorrows.hashCode();
+        result = 31 * result + heldBorrows.hashCode();
+        result = 31 * result + exclusiveHolders.hashCode();
+        result = 31 * result + invalidatedBorrows.keySet().hashCode();
+        result = 31 * result + captures.hashCode();
+        return result;
+    }
+
+    @Override
+    protected String internalVisualize(CFGVisualizer<HemileiaValue, HemileiaStore, ?> viz) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(super.internalVisualize(viz));
+        if (!movedVariables.isEmpty()) {
+            sb.append("  moved: ").append(movedVariables).append("\n");
+        }
+        if (!activeBorrows.isEmpty()) {
+            sb.append("  borrows: ").append(activeBorrows).append("\n");
+        }
+        if (!heldBorrows.isEmpty()) {
+            sb.append("  held borrows: ").append(heldBorrows).append("\n");
+        }
+        if (!exclusiveHolders.isEmpty()) {
+            sb.append("  exclusive holders: ").append(exclusiveHolders).append("\n");
+        }
+        if (!invalidatedBorrows.isEmpty()) {
+            sb.append("  invalidated borrows: ").append(invalidatedBorrows.keySet()).append("\n");
+        }
+        if (!captures.isEmpty()) {
+            sb.append("  captures: ").append(captures).append("\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,405 @@
+package name.mateusborges.checker;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.VariableElement;
+
+import org.checkerframework.dataflow.analysis.TransferInput;
+import org.checkerframework.dataflow.analysis.TransferResult;
+import org.checkerframework.dataflow.cfg.UnderlyingAST;
+import org.checkerframework.dataflow.cfg.node.ArrayCreationNode;
+import org.checkerframework.dataflow.cfg.node.AssignmentNode;
+import org.checkerframework.dataflow.cfg.node.LocalVariableNode;
+import org.checkerframework.dataflow.cfg.node.MethodInvocationNode;
+import org.checkerframework.dataflow.cfg.node.Node;
+import org.checkerframework.dataflow.cfg.node.ObjectCreationNode;
+import org.checkerframework.dataflow.expression.JavaExpression;
+import org.checkerframework.dataflow.expression.LocalVariable;
+import org.checkerframework.framework.flow.CFAbstractTransfer;
+import org.checkerframework.framework.type.AnnotatedTypeMirror;
+import org.checkerframework.javacutil.AnnotationMirrorSet;
+import org.checkerframework.javacutil.AnnotationUtils;
+import org.checkerframework.javacutil.TreeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Transfer function for the Hemileia ownership type system.
+ *
+ * <p>This class implements the dataflow transfer rules for ownership semantics:
+ * <ul>
+ *   <li><b>Move semantics:</b> When an {@code @Owned} value is assigned to another
+ *       variable, or passed to an {@code @Owned} parameter of a method or constructor, the
+ *       source is marked as moved. So are the variables a lambda captures when it is passed to
+ *       a {@code @MovesCaptures} parameter.</li>
+ *   <li><b>Borrow creation:</b> When a {@code @Borrowed} or {@code @MutBorrowed}
+ *       value is created, track the borrow relationship.</li>
+ *   <li><b>Consuming calls:</b> A method annotated {@code @Consumes} moves its
+ *       receiver; a value returned by a method annotated {@code @ReturnsBorrow} borrows
+ *       from its receiver.</li>
+ *   <li><b>Borrow invalidation:</b> When a variable is reassigned, its old
+ *       borrow (if any) is removed.</li>
+ * </ul>
+ */
+public class HemileiaTransfer
+        extends CFAbstractTransfer<HemileiaValue, HemileiaStore, HemileiaTransfer> {
+
+    private static final Logger logger = LoggerFactory.getLogger(HemileiaTransfer.class);
+
+    private final HemileiaAnnotatedTypeFactory atypeFactory;
+
+    public HemileiaTransfer(HemileiaAnalysis analysis) {
+        super(analysis);
+        this.atypeFactory = (HemileiaAnnotatedTypeFactory) analysis.getTypeFactory();
+    }
+
+    @Override
+    public HemileiaStore initialStore(UnderlyingAST underlyingAST, List<LocalVariableNode> parameters) {
+        if (((HemileiaAnalysis) analysis).isOutOfScope()) {
+            // Nothing flows through a method that is not checked; skip the parameter and
+            // receiver lookups, which search the whole compilation unit.
+            return analysis.createEmptyStore(sequentialSemantics);
+        }
+        HemileiaStore store = super.initialStore(underlyingAST, parameters);
+        if (underlyingAST instanceof UnderlyingAST.CFGLambda cfgLambda) {
+            VariableElement parameter = atypeFactory.parameterOf(cfgLambda.getLambdaTree());
+            if (parameter != null && atypeFactory.borrowsCaptures(parameter)) {
+                // A task sharing its captures with other tasks may only read them
+                for (VariableElement captured : atypeFactory.capturedVariables(cfgLambda.getLambdaTree())) {
+                    if (atypeFactory.isTrackedType(captured.asType())) {
+                        store.removeHeldBorrowsOf(captured);
+                        store.replaceValue(new LocalVariable(captured), analysis.createAbstractValue(
+                                new AnnotationMirrorSet(atypeFactory.getBorrowedAnnotation()), captured.asType()));
+                    }
+                }
+            }
+        }
+        return store;
+    }
+
+    @Override
+    public TransferResult<HemileiaValue, HemileiaStore> visitAssignment(
+            AssignmentNode node, TransferInput<HemileiaValue, HemileiaStore> input) {
+
+        TransferResult<HemileiaValue, HemileiaStore> result = super.visitAssignment(node, input);
+        HemileiaStore store = result.getRegularStore();
+
+        Node target = node.getTarget();
+        Node expression = node.getExpression();
+
+        // A variable holding a task remembers what the task captured, see moveOwnedArguments
+        if (target instanceof LocalVariableNode targetVar) {
+            store.setCaptures(targetVar.getElement(), capturesOf(expression, store));
+            // and takes over the borrows of the holders moved into it, e.g. task = new SortTask(slice).fork()
+            for (Element holder : movedInto(expression, store)) {
+                store.moveHeldBorrows(targetVar.getElement(), holder);
+            }
+        }
+
+        // Get the type of the target (LHS)
+        AnnotatedTypeMirror targetType = atypeFactory.getAnnotatedType(node.getTarget().getTree());
+
+        // Handle the case where target is a local variable of a tracked type
+        if (target instanceof LocalVariableNode targetVar && atypeFactory.isTrackedType(targetVar.getType())) {
+            Element targetElement = targetVar.getElement();
+
+            // If the target previously held a borrow, remove it
+            store.removeBorrow(targetElement);
+
+            // If the target was moved, clear that status (it's being reassigned)
+            store.clearMoved(targetElement);
+
+            // Now handle the source (RHS)
+            if (expression instanceof LocalVariableNode sourceVar) {
+                Element sourceElement = sourceVar.getElement();
+                AnnotatedTypeMirror sourceType = atypeFactory.getAnnotatedType(sourceVar.getTree());
+
+                // Check if source is owned
+                boolean sourceIsOwned = atypeFactory.hasOwned(sourceType);
+                boolean targetIsOwned = atypeFactory.hasOwned(targetType);
+                boolean targetIsBorrowed = atypeFactory.hasBorrowed(targetType);
+                boolean targetIsMutBorrowed = atypeFactory.hasMutBorrowed(targetType);
+
+                if (sourceIsOwned && targetIsOwned) {
+                    // Move semantics: @Owned source -> @Owned target
+                    // Mark the source as moved
+                    store.markMoved(sourceElement);
+
+                    // Update the source's type to @Moved in the store
+                    AnnotationMirror movedAnno = atypeFactory.getMovedAnnotation();
+                    AnnotatedTypeMirror movedType = sourceType.deepCopy();
+                    movedType.replaceAnnotation(movedAnno);
+                    HemileiaValue movedValue = analysis.createAbstractValue(
+                            new AnnotationMirrorSet(movedAnno),
+                            movedType.getUnderlyingType());
+                    JavaExpression sourceExpr = new LocalVariable(sourceVar);
+                    store.replaceValue(sourceExpr, movedValue);
+                } else if (sourceIsOwned && (targetIsBorrowed || targetIsMutBorrowed)) {
+                    // Borrow creation: @Owned source -> @Borrowed/@MutBorrowed target
+                    store.addBorrow(targetElement, sourceElement, targetIsMutBorrowed);
+                }
+            } else if (expression instanceof MethodInvocationNode call) {
+                if (atypeFactory.returnsBorrow(call.getTarget().getMethod())
+                        && call.getTarget().getReceiver() instanceof LocalVariableNode receiver) {
+                    // Borrow creation: a @ReturnsBorrow method returns a value that borrows from its receiver
+                    store.addBorrow(targetElement, receiver.getElement(), false);
+                }
+                // A @SharesHeldBorrows method returns a value that holds what its receiver holds
+                if (atypeFactory.sharesHeldBorrows(call.getTarget().getMethod())
+                        && call.getTarget().getReceiver() instanceof LocalVariableNode receiver) {
+                    store.shareHeldBorrows(targetElement, receiver.getElement());
+                }
+                // The result holds @BorrowedByResult arguments until it ends its borrows
+                var parameters = call.getTarget().getMethod().getParameters();
+                var arguments = call.getArguments();
+                for (int i = 0; i < arguments.size() && i < parameters.size(); i++) {
+                    if (arguments.get(i) instanceof LocalVariableNode argument
+                            && atypeFactory.isTrackedType(argument.getType())
+                            && atypeFactory.borrowedByResult(parameters.get(i))) {
+                        atypeFactory.noteHeldBorrow();
+                        store.addHeldBorrow(targetElement, argument.getElement(),
+                                atypeFactory.hasMutBorrowed(atypeFactory.getAnnotatedType(parameters.get(i))));
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public TransferResult<HemileiaValue, HemileiaStore> visitMethodInvocation(
+            MethodInvocationNode node, TransferInput<HemileiaValue, HemileiaStore> input) {
+
+        TransferResult<HemileiaValue, HemileiaStore> result = super.visitMethodInvocation(node, input);
+
+        var methodElement = node.getTarget().getMethod();
+        logger.debug("visitMethodInvocation: {} with {} args", methodElement.getSimpleName(),
+                node.getArguments().size());
+        moveOwnedArguments(methodElement, node.getArguments(), result);
+
+        // A @Consumes method takes ownership of its receiver; calls the CFG adds, such as the
+        // close() of a try-with-resources statement, may name an overridden method
+        if (node.getTarget().getReceiver() instanceof LocalVariableNode receiver
+                && atypeFactory.isTrackedType(receiver.getType())
+                && (node.getInSource() ? atypeFactory.isConsuming(methodElement)
+                        : atypeFactory.isConsuming(methodElement, receiver.getType()))) {
+            markMovedInResult(result, receiver.getElement(), atypeFactory.getAnnotatedType(receiver.getTree()));
+        }
+
+        // A structural modification invalidates what borrows from the receiver, e.g. its iterators
+        if (node.getTarget().getReceiver() instanceof LocalVariableNode receiver
+                && atypeFactory.invalidatesBorrows(methodElement, receiver.getType())) {
+            updateStores(result, store -> store.invalidateBorrows(receiver.getElement(), node.getTree()));
+        }
+
+        // Tasks started through the receiver share what they capture until it ends its borrows
+        if (node.getTarget().getReceiver() instanceof LocalVariableNode holder) {
+            var parameters = methodElement.getParameters();
+            var arguments = node.getArguments();
+            for (int i = 0; i < arguments.size() && i < parameters.size(); i++) {
+                if (atypeFactory.borrowsCaptures(parameters.get(i))) {
+                    for (VariableElement captured : capturesOf(arguments.get(i), result.getRegularStore())) {
+                        if (atypeFactory.isTrackedType(captured.asType())) {
+                            atypeFactory.noteHeldBorrow();
+                            updateStores(result, store -> store.addHeldBorrow(holder.getElement(), captured, false));
+                        }
+                    }
+                }
+            }
+            // A moved holder keeps its borrows: they went with it, e.g. into a task not yet joined
+            if ((node.getInSource() ? atypeFactory.endsBorrows(methodElement)
+                    : atypeFactory.endsBorrows(methodElement, holder.getType()))
+                    && !input.getRegularStore().isMoved(holder.getElement())) {
+                updateStores(result, store -> store.endHeldBorrows(holder.getElement()));
+            }
+        }
+
+        // An @EndsBorrows parameter runs its argument to completion, e.g. ForkJoinPool.invoke(task)
+        var parameters = methodElement.getParameters();
+        var arguments = node.getArguments();
+        for (int i = 0; i < arguments.size() && i < parameters.size(); i++) {
+            if (atypeFactory.endsBorrows(parameters.get(i))) {
+                Set<Element> holders = movedInto(arguments.get(i), result.getRegularStore());
+                if (arguments.get(i) instanceof LocalVariableNode argument) {
+                    holders.add(argument.getElement());
+                }
+                updateStores(result, store -> holders.forEach(store::endHeldBorrows));
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public TransferResult<HemileiaValue, HemileiaStore> visitObjectCreation(
+            ObjectCreationNode node, TransferInput<HemileiaValue, HemileiaStore> input) {
+
+        TransferResult<HemileiaValue, HemileiaStore> result = super.visitObjectCreation(node, input);
+
+        // Constructors take ownership like methods do, e.g. a codec stage wrapping a buffer
+        moveOwnedArguments(TreeUtils.elementFromUse(node.getTree()), node.getArguments(), result);
+        return result;
+    }
+
+    /**
+     * Marks the local variables passed to {@code @Owned} parameters as moved, and those captured
+     * by a lambda, method reference or anonymous class passed to a {@code @MovesCaptures}
+     * parameter.
+     *
+     * @param method the invoked method or constructor
+     * @param arguments the argument nodes of the invocation
+     * @param result the result of the invocation, updated in place
+     */
+    private void moveOwnedArguments(ExecutableElement method, List<Node> arguments,
+            TransferResult<HemileiaValue, HemileiaStore> result) {
+        var parameters = method.getParameters();
+
+        for (int i = 0; i < arguments.size() && i < parameters.size(); i++) {
+            Node arg = arguments.get(i);
+
+            // Get the parameter's declared type
+            AnnotatedTypeMirror paramType = atypeFactory.getAnnotatedType(parameters.get(i));
+            boolean paramIsOwned = atypeFactory.hasOwned(paramType);
+
+            logger.debug("  arg[{}]: {} = {}, paramIsOwned={}", i, arg.getClass().getSimpleName(), arg, paramIsOwned);
+
+            if (paramIsOwned && arg instanceof LocalVariableNode argVar
+                    && atypeFactory.isTrackedType(argVar.getType())) {
+                AnnotatedTypeMirror argType = atypeFactory.getAnnotatedType(argVar.getTree());
+
+                logger.debug("    argType={}, hasOwned={}", argType, atypeFactory.hasOwned(argType));
+
+                if (atypeFactory.hasOwned(argType)) {
+                    markMovedInResult(result, argVar.getElement(), argType);
+                }
+            }
+            if (atypeFactory.movesCaptures(parameters.get(i))) {
+                // e.g. a task handed to an executor: it runs on another thread, which now owns
+                // the values the task captured
+                for (VariableElement captured : capturesOf(arg, result.getRegularStore())) {
+                    if (atypeFactory.isTrackedType(captured.asType())
+                            && isOwned(result.getRegularStore(), captured)) {
+                        markMovedInResult(result, captured, atypeFactory.getAnnotatedType(captured));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the local variables moved into the value of an expression, through the constructors
+     * and methods it calls, e.g. {@code slice} in {@code new SortTask(slice).fork()}.
+     *
+     * @param node an argument or the right-hand side of an assignment
+     * @param store the store after the node's value was computed
+     * @return the moved variables, empty if there are none
+     */
+    private Set<Element> movedInto(Node node, HemileiaStore store) {
+        Set<Element> moved = new LinkedHashSet<>();
+        List<Node> operands = new ArrayList<>();
+        if (node instanceof ObjectCreationNode creation) {
+            operands.addAll(creation.getArguments());
+        } else if (node instanceof MethodInvocationNode call) {
+            operands.add(call.getTarget().getReceiver());
+            operands.addAll(call.getArguments());
+        } else if (node instanceof ArrayCreationNode array) {
+            // the arguments of a varargs call
+            operands.addAll(array.getInitializers());
+        }
+        for (Node operand : operands) {
+            if (operand instanceof LocalVariableNode variable) {
+                if (store.isMoved(variable.getElement())) {
+                    moved.add(variable.getElement());
+                }
+            } else {
+                moved.addAll(movedInto(operand, store));
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Returns the variables captured by a lambda, method reference or anonymous class, or by the
+     * one a local variable holds according to the store.
+     *
+     * @param node an argument or the right-hand side of an assignment
+     * @param store the store before the node's value is used
+     * @return the captured variables, empty if there are none
+     */
+    private Set<VariableElement> capturesOf(Node node, HemileiaStore store) {
+        if (node instanceof LocalVariableNode variable) {
+            Set<VariableElement> captured = new LinkedHashSet<>();
+            for (Element element : store.getCaptures(variable.getElement())) {
+                captured.add((VariableElement) element);
+            }
+            return captured;
+        }
+        return atypeFactory.capturedVariables(node.getTree());
+    }
+
+    /**
+     * Checks if a variable holds an {@code @Owned} value, according to its refined value in the
+     * store or else its declared type.
+     */
+    private boolean isOwned(HemileiaStore store, VariableElement variable) {
+        HemileiaValue value = store.getValue(new LocalVariable(variable));
+        if (value == null) {
+            return atypeFactory.hasOwned(atypeFactory.getAnnotatedType(variable));
+        }
+        return AnnotationUtils.containsSame(value.getAnnotations(), atypeFactory.getOwnedAnnotation());
+    }
+
+    /**
+     * Marks a variable as moved in every store of a transfer result.
+     */
+    private void markMovedInResult(TransferResult<HemileiaValue, HemileiaStore> result,
+            VariableElement element, AnnotatedTypeMirror varType) {
+        updateStores(result, store -> markMovedInStore(store, element, varType));
+    }
+
+    /**
+     * Applies an update to every store of a transfer result.
+     *
+     * <p>Invocations return a ConditionalTransferResult when they produce a boolean, so both
+     * then/else stores must be modified for changes to propagate.
+     */
+    private static void updateStores(TransferResult<HemileiaValue, HemileiaStore> result,
+            Consumer<HemileiaStore> update) {
+        if (result.containsTwoStores()) {
+            update.accept(result.getThenStore());
+            update.accept(result.getElseStore());
+        } else {
+            update.accept(result.getRegularStore());
+        }
+    }
+
+    /**
+     * Marks a variable as moved in the given store.
+     *
+     * @param store the store to update
+     * @param element the local variable being moved
+     * @param varType the annotated type of the variable
+     */
+    private void markMovedInStore(HemileiaStore store, VariableElement element, AnnotatedTypeMirror varType) {
+        store.markMoved(element);
+        logger.debug("    MARKED MOVED: {}", element.getSimpleName());
+        logger.debug("    store.isMoved({})={}", element.getSimpleName(), store.isMoved(element));
+        logger.debug("    store.getMovedVariables()={}", store.getMovedVariables());
+
+        // Update the variable's type to @Moved in the store
+        AnnotationMirror movedAnno = atypeFactory.getMovedAnnotation();
+        HemileiaValue movedValue = analysis.createAbstractValue(
+                new AnnotationMirrorSet(movedAnno),
+                varType.getUnderlyingType());
+        JavaExpression varExpr = new LocalVariable(element);
+        store.replaceValue(varExpr, movedValue);
+    }
+}
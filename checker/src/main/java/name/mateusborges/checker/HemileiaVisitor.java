@@ -0,0 +1,1014 @@
+package name.mateusborges.checker;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.common.basetype.BaseTypeVisitor;
+import org.checkerframework.framework.type.AnnotatedTypeMirror;
+import org.checkerframework.javacutil.TreePathUtil;
+import org.checkerframework.javacutil.TreeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.source.tree.AssignmentTree;
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.BreakTree;
+import com.sun.source.tree.CaseTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompoundAssignmentTree;
+import com.sun.source.tree.ContinueTree;
+import com.sun.source.tree.DoWhileLoopTree;
+import com.sun.source.tree.EnhancedForLoopTree;
+import com.sun.source.tree.ExpressionStatementTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.ForLoopTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.IfTree;
+import com.sun.source.tree.LabeledStatementTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.LiteralTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.NewArrayTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.ParenthesizedTree;
+import com.sun.source.tree.ReturnTree;
+import com.sun.source.tree.StatementTree;
+import com.sun.source.tree.SwitchTree;
+import com.sun.source.tree.ThrowTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.tree.WhileLoopTree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+import com.sun.source.util.TreeScanner;
+
+import name.mateusborges.checker.events.MethodCheckEvent;
+
+/**
+ * The visitor for the Hemileia ownership type system.
+ *
+ * <p>This visitor checks Rust-style ownership rules at each AST node:
+ * <ul>
+ *   <li><b>Use-after-move:</b> Reports an error if a moved variable is used</li>
+ *   <li><b>Borrow conflicts:</b> Reports an error if mutable and immutable borrows
+ *       are created simultaneously, or if multiple mutable borrows exist, or if a value shared
+ *       with running tasks is borrowed mutably or moved, or if a value held exclusively is
+ *       used at all</li>
+ *   <li><b>Ownership transfer:</b> Validates that ownership is properly transferred</li>
+ *   <li><b>Borrow lifetimes:</b> Reports an error if a borrow is used after its owner was
+ *       moved or consumed, or if a borrow of a local variable is returned or stored in a
+ *       field</li>
+ * </ul>
+ *
+ * <p>Methods whose flow analysis exceeded its {@link HemileiaBudget} only get the
+ * flow-insensitive qualifier checks of {@link BaseTypeVisitor}; the checks above rely on
+ * dataflow results and are skipped for them.
+ *
+ * <p>Methods outside the {@link HemileiaEditScope} are not visited.
+ *
+ * <p>With {@code -Ahemileia.copyReport}, the visitor also records defensive copies that the
+ * stores show to be removable in the {@link HemileiaCopyReport}.
+ *
+ * <p>Once a method has been checked, its flow results are handed back to the factory with
+ * {@link HemileiaAnnotatedTypeFactory#releaseFlowResults}.
+ */
+public class HemileiaVisitor extends BaseTypeVisitor<HemileiaAnnotatedTypeFactory> {
+
+    private static final Logger logger = LoggerFactory.getLogger(HemileiaVisitor.class);
+
+    /** Error message for using a moved value */
+    private static final String USE_AFTER_MOVE = "use.after.move";
+
+    /** Error message for conflicting borrows */
+    private static final String BORROW_CONFLICT = "borrow.conflict";
+
+    /** Error message for multiple mutable borrows */
+    private static final String MULTIPLE_MUT_BORROW = "multiple.mut.borrow";
+
+    /** Error message for using a borrow whose owner was moved */
+    private static final String BORROW_INVALIDATED = "borrow.invalidated";
+
+    /** Error message for a borrow escaping the method that declares its owner */
+    private static final String BORROW_OUTLIVES_OWNER = "borrow.outlives.owner";
+
+    /**
+     * Methods that change a list, set or map, besides the {@code @InvalidatesBorrows} ones, e.g.
+     * {@code List.set} and {@code Map.put}; an immutable collection throws on all of them.
+     */
+    private static final Set<String> MODIFYING_METHODS = Set.of("add", "addAll", "clear", "compute",
+            "computeIfAbsent", "computeIfPresent", "merge", "put", "putAll", "putIfAbsent", "remove", "removeAll",
+            "removeIf", "replace", "replaceAll", "retainAll", "set", "sort");
+
+    /** True while visiting a method or lambda whose flow analysis was abandoned. */
+    private boolean inDegradedCode = false;
+
+    /** Time spent in methods nested in the one being visited, for {@code -Ahemileia.stats}. */
+    private long nestedVisitNanos;
+
+    public HemileiaVisitor(BaseTypeChecker checker) {
+        super(checker);
+    }
+
+    @Override
+    public void processMethodTree(String className, MethodTree tree) {
+        if (!atypeFactory.isInEditScope(tree)) {
+            atypeFactory.releaseFlowResults(tree);
+            return;
+        }
+        HemileiaStatistics statistics = atypeFactory.getStatistics();
+        long start = statistics == null ? 0 : System.nanoTime();
+        long enclosingNestedNanos = nestedVisitNanos;
+        nestedVisitNanos = 0;
+        boolean enclosingDegraded = inDegradedCode;
+        inDegradedCode = atypeFactory.isAnalysisDegraded(tree);
+        MethodCheckEvent event = new MethodCheckEvent();
+        event.begin();
+        try {
+            super.processMethodTree(className, tree);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = HemileiaAnalysis.describe(tree);
+                event.degraded = inDegradedCode;
+                event.commit();
+            }
+            inDegradedCode = enclosingDegraded;
+            if (statistics != null) {
+                // Methods of local and anonymous classes are recorded on their own.
+                long elapsed = System.nanoTime() - start;
+                statistics.addVisit(HemileiaAnalysis.describe(tree), elapsed - nestedVisitNanos);
+                nestedVisitNanos = enclosingNestedNanos + elapsed;
+            }
+        }
+        atypeFactory.releaseFlowResults(tree);
+    }
+
+    @Override
+    public Void visitLambdaExpression(LambdaExpressionTree tree, Void p) {
+        boolean enclosingDegraded = inDegradedCode;
+        inDegradedCode = enclosingDegraded || atypeFactory.isAnalysisDegraded(tree);
+        try {
+            return super.visitLambdaExpression(tree, p);
+        } finally {
+            inDegradedCode = enclosingDegraded;
+        }
+    }
+
+    @Override
+    public Void visitIdentifier(IdentifierTree tree, Void p) {
+        checkUseAfterMove(tree);
+        return super.visitIdentifier(tree, p);
+    }
+
+    @Override
+    public Void visitVariable(VariableTree tree, Void p) {
+        ExpressionTree initializer = tree.getInitializer();
+        if (initializer != null) {
+            checkBorrowRules(tree, initializer);
+        }
+        return super.visitVariable(tree, p);
+    }
+
+    @Override
+    public Void visitAssignment(AssignmentTree tree, Void p) {
+        checkBorrowRules(tree.getVariable(), tree.getExpression());
+        Element variable = TreeUtils.elementFromUse(tree.getVariable());
+        if (variable != null && variable.getKind() == ElementKind.FIELD) {
+            checkBorrowEscape(tree.getExpression());
+        }
+        return super.visitAssignment(tree, p);
+    }
+
+    @Override
+    public Void visitReturn(ReturnTree tree, Void p) {
+        if (tree.getExpression() != null) {
+            checkBorrowEscape(tree.getExpression());
+        }
+        return super.visitReturn(tree, p);
+    }
+
+    @Override
+    public Void visitMethodInvocation(MethodInvocationTree tree, Void p) {
+        // Check each argument for use-after-move
+        for (ExpressionTree arg : tree.getArguments()) {
+            if (arg instanceof IdentifierTree identTree) {
+                checkUseAfterMove(identTree);
+            }
+        }
+        checkSharedValues(tree);
+        checkModifiedWhileIterated(tree);
+        checkRemovableCopy(tree, TreeUtils.elementFromUse(tree));
+        return super.visitMethodInvocation(tree, p);
+    }
+
+    @Override
+    public Void visitNewClass(NewClassTree tree, Void p) {
+        checkRemovableCopy(tree, TreeUtils.elementFromUse(tree));
+        return super.visitNewClass(tree, p);
+    }
+
+    /**
+     * Reports a structural modification of a collection in the body of an enhanced for loop over
+     * it. The loop's hidden iterator borrows from the collection and is used again at the next
+     * iteration, unless the statements after the modification always leave the loop, e.g. by
+     * {@code break}, {@code return} or {@code throw}.
+     */
+    private void checkModifiedWhileIterated(MethodInvocationTree tree) {
+        if (inDegradedCode || !(TreeUtils.getReceiverTree(tree) instanceof IdentifierTree receiver)
+                || !atypeFactory.invalidatesBorrows(TreeUtils.elementFromUse(tree), TreeUtils.typeOf(receiver))) {
+            return;
+        }
+        Element collection = TreeUtils.elementFromUse(receiver);
+        HemileiaStore store = atypeFactory.getStoreBefore(tree);
+        if (collection == null || store == null || store.getBorrowsFrom(collection).isEmpty()) {
+            return;
+        }
+        TreePath path = atypeFactory.getPath(tree);
+        for (TreePath loopPath = path; loopPath != null; loopPath = loopPath.getParentPath()) {
+            Tree leaf = loopPath.getLeaf();
+            if (leaf instanceof ClassTree || leaf instanceof LambdaExpressionTree || leaf instanceof MethodTree) {
+                return;
+            }
+            if (leaf instanceof EnhancedForLoopTree loop
+                    && TreeUtils.withoutParens(loop.getExpression()) instanceof IdentifierTree iterable
+                    && collection.equals(TreeUtils.elementFromUse(iterable))
+                    && isWithin(path, loop.getStatement())) {
+                if (!leavesLoopAfter(path, loopPath)) {
+                    checker.reportError(tree, BORROW_CONFLICT, collection.getSimpleName());
+                }
+                return;
+            }
+        }
+    }
+
+    private static boolean isWithin(TreePath path, Tree ancestor) {
+        for (TreePath p = path; p != null; p = p.getParentPath()) {
+            if (p.getLeaf() == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the statements after the one containing a call always leave a loop before it
+     * iterates again: one of them is a {@code return}, a {@code throw}, a {@code break} out of
+     * the loop, or an {@code if} whose branches all do, and none before it may {@code continue}.
+     */
+    private static boolean leavesLoopAfter(TreePath call, TreePath loop) {
+        Tree child = call.getLeaf();
+        for (TreePath p = call.getParentPath(); p != null && p != loop; p = p.getParentPath()) {
+            Tree leaf = p.getLeaf();
+            if (leaf instanceof ForLoopTree || leaf instanceof EnhancedForLoopTree || leaf instanceof WhileLoopTree
+                    || leaf instanceof DoWhileLoopTree || (leaf instanceof SwitchTree && mayContinue(leaf))) {
+                // An inner loop runs its body again first
+                return false;
+            }
+            List<? extends StatementTree> statements = leaf instanceof BlockTree block ? block.getStatements()
+                    : leaf instanceof CaseTree caseTree ? caseTree.getStatements() : null;
+            if (statements != null) {
+                int index = statements.indexOf(child);
+                if (index < 0) {
+                    return false;
+                }
+                for (StatementTree next : statements.subList(index + 1, statements.size())) {
+                    if (alwaysLeaves(next, p, loop)) {
+                        return true;
+                    }
+                    if (mayContinue(next)) {
+                        return false;
+                    }
+                }
+            }
+            child = leaf;
+        }
+        return false;
+    }
+
+    /** Checks if a statement in a block always leaves the loop around the block. */
+    private static boolean alwaysLeaves(StatementTree statement, TreePath block, TreePath loop) {
+        if (statement instanceof ReturnTree || statement instanceof ThrowTree) {
+            return true;
+        }
+        if (statement instanceof BreakTree jump) {
+            return breaksOutOf(jump, block, loop);
+        }
+        if (statement instanceof BlockTree inner) {
+            for (StatementTree s : inner.getStatements()) {
+                if (alwaysLeaves(s, block, loop)) {
+                    return true;
+                }
+                if (mayContinue(s)) {
+                    return false;
+                }
+            }
+            return false;
+        }
+        return statement instanceof IfTree branch && branch.getElseStatement() != null
+                && alwaysLeaves(branch.getThenStatement(), block, loop)
+                && alwaysLeaves(branch.getElseStatement(), block, loop);
+    }
+
+    /** Checks if a tree contains a {@code continue}, which may start the next iteration. */
+    private static boolean mayContinue(Tree tree) {
+        Boolean found = new TreeScanner<Boolean, Void>() {
+            @Override
+            public Boolean visitContinue(ContinueTree node, Void p) {
+                return true;
+            }
+
+            @Override
+            public Boolean reduce(Boolean r1, Boolean r2) {
+                return Boolean.TRUE.equals(r1) || Boolean.TRUE.equals(r2);
+            }
+        }.scan(tree, null);
+        return Boolean.TRUE.equals(found);
+    }
+
+    /**
+     * Checks if a break in a block leaves the loop around the block. A labeled break leaves it
+     * if the label is on the loop or on any statement around it, up to the enclosing method,
+     * lambda or class.
+     */
+    private static boolean breaksOutOf(BreakTree jump, TreePath block, TreePath loop) {
+        if (jump.getLabel() != null) {
+            for (TreePath p = loop.getParentPath(); p != null; p = p.getParentPath()) {
+                Tree leaf = p.getLeaf();
+                if (leaf instanceof MethodTree || leaf instanceof LambdaExpressionTree || leaf instanceof ClassTree) {
+                    return false;
+                }
+                if (leaf instanceof LabeledStatementTree labeled && labeled.getLabel().equals(jump.getLabel())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        // An unlabeled break leaves the innermost loop or switch
+        for (TreePath p = block; p != loop; p = p.getParentPath()) {
+            Tree leaf = p.getLeaf();
+            if (leaf instanceof ForLoopTree || leaf instanceof EnhancedForLoopTree || leaf instanceof WhileLoopTree
+                    || leaf instanceof DoWhileLoopTree || leaf instanceof SwitchTree) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reports mutable borrows and moves of values that running tasks share (see
+     * {@link name.mateusborges.annotations.BorrowsCaptures}). While shared, a value may only be
+     * used where {@code @Borrowed} suffices, so these are conflicts: the receiver of a method
+     * whose receiver is not {@code @Borrowed}, an argument to a parameter that is not
+     * {@code @Borrowed}, and a capture of a task that moves its captures.
+     */
+    private void checkSharedValues(MethodInvocationTree tree) {
+        if (inDegradedCode || !atypeFactory.mayHoldBorrows()) {
+            return;
+        }
+        HemileiaStore store = atypeFactory.getStoreBefore(tree);
+        if (store == null || !store.hasHeldBorrows()) {
+            return;
+        }
+        ExecutableElement method = TreeUtils.elementFromUse(tree);
+        if (TreeUtils.getReceiverTree(tree) instanceof IdentifierTree receiver) {
+            AnnotatedTypeMirror receiverType = atypeFactory.getAnnotatedType(method).getReceiverType();
+            if (receiverType != null && !atypeFactory.hasBorrowed(receiverType)) {
+                reportIfShared(receiver, TreeUtils.elementFromUse(receiver), store);
+            }
+        }
+        var parameters = method.getParameters();
+        var arguments = tree.getArguments();
+        for (int i = 0; i < arguments.size() && i < parameters.size(); i++) {
+            ExpressionTree arg = TreeUtils.withoutParens(arguments.get(i));
+            if (arg instanceof IdentifierTree identifier
+                    && !atypeFactory.hasBorrowed(atypeFactory.getAnnotatedType(parameters.get(i)))) {
+                reportIfShared(identifier, TreeUtils.elementFromUse(identifier), store);
+            } else if (atypeFactory.movesCaptures(parameters.get(i))) {
+                for (Element captured : atypeFactory.capturedVariables(arg)) {
+                    reportIfShared(arg, captured, store);
+                }
+            }
+        }
+    }
+
+    private void reportIfShared(Tree tree, Element element, HemileiaStore store) {
+        if (element != null && store.getBorrowHolder(element) != null) {
+            checker.reportError(tree, BORROW_CONFLICT, element.getSimpleName());
+        }
+    }
+
+    /**
+     * Checks if a variable has been moved and is being used.
+     */
+    private void checkUseAfterMove(IdentifierTree tree) {
+        if (inDegradedCode) {
+            return;
+        }
+
+        // Skip if this identifier is an assignment target - reassigning a moved variable is allowed
+        if (isAssignmentTarget(tree)) {
+            logger.debug("Skipping use-after-move check for assignment target: {}", tree.getName());
+            return;
+        }
+
+        Element element = atypeFactory.getAnnotatedType(tree).getUnderlyingType() != null
+                ? org.checkerframework.javacutil.TreeUtils.elementFromUse(tree)
+                : null;
+
+        if (element == null) {
+            return;
+        }
+
+        if (logger.isDebugEnabled()) {
+            long position = com.sun.source.util.Trees.instance(checker.getProcessingEnvironment())
+                .getSourcePositions()
+                .getStartPosition(atypeFactory.getPath(tree).getCompilationUnit(), tree);
+            logger.debug("checkUseAfterMove: {} at position {}", element.getSimpleName(), position);
+        }
+
+        // Get the store at this program point
+        HemileiaStore store = atypeFactory.getStoreBefore(tree);
+        logger.debug("  store={}, isMoved={}",
+            store != null ? "present" : "null",
+            store != null ? store.isMoved(element) : "N/A");
+        if (store != null && store.isMoved(element)) {
+            logger.debug("  REPORTING ERROR via store.isMoved");
+            checker.reportError(tree, USE_AFTER_MOVE, element.getSimpleName());
+        }
+
+        // Also check if the type has @Moved annotation (from dataflow)
+        AnnotatedTypeMirror type = atypeFactory.getAnnotatedType(tree);
+        logger.debug("  type={}, hasMoved={}", type, atypeFactory.hasMoved(type));
+        if (atypeFactory.hasMoved(type)) {
+            logger.debug("  REPORTING ERROR via hasMoved");
+            checker.reportError(tree, USE_AFTER_MOVE, element.getSimpleName());
+        }
+
+        // A borrow is only valid while the values it borrows from are
+        Element movedOwner = store == null ? null : store.getMovedOwner(element);
+        if (movedOwner != null) {
+            checker.reportError(tree, BORROW_INVALIDATED, element.getSimpleName(), movedOwner.getSimpleName());
+        }
+
+        // A value held exclusively, such as the array of an ArraySlice, cannot be used until released
+        if (store != null && store.getExclusiveHolder(element) != null) {
+            checker.reportError(tree, BORROW_CONFLICT, element.getSimpleName());
+        }
+
+        // A borrow still in use, such as an iterator, conflicts with the modification of its owner
+        Tree invalidation = store == null ? null : store.getInvalidation(element);
+        if (invalidation != null) {
+            Element owner = store.getBorrowSource(element);
+            checker.reportError(invalidation, BORROW_CONFLICT, (owner != null ? owner : element).getSimpleName());
+        }
+    }
+
+    /**
+     * Reports a value that leaves the method, by a return or a field store, while it borrows from
+     * a local variable of the method, or shares what a local variable holds, like a piece split
+     * off a local slice. The owner dies when the method returns, so the borrow would outlive it.
+     * Parameters are not considered owners here: the caller usually keeps them alive.
+     */
+    private void checkBorrowEscape(ExpressionTree value) {
+        if (inDegradedCode) {
+            return;
+        }
+        value = TreeUtils.withoutParens(value);
+        HemileiaStore store = atypeFactory.getStoreBefore(value);
+        if (store == null) {
+            return;
+        }
+        Element owner;
+        if (value instanceof IdentifierTree identifier) {
+            Element borrower = TreeUtils.elementFromUse(identifier);
+            owner = borrower == null ? null : store.getBorrowSource(borrower);
+            if (borrower != null && owner == null) {
+                // A piece split off a slice holds the array for as long as the slice does
+                owner = store.getOtherHolder(borrower);
+            }
+        } else if (value instanceof MethodInvocationTree call
+                && (atypeFactory.returnsBorrow(TreeUtils.elementFromUse(call))
+                        || atypeFactory.sharesHeldBorrows(TreeUtils.elementFromUse(call)))
+                && TreeUtils.getReceiverTree(call) instanceof IdentifierTree receiver) {
+            owner = TreeUtils.elementFromUse(receiver);
+        } else {
+            return;
+        }
+        Set<Element> visited = new HashSet<>();
+        for (; owner != null && visited.add(owner); owner = store.getBorrowSource(owner)) {
+            if (owner.getKind() == ElementKind.LOCAL_VARIABLE || owner.getKind() == ElementKind.RESOURCE_VARIABLE) {
+                checker.reportError(value, BORROW_OUTLIVES_OWNER, owner.getSimpleName());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Checks if the given tree is the target of an assignment (being written to, not read).
+     * In Rust semantics, assigning to a moved variable is allowed - it clears the moved state.
+     */
+    private boolean isAssignmentTarget(IdentifierTree tree) {
+        TreePath path = atypeFactory.getPath(tree);
+        if (path == null) {
+            return false;
+        }
+
+        TreePath parentPath = path.getParentPath();
+        if (parentPath == null) {
+            return false;
+        }
+
+        Tree parent = parentPath.getLeaf();
+
+        // Check if this identifier is the left-hand side of an assignment
+        if (parent instanceof AssignmentTree assignment) {
+            return assignment.getVariable() == tree;
+        }
+
+        // Check compound assignments (+=, -=, etc.) - these both read AND write, so not pure assignment targets
+        // For compound assignments, we still need to check use-after-move since the old value is read
+        if (parent instanceof CompoundAssignmentTree) {
+            return false;
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks borrow rules when creating a borrow from an assignment.
+     */
+    private void checkBorrowRules(Tree target, ExpressionTree source) {
+        if (inDegradedCode) {
+            return;
+        }
+
+        if (!(source instanceof IdentifierTree sourceIdent)) {
+            return;
+        }
+
+        Element sourceElement = org.checkerframework.javacutil.TreeUtils.elementFromUse(sourceIdent);
+        if (sourceElement == null) {
+            return;
+        }
+
+        AnnotatedTypeMirror targetType = atypeFactory.getAnnotatedType(target);
+        AnnotatedTypeMirror sourceType = atypeFactory.getAnnotatedType(source);
+
+        boolean targetIsBorrowed = atypeFactory.hasBorrowed(targetType);
+        boolean targetIsMutBorrowed = atypeFactory.hasMutBorrowed(targetType);
+        boolean sourceIsOwned = atypeFactory.hasOwned(sourceType);
+
+        if (!sourceIsOwned) {
+            return;
+        }
+
+        HemileiaStore store = atypeFactory.getStoreBefore(source);
+        if (store == null) {
+            return;
+        }
+
+        boolean shared = store.getBorrowHolder(sourceElement) != null;
+
+        if (targetIsMutBorrowed) {
+            // Creating a mutable borrow - check for conflicts
+            if (store.hasMutableBorrow(sourceElement)) {
+                // Already has a mutable borrow
+                checker.reportError(target, MULTIPLE_MUT_BORROW, sourceElement.getSimpleName());
+            } else if (store.hasImmutableBorrows(sourceElement) || shared) {
+                // Has immutable borrows - conflict
+                checker.reportError(target, BORROW_CONFLICT, sourceElement.getSimpleName());
+            }
+        } else if (targetIsBorrowed) {
+            // Creating an immutable borrow - check for mutable borrow conflict
+            if (store.hasMutableBorrow(sourceElement)) {
+                checker.reportError(target, BORROW_CONFLICT, sourceElement.getSimpleName());
+            }
+        } else if (shared) {
+            // Moving a value that running tasks still read
+            checker.reportError(target, BORROW_CONFLICT, sourceElement.getSimpleName());
+        }
+    }
+
+    /**
+     * Records a defensive copy or read-only wrapper in the {@link HemileiaCopyReport}, if one is
+     * being collected and the ownership facts before the copy show it to be unnecessary: its
+     * source is an owned local variable or parameter that nothing borrows or holds and that is
+     * dead after the copy, or the copy is only passed where {@code @Borrowed} suffices.
+     */
+    private void checkRemovableCopy(ExpressionTree tree, ExecutableElement method) {
+        HemileiaCopyReport report = atypeFactory.getCopyReport();
+        String kind = report == null || inDegradedCode ? null : HemileiaCopyReport.kindOf(method);
+        if (kind == null) {
+            return;
+        }
+        ExpressionTree sourceTree = kind.equals("clone")
+                ? TreeUtils.getReceiverTree(tree)
+                : arguments(tree).isEmpty() ? null : arguments(tree).get(0);
+        if (sourceTree == null || !(TreeUtils.withoutParens(sourceTree) instanceof IdentifierTree sourceIdent)) {
+            return;
+        }
+        Element source = TreeUtils.elementFromUse(sourceIdent);
+        if (source == null || !(source.getKind() == ElementKind.LOCAL_VARIABLE
+                || source.getKind() == ElementKind.PARAMETER || source.getKind() == ElementKind.RESOURCE_VARIABLE)
+                || !atypeFactory.isTrackedType(source.asType()) || !copiesAsIs(tree, kind, source)) {
+            return;
+        }
+        HemileiaStore store = atypeFactory.getStoreBefore(tree);
+        TreePath path = atypeFactory.getPath(tree);
+        TreePath body = enclosingBody(path);
+        if (store == null || body == null || store.isMoved(source) || store.getExclusiveHolder(source) != null) {
+            return;
+        }
+        // A modifiable copy cannot be replaced by a source that may be immutable, e.g. a List.of
+        if (tree instanceof NewClassTree && mayBeImmutable(source.asType()) && mayBeModified(path, body)) {
+            return;
+        }
+        Occurrences sources = Occurrences.of(body, source);
+        if (sources.declaration == null) {
+            // Captured from an enclosing method, which may still use it
+            return;
+        }
+        sources.uses.removeIf(use -> use.getLeaf() == sourceIdent);
+
+        String reason;
+        if (!HemileiaCopyReport.isWrapper(kind) && atypeFactory.hasOwned(atypeFactory.getAnnotatedType(sourceIdent))
+                && store.getBorrowsFrom(source).isEmpty() && store.getBorrowHolder(source) == null
+                && store.getBorrowSource(source) == null && isDeadAfter(path, body, sources)) {
+            reason = HemileiaCopyReport.SOURCE_DEAD;
+        } else if (isBorrowedOnly(path, body, sources)) {
+            reason = HemileiaCopyReport.BORROWED_ONLY;
+        } else {
+            return;
+        }
+
+        long elements = HemileiaCopyReport.isWrapper(kind) ? 0 : estimateElements(sources);
+        long position = positions.getStartPosition(root, tree);
+        MethodTree enclosingMethod = TreePathUtil.enclosingMethod(path);
+        report.add(new HemileiaCopyReport.Copy(root.getSourceFile().getName(),
+                root.getLineMap().getLineNumber(position), root.getLineMap().getColumnNumber(position),
+                enclosingMethod != null
+                        ? HemileiaAnalysis.describe(enclosingMethod)
+                        : TreeUtils.elementFromDeclaration(TreePathUtil.enclosingClass(path)).getQualifiedName()
+                                + ".<initializer>",
+                kind, source.getSimpleName().toString(), reason, elements,
+                HemileiaCopyReport.estimateBytes(kind, source.asType(), elements)));
+    }
+
+    /**
+     * Checks if a copy has the same elements in the same order as its source: a collection copy
+     * into the same kind of collection (see {@link HemileiaCopyReport#collectionKind}),
+     * {@code Arrays.copyOf(source, source.length)} or
+     * {@code Arrays.copyOfRange(source, 0, source.length)}, a {@code clone()} or a wrapper.
+     */
+    private boolean copiesAsIs(ExpressionTree copy, String kind, Element source) {
+        List<? extends ExpressionTree> args = arguments(copy);
+        switch (kind) {
+            case "Arrays.copyOf":
+                return args.size() == 2 && isLengthOf(args.get(1), source);
+            case "Arrays.copyOfRange":
+                return args.size() == 3 && intLiteral(args.get(1)) == 0 && isLengthOf(args.get(2), source);
+            case "List.copyOf":
+            case "Set.copyOf":
+            case "Map.copyOf":
+                break;
+            default:
+                if (!(copy instanceof NewClassTree)) {
+                    return true;
+                }
+        }
+        Types types = checker.getProcessingEnvironment().getTypeUtils();
+        String made = HemileiaCopyReport.collectionKind(TreeUtils.typeOf(copy), types);
+        return made != null && made.equals(HemileiaCopyReport.collectionKind(source.asType(), types));
+    }
+
+    /** Checks if an expression is {@code variable.length}. */
+    private static boolean isLengthOf(ExpressionTree tree, Element variable) {
+        return TreeUtils.withoutParens(tree) instanceof MemberSelectTree select
+                && select.getIdentifier().contentEquals("length")
+                && TreeUtils.withoutParens(select.getExpression()) instanceof IdentifierTree array
+                && variable.equals(TreeUtils.elementFromUse(array));
+    }
+
+    /** Checks if a collection type may be immutable: an interface or abstract class. */
+    private static boolean mayBeImmutable(TypeMirror type) {
+        return type instanceof DeclaredType declared && (declared.asElement().getKind().isInterface()
+                || declared.asElement().getModifiers().contains(Modifier.ABSTRACT));
+    }
+
+    /**
+     * Checks if a copy may be modified after it is made: a local variable or field holding it is
+     * the receiver of a method that changes a collection, or the copy or such a variable goes
+     * where it may be changed, such as a return or a parameter that is not {@code @Borrowed}.
+     */
+    private boolean mayBeModified(TreePath copy, TreePath body) {
+        Tree parent = copy.getParentPath().getLeaf();
+        Element holder;
+        if (parent instanceof VariableTree variable && variable.getInitializer() == copy.getLeaf()) {
+            holder = TreeUtils.elementFromDeclaration(variable);
+        } else if (parent instanceof AssignmentTree assignment && assignment.getExpression() == copy.getLeaf()) {
+            holder = TreeUtils.elementFromUse(assignment.getVariable());
+        } else {
+            return !isBorrowedUse(copy);
+        }
+        if (holder == null || !(holder.getKind() == ElementKind.LOCAL_VARIABLE || holder.getKind() == ElementKind.FIELD)) {
+            return true;
+        }
+        // A field may be used anywhere in its class
+        TreePath scope = holder.getKind() == ElementKind.FIELD ? TreePathUtil.pathTillClass(copy) : body;
+        for (TreePath use : Occurrences.of(scope, holder).uses) {
+            TreePath useParent = use.getParentPath();
+            if (useParent.getLeaf() instanceof AssignmentTree assignment && assignment.getVariable() == use.getLeaf()
+                    || useParent.getLeaf() instanceof EnhancedForLoopTree
+                    || isBorrowedUse(use)) {
+                continue;
+            }
+            if (useParent.getLeaf() instanceof MemberSelectTree select
+                    && useParent.getParentPath().getLeaf() instanceof MethodInvocationTree call
+                    && call.getMethodSelect() == select) {
+                ExecutableElement method = TreeUtils.elementFromUse(call);
+                if (atypeFactory.invalidatesBorrows(method, TreeUtils.typeOf(select.getExpression()))
+                        || MODIFYING_METHODS.contains(method.getSimpleName().toString())) {
+                    return true;
+                }
+                continue;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static List<? extends ExpressionTree> arguments(ExpressionTree call) {
+        return call instanceof NewClassTree newClass
+                ? newClass.getArguments()
+                : ((MethodInvocationTree) call).getArguments();
+    }
+
+    /** The innermost method or lambda around a tree, or null if it is in an initializer. */
+    private static TreePath enclosingBody(TreePath path) {
+        for (TreePath p = path; p != null; p = p.getParentPath()) {
+            Tree leaf = p.getLeaf();
+            if (leaf instanceof MethodTree || leaf instanceof LambdaExpressionTree) {
+                return p;
+            }
+            if (leaf instanceof ClassTree) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if the source of a copy is dead after it: the statement after the copy reassigns
+     * it, or it is not used after the copy or in a lambda or class, and the copy is not in a
+     * loop that runs it again on the same source.
+     */
+    private boolean isDeadAfter(TreePath copy, TreePath body, Occurrences sources) {
+        long end = positions.getEndPosition(root, copy.getLeaf());
+        StatementTree next = nextStatement(copy, body);
+        if (next instanceof ExpressionStatementTree statement
+                && statement.getExpression() instanceof AssignmentTree assignment
+                && sources.uses.stream().anyMatch(use -> use.getLeaf() == assignment.getVariable())) {
+            long nextEnd = positions.getEndPosition(root, next);
+            return sources.uses.stream().noneMatch(use -> {
+                long start = positions.getStartPosition(root, use.getLeaf());
+                return use.getLeaf() != assignment.getVariable() && start > end && start < nextEnd;
+            });
+        }
+        // A copy in a loop copies the source again in the next iteration
+        long declared = positions.getStartPosition(root, sources.declaration);
+        for (TreePath p = copy.getParentPath(); p != body; p = p.getParentPath()) {
+            if (isLoop(p.getLeaf()) && positions.getStartPosition(root, p.getLeaf()) > declared) {
+                return false;
+            }
+        }
+        for (TreePath use : sources.uses) {
+            long start = positions.getStartPosition(root, use.getLeaf());
+            if (start > end || isCaptured(use, body)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** The statement after the one containing a tree in its innermost block, or null. */
+    private static StatementTree nextStatement(TreePath path, TreePath body) {
+        Tree child = path.getLeaf();
+        for (TreePath p = path.getParentPath(); p != null && p != body; p = p.getParentPath()) {
+            if (p.getLeaf() instanceof BlockTree block) {
+                int index = block.getStatements().indexOf(child);
+                return index < 0 || index + 1 >= block.getStatements().size()
+                        ? null
+                        : block.getStatements().get(index + 1);
+            }
+            child = p.getLeaf();
+        }
+        return null;
+    }
+
+    /**
+     * Checks if a copy, or the local variable it initializes, is only passed where
+     * {@code @Borrowed} suffices, and the source is not used while it is.
+     */
+    private boolean isBorrowedOnly(TreePath copy, TreePath body, Occurrences sources) {
+        TreePath parent = copy.getParentPath();
+        if (parent.getLeaf() instanceof VariableTree variable && variable.getInitializer() == copy.getLeaf()) {
+            Element element = TreeUtils.elementFromDeclaration(variable);
+            if (element.getKind() != ElementKind.LOCAL_VARIABLE || atypeFactory.hasMutBorrowed(
+                    atypeFactory.getAnnotatedType(variable))) {
+                return false;
+            }
+            Occurrences copies = Occurrences.of(body, element);
+            if (copies.uses.isEmpty()) {
+                return false;
+            }
+            long start = positions.getEndPosition(root, copy.getLeaf());
+            long end = start;
+            for (TreePath use : copies.uses) {
+                if (isCaptured(use, body) || !isBorrowedUse(use)) {
+                    return false;
+                }
+                end = Math.max(end, liveUntil(use, copy.getLeaf(), body));
+            }
+            for (TreePath use : sources.uses) {
+                long position = positions.getStartPosition(root, use.getLeaf());
+                if (position > start && position < end) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return isBorrowedUse(copy);
+    }
+
+    /**
+     * Checks if an expression is an argument to a {@code @Borrowed} parameter, or the receiver
+     * of a method with a {@code @Borrowed} receiver.
+     */
+    private boolean isBorrowedUse(TreePath use) {
+        Tree expression = use.getLeaf();
+        TreePath parent = use.getParentPath();
+        while (parent.getLeaf() instanceof ParenthesizedTree) {
+            expression = parent.getLeaf();
+            parent = parent.getParentPath();
+        }
+        Tree leaf = parent.getLeaf();
+        if (leaf instanceof MethodInvocationTree || leaf instanceof NewClassTree) {
+            ExpressionTree call = (ExpressionTree) leaf;
+            int index = arguments(call).indexOf(expression);
+            ExecutableElement method = call instanceof NewClassTree newClass
+                    ? TreeUtils.elementFromUse(newClass)
+                    : TreeUtils.elementFromUse((MethodInvocationTree) call);
+            var parameters = method.getParameters();
+            if (index < 0 || index >= parameters.size() || (method.isVarArgs() && index == parameters.size() - 1)) {
+                return false;
+            }
+            return atypeFactory.hasBorrowed(atypeFactory.getAnnotatedType(parameters.get(index)));
+        }
+        if (leaf instanceof MemberSelectTree select
+                && parent.getParentPath().getLeaf() instanceof MethodInvocationTree call
+                && call.getMethodSelect() == select) {
+            AnnotatedTypeMirror receiverType = atypeFactory.getAnnotatedType(TreeUtils.elementFromUse(call))
+                    .getReceiverType();
+            return receiverType != null && atypeFactory.hasBorrowed(receiverType);
+        }
+        return false;
+    }
+
+    /** Checks if a use is inside a lambda or class declared in the body. */
+    private static boolean isCaptured(TreePath use, TreePath body) {
+        for (TreePath p = use.getParentPath(); p != null && p != body; p = p.getParentPath()) {
+            if (p.getLeaf() instanceof LambdaExpressionTree || p.getLeaf() instanceof ClassTree) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The position up to which a use keeps a value alive: the end of the outermost loop around
+     * the use but not around {@code copy}, which runs the use again, or else the end of the use.
+     */
+    private long liveUntil(TreePath use, Tree copy, TreePath body) {
+        long copyStart = positions.getStartPosition(root, copy);
+        long end = positions.getEndPosition(root, use.getLeaf());
+        for (TreePath p = use.getParentPath(); p != null && p != body; p = p.getParentPath()) {
+            Tree leaf = p.getLeaf();
+            if (isLoop(leaf) && positions.getStartPosition(root, leaf) > copyStart) {
+                end = Math.max(end, positions.getEndPosition(root, leaf));
+            }
+        }
+        return end;
+    }
+
+    private static boolean isLoop(Tree tree) {
+        return tree instanceof ForLoopTree || tree instanceof EnhancedForLoopTree || tree instanceof WhileLoopTree
+                || tree instanceof DoWhileLoopTree;
+    }
+
+    /**
+     * Estimates the number of elements a copy copies, which is all of its source's, from the
+     * initializer of a source that is never reassigned: an array creation, {@code List.of},
+     * {@code Set.of}, {@code Map.of} or {@code Arrays.asList}. Returns -1 if unknown.
+     */
+    private static long estimateElements(Occurrences sources) {
+        ExpressionTree initializer = TreeUtils.withoutParens(sources.declaration.getInitializer());
+        if (initializer == null || sources.uses.stream().anyMatch(use ->
+                use.getParentPath().getLeaf() instanceof AssignmentTree assignment
+                        && assignment.getVariable() == use.getLeaf())) {
+            return -1;
+        }
+        if (initializer instanceof NewArrayTree array) {
+            if (array.getInitializers() != null) {
+                return array.getInitializers().size();
+            }
+            return array.getDimensions().size() == 1 ? intLiteral(array.getDimensions().get(0)) : -1;
+        }
+        if (initializer instanceof MethodInvocationTree factory) {
+            ExecutableElement method = TreeUtils.elementFromUse(factory);
+            String owner = ((TypeElement) method.getEnclosingElement()).getQualifiedName().toString();
+            String name = method.getSimpleName().toString();
+            int count = factory.getArguments().size();
+            if (TreeUtils.isVarargsCall(factory) || !method.isVarArgs()) {
+                if ((owner.equals("java.util.List") || owner.equals("java.util.Set")) && name.equals("of")
+                        || owner.equals("java.util.Arrays") && name.equals("asList")) {
+                    return count;
+                }
+                if (owner.equals("java.util.Map") && name.equals("of")) {
+                    return count / 2;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static long intLiteral(ExpressionTree tree) {
+        return TreeUtils.withoutParens(tree) instanceof LiteralTree literal
+                && literal.getValue() instanceof Integer value && value >= 0 ? value : -1;
+    }
+
+    /** The declaration of a variable in a method or lambda, and the identifiers that use it. */
+    private static final class Occurrences extends TreePathScanner<Void, Void> {
+        private final Element element;
+        private final List<TreePath> uses = new ArrayList<>();
+        private VariableTree declaration;
+
+        private Occurrences(Element element) {
+            this.element = element;
+        }
+
+        static Occurrences of(TreePath body, Element element) {
+            Occurrences occurrences = new Occurrences(element);
+            occurrences.scan(body, null);
+            return occurrences;
+        }
+
+        @Override
+        public Void visitVariable(VariableTree tree, Void p) {
+            if (element.equals(TreeUtils.elementFromDeclaration(tree))) {
+                declaration = tree;
+            }
+            return super.visitVariable(tree, p);
+        }
+
+        @Override
+        public Void visitIdentifier(IdentifierTree tree, Void p) {
+            if (element.equals(TreeUtils.elementFromUse(tree))) {
+                uses.add(getCurrentPath());
+            }
+            return super.visitIdentifier(tree, p);
+        }
+
+        @Override
+        public Void visitMemberSelect(MemberSelectTree tree, Void p) {
+            // A field accessed as this.name
+            if (element.getKind() == ElementKind.FIELD && element.equals(TreeUtils.elementFromUse(tree))) {
+                uses.add(getCurrentPath());
+            }
+            return super.visitMemberSelect(tree, p);
+        }
+    }
+
+    /**
+     * Don't check that the constructor result is top. Checking that the super() or this() call is a
+     * subtype of the constructor result is sufficient.
+     * Goal is to prevent "warning: (inconsistent.constructor.type)." messages because @Owned is a subtype of @Borrowed.
+     */
+    @Override
+    protected void checkConstructorResult(
+            AnnotatedTypeMirror.AnnotatedExecutableType constructorType, ExecutableElement constructorElement) {
+    }
+}
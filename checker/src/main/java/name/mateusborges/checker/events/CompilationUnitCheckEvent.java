@@ -0,0 +1,28 @@
+package name.mateusborges.checker.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Checking of one top-level class of a compilation unit: flow analysis of all its methods plus
+ * the visitor pass.
+ */
+@Name("name.mateusborges.hemileia.CompilationUnitCheck")
+@Label("Hemileia Compilation Unit Check")
+@Category("Hemileia")
+@Description("Flow analysis and checking of one top-level class")
+@Enabled(false)
+@StackTrace(false)
+public class CompilationUnitCheckEvent extends Event {
+
+    @Label("Source File")
+    public String sourceFile;
+
+    @Label("Class")
+    public String className;
+}
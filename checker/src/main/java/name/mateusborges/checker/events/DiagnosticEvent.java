@@ -0,0 +1,33 @@
+package name.mateusborges.checker.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * An error or warning reported by the checker.
+ */
+@Name("name.mateusborges.hemileia.Diagnostic")
+@Label("Hemileia Diagnostic")
+@Category("Hemileia")
+@Description("An error or warning reported by the Hemileia checker")
+@Enabled(false)
+@StackTrace(false)
+public class DiagnosticEvent extends Event {
+
+    @Label("Kind")
+    public String kind;
+
+    @Label("Message Key")
+    public String messageKey;
+
+    @Label("Source File")
+    public String sourceFile;
+
+    @Label("Line")
+    public long line;
+}
@@ -0,0 +1,36 @@
+package name.mateusborges.checker.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One block visit of the Hemileia fixpoint. Very frequent; enable it only for short recordings.
+ */
+@Name("name.mateusborges.hemileia.FixpointIteration")
+@Label("Hemileia Fixpoint Iteration")
+@Category("Hemileia")
+@Description("Transfer of one basic block during the dataflow fixpoint")
+@Enabled(false)
+@StackTrace(false)
+public class FixpointIterationEvent extends Event {
+
+    @Label("Method")
+    public String method;
+
+    @Label("Block")
+    public long blockId;
+
+    @Label("Block Type")
+    public String blockType;
+
+    @Label("Iteration")
+    public long iteration;
+
+    @Label("Tracked Variables")
+    public int trackedVariables;
+}
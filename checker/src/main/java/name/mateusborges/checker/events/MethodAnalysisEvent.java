@@ -0,0 +1,38 @@
+package name.mateusborges.checker.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The Hemileia fixpoint of one method, lambda or initializer.
+ */
+@Name("name.mateusborges.hemileia.MethodAnalysis")
+@Label("Hemileia Method Analysis")
+@Category("Hemileia")
+@Description("Dataflow fixpoint of one method, lambda or initializer")
+@Enabled(false)
+@StackTrace(false)
+public class MethodAnalysisEvent extends Event {
+
+    @Label("Method")
+    public String method;
+
+    @Label("Blocks")
+    public int blocks;
+
+    @Label("Iterations")
+    @Description("Block visits until the fixpoint was reached")
+    public long iterations;
+
+    @Label("Tracked Variables")
+    @Description("Most local variables held by a single store")
+    public int trackedVariables;
+
+    @Label("Budget Exceeded")
+    public String exceededLimit;
+}
@@ -0,0 +1,29 @@
+package name.mateusborges.checker.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The visitor checks of one method. Methods of local and anonymous classes inside it produce
+ * their own, nested, events.
+ */
+@Name("name.mateusborges.hemileia.MethodCheck")
+@Label("Hemileia Method Check")
+@Category("Hemileia")
+@Description("Ownership and qualifier checks of one method by the visitor")
+@Enabled(false)
+@StackTrace(false)
+public class MethodCheckEvent extends Event {
+
+    @Label("Method")
+    public String method;
+
+    @Label("Flow-Insensitive")
+    @Description("The method's analysis exceeded its budget, so only flow-insensitive checks ran")
+    public boolean degraded;
+}
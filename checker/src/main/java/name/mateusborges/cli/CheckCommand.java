@@ -0,0 +1,219 @@
+package name.mateusborges.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.Diagnostic;
+
+import name.mateusborges.checker.HemileiaChecker;
+
+/**
+ * The {@code hemileia check} command: checks every {@code .java} file under a set of source
+ * roots with {@link HemileiaChecker}.
+ *
+ * <p>The files are split into shards of roughly equal size and each shard is compiled by its own
+ * in-process {@code JavacTask} on a thread pool (see {@link CheckerRun}). Other shards' files are
+ * visible through the source path, so cross-shard references resolve. Diagnostics of all
+ * shards are merged and printed in file and line order, followed by the time of each shard.
+ * The statistics and copy reports of {@code -Ahemileia.stats} and {@code -Ahemileia.copyReport}
+ * are also merged, and written once for the whole check.
+ */
+public final class CheckCommand {
+
+    private static final String USAGE = """
+            usage: hemileia check [options] <source root>...
+
+            options:
+              --classpath, -cp <path>   classpath of the checked sources
+              --shards <n>              number of parallel javac tasks (default: available processors)
+              -A<key>[=<value>]         checker option, e.g. -Ahemileia.trackedTypes=java.io.Closeable
+            """;
+
+    /** The checker options whose value is a file the checker writes. */
+    private static final List<String> FILE_OPTIONS = List.of(HemileiaChecker.STATS_FILE_OPTION,
+            HemileiaChecker.COPY_REPORT_OPTION);
+
+    private final List<Path> roots = new ArrayList<>();
+    private final List<String> checkerOptions = new ArrayList<>();
+    private String classpath;
+    private int shards = Runtime.getRuntime().availableProcessors();
+
+    private CheckCommand() {
+    }
+
+    /** Returns the usage text of the command. */
+    public static String usage() {
+        return USAGE;
+    }
+
+    /**
+     * Parses and runs the command.
+     *
+     * @param args the command line arguments, without the command name
+     * @param out where diagnostics are printed
+     * @param err where usage errors, shard timings and the summary are printed
+     * @return the process exit code: 0 if no errors were reported, 1 if there were errors,
+     *         2 if the arguments are invalid
+     */
+    public static int main(List<String> args, PrintStream out, PrintStream err)
+            throws IOException, InterruptedException {
+        return main(args, Path.of("").toAbsolutePath(), out, err);
+    }
+
+    /**
+     * Parses and runs the command with relative paths resolved against {@code workingDirectory}
+     * instead of the working directory of this JVM. Used by the daemon, which runs commands on
+     * behalf of clients started elsewhere.
+     *
+     * @see #main(List, PrintStream, PrintStream)
+     */
+    static int main(List<String> args, Path workingDirectory, PrintStream out, PrintStream err)
+            throws IOException, InterruptedException {
+        CheckCommand command;
+        try {
+            command = parse(args, workingDirectory);
+        } catch (IllegalArgumentException e) {
+            err.println("hemileia: " + e.getMessage());
+            err.print(USAGE);
+            return 2;
+        }
+        return command.run(out, err);
+    }
+
+    /**
+     * Parses the arguments that follow {@code check}.
+     *
+     * @param args the command line arguments, without the command name
+     * @param workingDirectory the directory relative source roots, classpath entries and report
+     *        files are resolved against
+     * @return the parsed command
+     * @throws IllegalArgumentException if the arguments are invalid
+     */
+    static CheckCommand parse(List<String> args, Path workingDirectory) {
+        CheckCommand command = new CheckCommand();
+        for (int i = 0; i < args.size(); i++) {
+            String arg = args.get(i);
+            switch (arg) {
+                case "--classpath", "-cp", "-classpath" ->
+                        command.classpath = resolveClasspath(valueOf(args, ++i, arg), workingDirectory);
+                case "--shards" -> {
+                    String value = valueOf(args, ++i, arg);
+                    try {
+                        command.shards = Integer.parseInt(value);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("--shards expects a number, got " + value);
+                    }
+                    if (command.shards <= 0) {
+                        throw new IllegalArgumentException("--shards must be positive, got " + value);
+                    }
+                }
+                default -> {
+                    if (arg.startsWith("-A")) {
+                        command.checkerOptions.add(resolveFileOption(arg, workingDirectory));
+                    } else if (arg.startsWith("-")) {
+                        throw new IllegalArgumentException("unknown option " + arg);
+                    } else {
+                        command.roots.add(workingDirectory.resolve(arg).normalize());
+                    }
+                }
+            }
+        }
+        if (command.roots.isEmpty()) {
+            throw new IllegalArgumentException("no source roots given");
+        }
+        return command;
+    }
+
+    private static String valueOf(List<String> args, int index, String option) {
+        if (index >= args.size()) {
+            throw new IllegalArgumentException(option + " expects a value");
+        }
+        return args.get(index);
+    }
+
+    private static String resolveClasspath(String classpath, Path workingDirectory) {
+        return Stream.of(classpath.split(File.pathSeparator))
+                .map(entry -> entry.isEmpty() ? entry : workingDirectory.resolve(entry).normalize().toString())
+                .collect(Collectors.joining(File.pathSeparator));
+    }
+
+    /** Resolves the value of {@code -Ahemileia.statsFile} and {@code -Ahemileia.copyReport}. */
+    private static String resolveFileOption(String arg, Path workingDirectory) {
+        int equals = arg.indexOf('=');
+        if (equals < 0 || equals == arg.length() - 1 || !FILE_OPTIONS.contains(arg.substring(2, equals))) {
+            return arg;
+        }
+        return arg.substring(0, equals + 1) + workingDirectory.resolve(arg.substring(equals + 1)).normalize();
+    }
+
+    /**
+     * Runs the check and prints diagnostics to {@code out} and shard timings to {@code err}.
+     *
+     * @return the process exit code: 0 if no errors were reported, 1 otherwise
+     */
+    int run(PrintStream out, PrintStream err) throws IOException, InterruptedException {
+        List<Path> files = collectSources();
+        if (files.isEmpty()) {
+            err.println("hemileia: no .java files under " + roots);
+            return 0;
+        }
+        List<List<Path>> partition = CheckerRun.partition(files, Math.min(shards, files.size()));
+        List<HemileiaChecker> checkers = Collections.synchronizedList(new ArrayList<>());
+        List<CheckerRun.Result> results = CheckerRun.compileAll(partition, javacOptions(), () -> {
+            HemileiaChecker checker = new HemileiaChecker();
+            checker.deferReports();
+            checkers.add(checker);
+            return List.of(checker);
+        });
+
+        TreeSet<CheckerRun.Finding> findings = new TreeSet<>();
+        List<String> timings = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            CheckerRun.Result result = results.get(i);
+            findings.addAll(result.findings());
+            timings.add(String.format("shard %d: %d files, %d ms", i + 1, partition.get(i).size(),
+                    result.elapsedNanos() / 1_000_000));
+        }
+
+        findings.forEach(f -> out.println(f.format()));
+        timings.forEach(err::println);
+        HemileiaChecker.writeReports(checkers,
+                (kind, message) -> err.println(kind == Diagnostic.Kind.NOTE ? message : "hemileia: " + message));
+        long errors = findings.stream().filter(f -> f.kind() == Diagnostic.Kind.ERROR).count();
+        long warnings = findings.stream().filter(f -> f.kind() == Diagnostic.Kind.WARNING
+                || f.kind() == Diagnostic.Kind.MANDATORY_WARNING).count();
+        err.printf("hemileia: %d files, %d errors, %d warnings%n", files.size(), errors, warnings);
+        return errors == 0 ? 0 : 1;
+    }
+
+    private List<Path> collectSources() throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path root : roots) {
+            try (Stream<Path> walk = Files.walk(root)) {
+                walk.filter(p -> p.toString().endsWith(".java") && Files.isRegularFile(p)).forEach(files::add);
+            }
+        }
+        return files.stream().distinct().sorted().collect(Collectors.toList());
+    }
+
+    private List<String> javacOptions() {
+        List<String> options = new ArrayList<>();
+        options.add("-sourcepath");
+        options.add(roots.stream().map(Path::toString).collect(Collectors.joining(File.pathSeparator)));
+        if (classpath != null) {
+            options.add("-classpath");
+            options.add(classpath);
+        }
+        options.addAll(checkerOptions);
+        return options;
+    }
+}
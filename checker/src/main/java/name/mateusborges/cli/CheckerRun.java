@@ -0,0 +1,227 @@
+package name.mateusborges.cli;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import javax.annotation.processing.Processor;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import com.sun.source.util.JavacTask;
+
+/**
+ * Compiles a set of source files in-process with a fresh {@link JavacTask} and returns the
+ * diagnostics reported for those files.
+ *
+ * <p>Each run gets its own javac context, file manager and processor instances, so several runs
+ * can execute on different threads at the same time. Class files are discarded.
+ */
+public final class CheckerRun {
+
+    /**
+     * A diagnostic detached from the javac context that produced it. {@code file} is null for
+     * diagnostics that are not tied to a source file, such as invalid checker options. Findings
+     * are ordered by file, line, column, kind and message, consistently with {@code equals}.
+     */
+    public record Finding(Path file, long line, long column, Diagnostic.Kind kind, String message)
+            implements Comparable<Finding> {
+
+        @Override
+        public int compareTo(Finding other) {
+            int byFile = String.valueOf(file).compareTo(String.valueOf(other.file));
+            if (byFile != 0) {
+                return byFile;
+            }
+            int byLine = Long.compare(line, other.line);
+            if (byLine != 0) {
+                return byLine;
+            }
+            int byColumn = Long.compare(column, other.column);
+            if (byColumn != 0) {
+                return byColumn;
+            }
+            int byKind = kind.compareTo(other.kind);
+            return byKind != 0 ? byKind : message.compareTo(other.message);
+        }
+
+        /** Formats the finding the way javac prints it: {@code File.java:12: error: message}. */
+        public String format() {
+            String label = switch (kind) {
+                case ERROR -> "error";
+                case WARNING, MANDATORY_WARNING -> "warning";
+                default -> "note";
+            };
+            return (file == null ? "" : file + ":" + line + ": ") + label + ": " + message;
+        }
+    }
+
+    /** The outcome of one run. */
+    public record Result(List<Finding> findings, long elapsedNanos) {
+
+        public long count(Diagnostic.Kind kind) {
+            return findings.stream().filter(f -> f.kind() == kind).count();
+        }
+    }
+
+    private CheckerRun() {
+    }
+
+    /**
+     * Compiles {@code files} with the given javac options and annotation processors.
+     *
+     * <p>Diagnostics in files that javac pulls in from the source path are dropped; they are
+     * reported by the run that has those files in {@code files}.
+     *
+     * @param files the compilation units to check, as absolute normalized paths
+     * @param options javac options, e.g. {@code -classpath} and {@code -A} checker options
+     * @param processors the processors to run; empty for a plain compilation
+     * @return the diagnostics and the wall-clock time of the compilation
+     * @throws IOException if the file manager cannot be closed
+     */
+    public static Result compile(List<Path> files, List<String> options, List<? extends Processor> processors)
+            throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        long start = System.nanoTime();
+        try (StandardJavaFileManager standard = compiler.getStandardFileManager(diagnostics, Locale.ROOT, null);
+                JavaFileManager fileManager = new DiscardingFileManager(standard)) {
+            List<String> allOptions = new ArrayList<>(options);
+            allOptions.add("-implicit:none");
+            JavacTask task = (JavacTask) compiler.getTask(null, fileManager, diagnostics, allOptions, null,
+                    standard.getJavaFileObjectsFromPaths(files));
+            task.setProcessors(processors);
+            task.call();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Set<Path> checked = new HashSet<>(files);
+        List<Finding> findings = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+            Path source = d.getSource() == null ? null : Path.of(d.getSource().toUri());
+            if (source != null && !checked.contains(source)) {
+                continue;
+            }
+            findings.add(new Finding(source, d.getLineNumber(), d.getColumnNumber(), d.getKind(),
+                    d.getMessage(Locale.ROOT)));
+        }
+        return new Result(findings, elapsed);
+    }
+
+    /**
+     * Compiles every shard with {@link #compile} on its own thread.
+     *
+     * @param shards the files of each run, e.g. from {@link #partition}
+     * @param options javac options shared by all runs
+     * @param processors creates the processors of one run; called once per shard
+     * @return the result of each shard, in the order of {@code shards}
+     * @throws IOException if a file manager cannot be closed
+     * @throws InterruptedException if interrupted while waiting for a shard
+     */
+    public static List<Result> compileAll(List<List<Path>> shards, List<String> options,
+            Supplier<List<? extends Processor>> processors) throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(shards.size());
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (List<Path> shard : shards) {
+                futures.add(pool.submit(() -> compile(shard, options, processors.get())));
+            }
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> future : futures) {
+                results.add(getResult(future));
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Result getResult(Future<Result> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Splits files into {@code count} shards of similar total size, largest files first, for
+     * runs on separate threads. Files in other shards should stay visible through the source path.
+     */
+    public static List<List<Path>> partition(List<Path> files, int count) {
+        List<List<Path>> shards = new ArrayList<>();
+        long[] sizes = new long[count];
+        for (int i = 0; i < count; i++) {
+            shards.add(new ArrayList<>());
+        }
+        List<Path> bySize = new ArrayList<>(files);
+        bySize.sort(Comparator.comparingLong(CheckerRun::sizeOf).reversed().thenComparing(Comparator.naturalOrder()));
+        for (Path file : bySize) {
+            int smallest = 0;
+            for (int i = 1; i < count; i++) {
+                if (sizes[i] < sizes[smallest]) {
+                    smallest = i;
+                }
+            }
+            shards.get(smallest).add(file);
+            sizes[smallest] += sizeOf(file);
+        }
+        return shards;
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Throws away every class file javac writes. */
+    private static final class DiscardingFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+
+        DiscardingFileManager(JavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className,
+                JavaFileObject.Kind kind, FileObject sibling) {
+            return new SimpleJavaFileObject(URI.create("discard:///" + className.replace('.', '/')
+                    + kind.extension), kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    return OutputStream.nullOutputStream();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package name.mateusborges.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import name.mateusborges.checker.HemileiaChecker;
+
+/**
+ * The {@code hemileia daemon} command: keeps a checker JVM alive and runs {@code check} requests
+ * sent by {@link DaemonClient} over a Unix domain socket.
+ *
+ * <p>What a request saves is JVM startup, class loading and linking of javac and the Checker
+ * Framework, and JIT warm-up; the daemon checks a small generated file at startup so the first
+ * request already finds the checker warm. Every request still runs in fresh {@code JavacTask}s
+ * (see {@link CheckerRun}), so no compiler state survives from one request to the next. The
+ * parsed JDK stubs and the type caches are not shared: they hold symbols and trees of the javac
+ * context that created them and would resolve against the wrong classpath in the next request.
+ *
+ * <p>Requests run concurrently, each on its own thread. A stop request closes the socket and
+ * waits for the running requests to finish. The protocol is length-prefixed:
+ * <ul>
+ *   <li>request: {@code writeUTF(command)}, {@code writeUTF(working directory)},
+ *       {@code writeInt(n)} and {@code n} times {@code writeUTF(argument)}; the command is
+ *       {@code check} or {@code stop}</li>
+ *   <li>response: {@code writeInt(exit code)}, then stdout and stderr, each as
+ *       {@code writeInt(length)} followed by that many UTF-8 bytes</li>
+ * </ul>
+ */
+public final class DaemonCommand {
+
+    private static final String USAGE = """
+            usage: hemileia daemon [--socket <path>]
+
+            Runs a checker daemon until it receives a stop request.
+
+            options:
+              --socket <path>           the Unix domain socket to listen on
+                                        (default: hemileia-<user>.sock in the temporary directory)
+            """;
+
+    private static final String WARMUP_SOURCE = """
+            import name.mateusborges.annotations.Borrowed;
+            import name.mateusborges.annotations.Owned;
+
+            class HemileiaWarmup {
+                int run(@Owned StringBuilder owned) {
+                    @Borrowed StringBuilder view = owned;
+                    int total = view.length();
+                    for (int i = 0; i < total; i++) {
+                        total += owned.length();
+                    }
+                    return total;
+                }
+            }
+            """;
+
+    private final Path socket;
+    private final ExecutorService requests = Executors.newCachedThreadPool();
+    private ServerSocketChannel server;
+
+    private DaemonCommand(Path socket) {
+        this.socket = socket;
+    }
+
+    /** Returns the usage text of the command. */
+    public static String usage() {
+        return USAGE;
+    }
+
+    /** Returns the socket used when {@code --socket} is not given. */
+    static Path defaultSocket() {
+        return Path.of(System.getProperty("java.io.tmpdir"), "hemileia-" + System.getProperty("user.name") + ".sock");
+    }
+
+    /**
+     * Parses the arguments and runs the daemon until a stop request arrives.
+     *
+     * @param args the command line arguments, without the command name
+     * @param err where usage errors and the daemon log are printed
+     * @return the process exit code: 0 after a stop request, 1 if the socket cannot be bound,
+     *         2 if the arguments are invalid
+     */
+    public static int main(List<String> args, PrintStream err) throws IOException, InterruptedException {
+        Path socket = defaultSocket();
+        for (int i = 0; i < args.size(); i++) {
+            if (args.get(i).equals("--socket") && i + 1 < args.size()) {
+                socket = Path.of(args.get(++i)).toAbsolutePath();
+            } else {
+                err.println("hemileia: unexpected argument " + args.get(i));
+                err.print(USAGE);
+                return 2;
+            }
+        }
+        return new DaemonCommand(socket).serve(err);
+    }
+
+    private int serve(PrintStream err) throws IOException, InterruptedException {
+        if (Files.exists(socket)) {
+            if (DaemonClient.isAlive(socket)) {
+                err.println("hemileia: a daemon is already listening on " + socket);
+                return 1;
+            }
+            Files.delete(socket);
+        }
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socket));
+        try {
+            err.printf("hemileia: warm-up took %d ms%n", warmUp() / 1_000_000);
+            err.println("hemileia: listening on " + socket);
+            while (true) {
+                SocketChannel client;
+                try {
+                    client = server.accept();
+                } catch (ClosedChannelException e) {
+                    return 0;
+                }
+                requests.execute(() -> handle(client, err));
+            }
+        } finally {
+            // Let running requests send their responses before the JVM exits.
+            requests.shutdown();
+            requests.awaitTermination(10, TimeUnit.MINUTES);
+            server.close();
+            Files.deleteIfExists(socket);
+        }
+    }
+
+    /** Checks a small source once so that the classes of the first request are loaded and compiled. */
+    private static long warmUp() throws IOException {
+        Path dir = Files.createTempDirectory("hemileia-warmup");
+        Path file = dir.resolve("HemileiaWarmup.java");
+        try {
+            Files.writeString(file, WARMUP_SOURCE);
+            return CheckerRun.compile(List.of(file),
+                    List.of("-classpath", System.getProperty("java.class.path")),
+                    List.of(new HemileiaChecker())).elapsedNanos();
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private void handle(SocketChannel client, PrintStream log) {
+        try (client;
+                DataInputStream in = new DataInputStream(Channels.newInputStream(client));
+                DataOutputStream response = new DataOutputStream(Channels.newOutputStream(client))) {
+            String command = in.readUTF();
+            Path workingDirectory = Path.of(in.readUTF());
+            int count = in.readInt();
+            List<String> args = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                args.add(in.readUTF());
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ByteArrayOutputStream err = new ByteArrayOutputStream();
+            int exit;
+            try (PrintStream outStream = new PrintStream(out, true, StandardCharsets.UTF_8);
+                    PrintStream errStream = new PrintStream(err, true, StandardCharsets.UTF_8)) {
+                exit = switch (command) {
+                    case "check" -> CheckCommand.main(args, workingDirectory, outStream, errStream);
+                    case "stop" -> {
+                        server.close();
+                        yield 0;
+                    }
+                    default -> {
+                        errStream.println("hemileia: the daemon does not support " + command);
+                        yield 2;
+                    }
+                };
+            } catch (RuntimeException | IOException e) {
+                // Keep serving other clients; the failure is reported to the one that caused it.
+                err.writeBytes(("hemileia: " + e + "\n").getBytes(StandardCharsets.UTF_8));
+                exit = 1;
+            }
+            response.writeInt(exit);
+            writeBytes(response, out.toByteArray());
+            writeBytes(response, err.toByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.println("hemileia: request failed: " + e);
+        }
+    }
+
+    private static void writeBytes(DataOutputStream response, byte[] bytes) throws IOException {
+        response.writeInt(bytes.length);
+        response.write(bytes);
+    }
+}
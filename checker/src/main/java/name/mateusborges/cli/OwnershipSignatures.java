@@ -0,0 +1,236 @@
+package name.mateusborges.cli;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedArrayType;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.AnnotatedParameterizedType;
+import java.lang.reflect.AnnotatedType;
+import java.lang.reflect.AnnotatedWildcardType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.TypeVariable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Digests the ownership signatures of a classpath entry, so that a build can tell whether
+ * rechecking the code that uses it could give a different result.
+ *
+ * <p>The ownership signature of a class is its non-private API: the names and generic types of
+ * its fields, methods and constructors, its type parameters and supertypes, and every Hemileia
+ * annotation on them. Method bodies, private members and other annotations are left out, so
+ * recompiling a dependency after an edit inside a method does not change its digest.
+ *
+ * <p>Classes are read by reflection through a class loader that does not initialize them. A
+ * class that cannot be loaded or resolved contributes its class file bytes instead, so a digest
+ * changes whenever it is unsure.
+ */
+public final class OwnershipSignatures {
+
+    /** Package of the Hemileia qualifiers; only annotations from it are part of a signature. */
+    private static final String QUALIFIER_PACKAGE = "name.mateusborges.annotations.";
+
+    private OwnershipSignatures() {
+    }
+
+    /**
+     * Digests the ownership signatures of all classes in a directory or jar.
+     *
+     * @param entry a classpath entry
+     * @param loader a class loader that sees {@code entry} and what its classes refer to
+     * @return a hex digest; the same for entries whose classes have the same signatures
+     * @throws IOException if the entry cannot be read
+     */
+    public static String digest(Path entry, ClassLoader loader) throws IOException {
+        MessageDigest digest = sha256();
+        if (Files.isDirectory(entry)) {
+            List<Path> classes;
+            try (Stream<Path> walk = Files.walk(entry)) {
+                classes = walk.filter(p -> p.toString().endsWith(".class") && Files.isRegularFile(p))
+                        .sorted()
+                        .toList();
+            }
+            for (Path file : classes) {
+                String name = entry.relativize(file).toString().replace(entry.getFileSystem().getSeparator(), "/");
+                try (InputStream in = Files.newInputStream(file)) {
+                    update(digest, name, in, loader);
+                }
+            }
+        } else if (Files.isRegularFile(entry)) {
+            try (JarFile jar = new JarFile(entry.toFile())) {
+                List<JarEntry> classes = jar.stream()
+                        .filter(e -> e.getName().endsWith(".class") && !e.getName().startsWith("META-INF/"))
+                        .sorted((a, b) -> a.getName().compareTo(b.getName()))
+                        .toList();
+                for (JarEntry e : classes) {
+                    try (InputStream in = jar.getInputStream(e)) {
+                        update(digest, e.getName(), in, loader);
+                    }
+                }
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Describes the ownership signature of a class, one line per member in a stable order.
+     *
+     * @param type a class
+     * @return the signature, empty for classes outside the API such as anonymous classes
+     */
+    public static String signature(Class<?> type) {
+        if (type.isAnonymousClass() || type.isLocalClass() || type.isSynthetic()
+                || Modifier.isPrivate(type.getModifiers())) {
+            return "";
+        }
+        List<String> lines = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            if (!field.isSynthetic() && !Modifier.isPrivate(field.getModifiers())) {
+                lines.add("field " + qualifiers(field) + render(field.getAnnotatedType()) + " " + field.getName()
+                        + " " + Modifier.toString(field.getModifiers()));
+            }
+        }
+        for (Method method : type.getDeclaredMethods()) {
+            if (!method.isSynthetic() && !Modifier.isPrivate(method.getModifiers())) {
+                lines.add("method " + qualifiers(method) + render(method.getAnnotatedReturnType()) + " "
+                        + method.getName() + parameters(method) + " " + Modifier.toString(method.getModifiers()));
+            }
+        }
+        for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+            if (!constructor.isSynthetic() && !Modifier.isPrivate(constructor.getModifiers())) {
+                lines.add("constructor " + qualifiers(constructor) + parameters(constructor) + " "
+                        + Modifier.toString(constructor.getModifiers()));
+            }
+        }
+        lines.sort(null);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("class ").append(type.getName()).append(' ').append(qualifiers(type))
+                .append(typeParameters(type.getTypeParameters()));
+        if (type.getAnnotatedSuperclass() != null) {
+            sb.append(" extends ").append(render(type.getAnnotatedSuperclass()));
+        }
+        for (AnnotatedType supertype : type.getAnnotatedInterfaces()) {
+            sb.append(" implements ").append(render(supertype));
+        }
+        sb.append('\n');
+        lines.forEach(line -> sb.append("  ").append(line).append('\n'));
+        return sb.toString();
+    }
+
+    private static void update(MessageDigest digest, String file, InputStream in, ClassLoader loader)
+            throws IOException {
+        String name = file.substring(0, file.length() - ".class".length()).replace('/', '.');
+        if (name.endsWith("module-info") || name.endsWith("package-info")) {
+            digest.update(in.readAllBytes());
+            return;
+        }
+        String signature;
+        try {
+            signature = signature(Class.forName(name, false, loader));
+        } catch (ClassNotFoundException | LinkageError | RuntimeException e) {
+            // Missing dependencies, malformed generic signatures: fall back to the bytes.
+            digest.update(name.getBytes(StandardCharsets.UTF_8));
+            digest.update(in.readAllBytes());
+            return;
+        }
+        digest.update(signature.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String parameters(Executable executable) {
+        StringBuilder sb = new StringBuilder(typeParameters(executable.getTypeParameters())).append('(');
+        Parameter[] parameters = executable.getParameters();
+        AnnotatedType[] types = executable.getAnnotatedParameterTypes();
+        // Implicit parameters, such as the outer instance of an inner class constructor, may
+        // have no annotated type.
+        int offset = parameters.length - types.length;
+        for (int i = 0; i < parameters.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(qualifiers(parameters[i]));
+            sb.append(i < offset ? parameters[i].getParameterizedType().getTypeName() : render(types[i - offset]));
+        }
+        sb.append(')');
+        AnnotatedType receiver = executable.getAnnotatedReceiverType();
+        if (receiver != null && !qualifiers(receiver).isEmpty()) {
+            sb.append(" this=").append(render(receiver));
+        }
+        for (AnnotatedType thrown : executable.getAnnotatedExceptionTypes()) {
+            sb.append(" throws ").append(render(thrown));
+        }
+        return sb.toString();
+    }
+
+    private static String typeParameters(TypeVariable<?>[] variables) {
+        if (variables.length == 0) {
+            return "";
+        }
+        return Stream.of(variables)
+                .map(v -> qualifiers(v) + v.getName() + " extends "
+                        + Stream.of(v.getAnnotatedBounds()).map(OwnershipSignatures::render)
+                                .collect(Collectors.joining(" & ")))
+                .collect(Collectors.joining(", ", "<", ">"));
+    }
+
+    /** Renders a type with its Hemileia annotations, and no others. */
+    private static String render(AnnotatedType type) {
+        String qualifiers = qualifiers(type);
+        if (type instanceof AnnotatedArrayType array) {
+            return render(array.getAnnotatedGenericComponentType()) + " " + qualifiers + "[]";
+        }
+        if (type instanceof AnnotatedParameterizedType parameterized) {
+            String raw = ((ParameterizedType) parameterized.getType()).getRawType().getTypeName();
+            return qualifiers + raw + Stream.of(parameterized.getAnnotatedActualTypeArguments())
+                    .map(OwnershipSignatures::render)
+                    .collect(Collectors.joining(", ", "<", ">"));
+        }
+        if (type instanceof AnnotatedWildcardType wildcard) {
+            StringBuilder sb = new StringBuilder(qualifiers).append('?');
+            for (AnnotatedType bound : wildcard.getAnnotatedUpperBounds()) {
+                sb.append(" extends ").append(render(bound));
+            }
+            for (AnnotatedType bound : wildcard.getAnnotatedLowerBounds()) {
+                sb.append(" super ").append(render(bound));
+            }
+            return sb.toString();
+        }
+        // Type variables are rendered by name; their bounds belong to the declaration.
+        return qualifiers + type.getType().getTypeName();
+    }
+
+    private static String qualifiers(AnnotatedElement element) {
+        StringBuilder sb = new StringBuilder();
+        Stream.of(element.getDeclaredAnnotations())
+                .filter(a -> a.annotationType().getName().startsWith(QUALIFIER_PACKAGE))
+                .map(Annotation::toString)
+                .sorted()
+                .forEach(a -> sb.append(a).append(' '));
+        return sb.toString();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
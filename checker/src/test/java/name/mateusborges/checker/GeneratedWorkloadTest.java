@@ -0,0 +1,46 @@
+package name.mateusborges.checker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+import name.mateusborges.workload.WorkloadGenerator;
+import name.mateusborges.workload.WorkloadSpec;
+
+/**
+ * Runs the HemileiaChecker on a workload generated by {@link WorkloadGenerator}, with
+ * expected-error markers. The sources are regenerated into {@code tests/generated} on every
+ * run; that directory is not checked in.
+ */
+public class GeneratedWorkloadTest extends CheckerFrameworkPerDirectoryTest {
+
+    /** Big enough to touch every pattern several times, small enough for the regular test run. */
+    private static final WorkloadSpec SPEC = WorkloadSpec.defaults().with(List.of("classes=2", "errors=true"));
+
+    public GeneratedWorkloadTest(List<File> testFiles) {
+        super(
+            testFiles,
+            HemileiaChecker.class,
+            "hemileia",
+            "-Anomsgtext"
+        );
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        // The runner lists the directory right after this call, so generate it here.
+        try {
+            new WorkloadGenerator(SPEC).writeTo(Path.of("tests", "generated"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new String[] {
+                "generated"
+        };
+    }
+}
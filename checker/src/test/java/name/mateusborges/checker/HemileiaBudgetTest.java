@@ -0,0 +1,31 @@
+package name.mateusborges.checker;
+
+import java.io.File;
+import java.util.List;
+
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Runs the HemileiaChecker with a small per-method block budget, so that large methods fall
+ * back to flow-insensitive checking and are reported with a warning.
+ */
+public class HemileiaBudgetTest extends CheckerFrameworkPerDirectoryTest {
+
+    public HemileiaBudgetTest(List<File> testFiles) {
+        super(
+            testFiles,
+            HemileiaChecker.class,
+            "hemileia",
+            "-Anomsgtext",
+            "-A" + HemileiaChecker.BUDGET_BLOCKS_OPTION + "=40"
+        );
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {
+                "budget"
+        };
+    }
+}
@@ -21,6 +21,8 @@ import org.junit.runners.Parameterized.Parameters;
  * <ul>
  *   <li>An expected error is not reported</li>
  *   <li>An unexpected error is reported</li>
+ *   <li>A method in the JDK stubs does not exist in the JDK running the test, e.g. a
+ *       {@code java.lang.foreign} method that was renamed after its preview</li>
  * </ul>
  */
 public class HemileiaCheckerTest extends CheckerFrameworkPerDirectoryTest {
@@ -30,7 +32,8 @@ public class HemileiaCheckerTest extends CheckerFrameworkPerDirectoryTest {
             testFiles,
             HemileiaChecker.class,
             "hemileia",
-            "-Anomsgtext"  // Suppress additional message text for cleaner comparison
+            "-Anomsgtext",  // Suppress additional message text for cleaner comparison
+            "-AstubWarnIfNotFound"  // Report stub methods that this JDK does not have
 //                "-Afilenames", // Print filename before typechecking it
 //                "-Aflowdotdir=dotdir", // print CFG in dot format
 //                "-Averbosecfg" // print more stuff in the cfg dot file
@@ -40,7 +43,8 @@ public class HemileiaCheckerTest extends CheckerFrameworkPerDirectoryTest {
     @Parameters
     public static String[] getTestDirs() {
         return new String[] {
-                "basictests"
+                "basictests",
+                "ffm"
         };
     }
 }
@@ -0,0 +1,188 @@
+package name.mateusborges.checker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.tools.Diagnostic;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import name.mateusborges.cli.CheckerRun;
+
+/**
+ * Checks which copies {@code -Ahemileia.copyReport} lists as removable, and the JSON it writes.
+ */
+public class HemileiaCopyReportTest {
+
+    private static final Pattern ENTRY = Pattern.compile(
+            "\"line\": (\\d+), .*\"reason\": \"([a-z-]+)\", \"estimatedElements\": (\\w+), \"estimatedBytes\": (\\w+)");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void listsCopiesOfDeadOrOnlyBorrowedSources() throws IOException {
+        Map<Long, String> copies = report("""
+                import java.util.*;
+                import name.mateusborges.annotations.Borrowed;
+
+                class Copies {
+                    private List<String> names;
+
+                    void store(List<String> names) {
+                        this.names = new ArrayList<>(names);
+                    }
+
+                    byte[] keepUsing(byte[] data) {
+                        byte[] copy = data.clone();
+                        data[0] = 1;
+                        return copy;
+                    }
+
+                    byte[] doubled() {
+                        byte[] values = {1, 2, 3, 4};
+                        return values.clone();
+                    }
+
+                    byte[] whole(byte[] data) {
+                        return Arrays.copyOf(data, data.length);
+                    }
+
+                    byte[] inLoop(byte[] data) {
+                        byte[] last = null;
+                        for (int i = 0; i < 3; i++) {
+                            last = data.clone();
+                        }
+                        return last;
+                    }
+
+                    byte[] reassigned(byte[] data) {
+                        byte[] first = data.clone();
+                        data = new byte[4];
+                        data[0] = 1;
+                        return first;
+                    }
+
+                    int wrapped() {
+                        Set<String> tags = new HashSet<>();
+                        Set<String> view = Collections.unmodifiableSet(tags);
+                        return count(view) + count(view);
+                    }
+
+                    Set<String> wrapperEscapes(Set<String> tags) {
+                        return Collections.unmodifiableSet(tags);
+                    }
+
+                    int snapshot(byte[] data) {
+                        byte[] view = data.clone();
+                        int sum = 0;
+                        for (int i = 0; i < 3; i++) {
+                            sum += peek(view);
+                            data[0]++;
+                        }
+                        return sum;
+                    }
+
+                    static int count(@Borrowed Set<String> set) {
+                        return 1;
+                    }
+
+                    static int peek(byte @Borrowed [] bytes) {
+                        return bytes[0];
+                    }
+                }
+                """);
+        Map<Long, String> expected = new TreeMap<>(Map.of(
+                8L, "source-dead null null",
+                19L, "source-dead 4 24",
+                23L, "source-dead null null",
+                35L, "source-dead null null",
+                43L, "borrowed-only 0 16"));
+        assertEquals(expected, copies);
+    }
+
+    @Test
+    public void skipsCopiesThatChangeTheValue() throws IOException {
+        Map<Long, String> copies = report("""
+                import java.util.*;
+
+                class Changes {
+                    Set<String> dedup(List<String> names) {
+                        return new HashSet<>(names);
+                    }
+
+                    Map<String, Integer> reorder(HashMap<String, Integer> counts) {
+                        return new TreeMap<>(counts);
+                    }
+
+                    byte[] resize(byte[] data) {
+                        return Arrays.copyOf(data, data.length * 2);
+                    }
+
+                    byte[] subrange(byte[] data) {
+                        return Arrays.copyOfRange(data, 1, 3);
+                    }
+
+                    int extend() {
+                        List<String> names = List.of("a", "b");
+                        List<String> copy = new ArrayList<>(names);
+                        copy.add("c");
+                        return copy.size();
+                    }
+
+                    Set<String> sameKind(HashSet<String> names) {
+                        return new LinkedHashSet<>(names);
+                    }
+
+                    byte[] wholeRange(byte[] data) {
+                        return Arrays.copyOfRange(data, 0, data.length);
+                    }
+                }
+                """);
+        assertEquals(Map.of(
+                28L, "source-dead null null",
+                32L, "source-dead null null"), copies);
+    }
+
+    @Test
+    public void jsonIsEmptyWithoutCopies() throws IOException {
+        assertEquals(Map.of(), report("""
+                class NoCopies {
+                    int length(byte[] data) {
+                        return data.length;
+                    }
+                }
+                """));
+        assertTrue(Files.readString(directory.resolve("copies.json")).contains("\"copies\": []"));
+    }
+
+    /** Checks a source with the option and returns reason, elements and bytes by line. */
+    private Map<Long, String> report(String source) throws IOException {
+        Path file = directory.resolve(Pattern.compile("class (\\w+)").matcher(source).results()
+                .findFirst().orElseThrow().group(1) + ".java");
+        Files.writeString(file, source);
+        Path json = directory.resolve("copies.json");
+        List<String> options = List.of("-classpath", System.getProperty("java.class.path"), "-Anomsgtext",
+                "-A" + HemileiaChecker.COPY_REPORT_OPTION + "=" + json);
+        CheckerRun.Result result = CheckerRun.compile(List.of(file), options, List.of(new HemileiaChecker()));
+        assertEquals(0, result.count(Diagnostic.Kind.ERROR), result.findings().toString());
+
+        Map<Long, String> copies = new TreeMap<>();
+        Matcher matcher = ENTRY.matcher(Files.readString(json));
+        while (matcher.find()) {
+            copies.put(Long.parseLong(matcher.group(1)),
+                    matcher.group(2) + " " + matcher.group(3) + " " + matcher.group(4));
+        }
+        return copies;
+    }
+}
@@ -0,0 +1,136 @@
+package name.mateusborges.checker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import name.mateusborges.cli.CheckerRun;
+
+/**
+ * Checks which methods {@code -Ahemileia.changedLines} rechecks: the edited ones, and the callers
+ * of a method whose signature was edited, each in the file the lines belong to.
+ */
+public class HemileiaEditScopeTest {
+
+    @TempDir
+    Path sources;
+
+    private Path edited;
+
+    private Path other;
+
+    @BeforeEach
+    public void writeSource() throws IOException {
+        edited = sources.resolve("Edited.java");
+        Files.writeString(edited, """
+                import name.mateusborges.annotations.Owned;
+
+                class Edited {
+                    void consume(@Owned StringBuilder sb) {
+                    }
+
+                    void first() {
+                        @Owned StringBuilder sb = new StringBuilder();
+                        consume(sb);
+                        sb.append("x");
+                    }
+
+                    void second() {
+                        @Owned StringBuilder sb = new StringBuilder();
+                        consume(sb);
+                        sb.append("y");
+                    }
+
+                    void unrelated() {
+                        @Owned StringBuilder sb = new StringBuilder();
+                        @Owned StringBuilder other = sb;
+                        sb.append("z");
+                    }
+                }
+                """);
+        other = sources.resolve("Other.java");
+        Files.writeString(other, """
+                import name.mateusborges.annotations.Owned;
+
+                class Other {
+                    void moved() {
+                        @Owned StringBuilder sb = new StringBuilder();
+                        @Owned StringBuilder other = sb;
+                        sb.append("o");
+                    }
+                }
+                """);
+    }
+
+    @Test
+    public void withoutChangedLinesEveryMethodIsChecked() throws IOException {
+        assertEquals(Set.of(10L, 16L, 22L), errorLines(null));
+    }
+
+    @Test
+    public void editedMethodsAreRechecked() throws IOException {
+        assertEquals(Set.of(10L), errorLines("10"));
+        assertEquals(Set.of(16L, 22L), errorLines("14-15,20"));
+    }
+
+    @Test
+    public void editedSignatureRechecksCallers() throws IOException {
+        assertEquals(Set.of(10L, 16L), errorLines("4"));
+    }
+
+    @Test
+    public void editedBodyDoesNotRecheckCallers() throws IOException {
+        assertEquals(Set.of(), errorLines("5"));
+    }
+
+    @Test
+    public void linesWithAFileOnlyRecheckThatFile() throws IOException {
+        assertEquals(Set.of("Edited.java:10", "Other.java:7"),
+                errors(List.of(edited, other), "Edited.java:10,Other.java:5-6"));
+        assertEquals(Set.of("Edited.java:16", "Edited.java:22"),
+                errors(List.of(edited, other), "Edited.java:14-15,20"));
+        assertEquals(Set.of("Other.java:7"), errors(List.of(edited, other), other + ":7"));
+    }
+
+    @Test
+    public void linesWithoutAFileNeedASingleFile() throws IOException {
+        List<CheckerRun.Finding> findings = findings(List.of(edited, other), "10");
+        assertTrue(findings.stream().anyMatch(f -> f.message().contains("more than one file is checked")),
+                findings.toString());
+    }
+
+    private Set<Long> errorLines(String changedLines) throws IOException {
+        return errors(List.of(edited), changedLines).stream()
+                .map(error -> Long.valueOf(error.substring(error.indexOf(':') + 1)))
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    /** Returns the use-after-move errors as {@code File.java:line}. */
+    private static Set<String> errors(List<Path> files, String changedLines) throws IOException {
+        return findings(files, changedLines).stream()
+                .filter(f -> f.message().contains("use.after.move"))
+                .map(f -> f.file().getFileName() + ":" + f.line())
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static List<CheckerRun.Finding> findings(List<Path> files, String changedLines) throws IOException {
+        List<String> options = new ArrayList<>(List.of(
+                "-classpath", System.getProperty("java.class.path"), "-Anomsgtext"));
+        if (changedLines != null) {
+            options.add("-A" + HemileiaChecker.CHANGED_LINES_OPTION + "=" + changedLines);
+        }
+        return CheckerRun.compile(files, options, List.of(new HemileiaChecker())).findings();
+    }
+}
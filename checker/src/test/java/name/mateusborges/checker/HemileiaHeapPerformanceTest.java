@@ -0,0 +1,101 @@
+package name.mateusborges.checker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import name.mateusborges.workload.WorkloadGenerator;
+import name.mateusborges.workload.WorkloadSpec;
+
+/**
+ * Measures the peak live heap of checking one large generated class with and without
+ * {@code -Ahemileia.releaseMethodResults}.
+ *
+ * <p>Each run is a separate JVM with the serial collector and a small young generation, so
+ * that collections are frequent and the heap left after the largest one is close to the peak
+ * live set. The option must lower it by at least {@link #MIN_REDUCTION}; it cannot bound it,
+ * because the fixpoint of the whole class is still computed before the first method is checked.
+ *
+ * <p>Runs only in the {@code perf} Maven profile: {@code mvn test -Pperf}.
+ */
+public class HemileiaHeapPerformanceTest {
+
+    /** About 10,000 lines in a single top-level class. */
+    private static final List<String> WORKLOAD = List.of("classes=1", "methods=185");
+
+    private static final double MIN_REDUCTION = 0.10;
+
+    /** The heap in use after a collection, in a {@code -Xlog:gc} line such as {@code 30M->20M(64M)}. */
+    private static final Pattern AFTER_GC = Pattern.compile("\\d+M->(\\d+)M\\(");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void releasingMethodResultsLowersPeakHeap() throws IOException, InterruptedException {
+        Path file = new WorkloadGenerator(WorkloadSpec.defaults().with(WORKLOAD)).writeTo(directory).get(0);
+        long kept = peakLiveMegabytes(file, "kept");
+        long released = peakLiveMegabytes(file, "released",
+                "-A" + HemileiaChecker.RELEASE_METHOD_RESULTS_OPTION);
+        System.out.printf("heap %d lines: peak live %d MB, %d MB with -A%s%n",
+                Files.readAllLines(file).size(), kept, released, HemileiaChecker.RELEASE_METHOD_RESULTS_OPTION);
+        assertTrue(released <= kept * (1 - MIN_REDUCTION), () -> String.format(
+                "peak live heap %d MB with the option, %d MB without", released, kept));
+    }
+
+    /** Checks the file in a new JVM and returns the largest heap in use after a collection. */
+    private long peakLiveMegabytes(Path file, String name, String... options)
+            throws IOException, InterruptedException {
+        Path gcLog = directory.resolve(name + "-gc.log");
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        // The checker needs the same access to javac internals as this JVM
+        List<String> arguments = ManagementFactory.getRuntimeMXBean().getInputArguments();
+        for (int i = 0; i < arguments.size(); i++) {
+            String argument = arguments.get(i);
+            if (argument.equals("--add-exports") || argument.equals("--add-opens")) {
+                command.add(argument);
+                command.add(arguments.get(++i));
+            } else if (argument.startsWith("--add-exports=") || argument.startsWith("--add-opens=")) {
+                command.add(argument);
+            }
+        }
+        command.addAll(List.of("-XX:+UseSerialGC", "-Xmn16m", "-Xlog:gc:file=" + gcLog,
+                "-cp", System.getProperty("java.class.path"), "com.sun.tools.javac.Main",
+                "-proc:only", "-processor", HemileiaChecker.class.getName(),
+                "-classpath", System.getProperty("java.class.path")));
+        command.addAll(List.of(options));
+        command.add(file.toString());
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(directory.resolve(name + ".out").toFile())
+                .start();
+        assertEquals(0, process.waitFor(), () -> "checking failed: " + read(directory.resolve(name + ".out")));
+
+        long peak = 0;
+        Matcher matcher = AFTER_GC.matcher(Files.readString(gcLog));
+        while (matcher.find()) {
+            peak = Math.max(peak, Long.parseLong(matcher.group(1)));
+        }
+        return peak;
+    }
+
+    private static String read(Path file) {
+        try {
+            return Files.readString(file);
+        } catch (IOException e) {
+            return e.toString();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package name.mateusborges.checker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import javax.tools.Diagnostic;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DynamicContainer;
+import org.junit.jupiter.api.DynamicNode;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+import name.mateusborges.cli.CheckerRun;
+
+/**
+ * Runs the checker test directories in parallel: the same files, options and
+ * {@code // :: error: (key)} expectations as {@link HemileiaCheckerTest},
+ * {@link HemileiaBudgetTest} and {@link HemileiaScopedTrackingTest}, which compile each directory
+ * serially in one javac run.
+ *
+ * <p>The files of every directory are split into shards (see {@link CheckerRun#partition}) that
+ * are compiled in-process on one thread pool, with the directory on the source path so files can
+ * refer to each other. All shards run in this JVM, so they share its loaded and compiled checker
+ * and javac classes; only the javac context is new for each shard. Each file becomes its own
+ * test, which fails if a diagnostic is missing or unexpected, or is reported more or fewer times
+ * than it is expected.
+ *
+ * <p>Run with {@code mvn test -Pparallel-tests}, which runs this class instead of the serial
+ * directory tests. {@code -Dhemileia.test.threads=N} sets the pool size (default: available
+ * processors).
+ */
+public class HemileiaParallelCheckerTest {
+
+    /** A test directory and the checker options it is run with. */
+    private record TestDirectory(String name, List<String> options) {
+    }
+
+    private static final List<TestDirectory> DIRECTORIES = List.of(
+            new TestDirectory("basictests", List.of()),
+            new TestDirectory("ffm", List.of()),
+            new TestDirectory("budget", List.of("-A" + HemileiaChecker.BUDGET_BLOCKS_OPTION + "=40")),
+            new TestDirectory("scopedtracking",
+                    List.of("-A" + HemileiaChecker.TRACKED_TYPES_OPTION + "=java.lang.StringBuilder,java.io.Closeable")),
+            new TestDirectory("structured", List.of("--enable-preview", "--release", "25")));
+
+    /** An expected diagnostic: {@code // :: error: (key)}, possibly several separated by {@code ::}. */
+    private static final Pattern EXPECTED = Pattern.compile("(error|warning):\\s*(.*?)\\s*(?=::|$)");
+
+    private static final int THREADS =
+            Integer.getInteger("hemileia.test.threads", Runtime.getRuntime().availableProcessors());
+
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(THREADS);
+
+    @AfterAll
+    static void shutdown() {
+        POOL.shutdownNow();
+    }
+
+    @TestFactory
+    public List<DynamicNode> checkTestDirectories() throws IOException {
+        List<DynamicNode> containers = new ArrayList<>();
+        for (TestDirectory directory : DIRECTORIES) {
+            Path root = Path.of("tests", directory.name()).toAbsolutePath().normalize();
+            List<Path> files = sources(root);
+            List<String> options = new ArrayList<>(List.of(
+                    "-classpath", System.getProperty("java.class.path"),
+                    "-sourcepath", root.toString(),
+                    "-Anomsgtext"));
+            options.addAll(directory.options());
+
+            // Every shard of every directory is submitted before the first test waits on one.
+            Map<Path, Future<CheckerRun.Result>> resultOf = new TreeMap<>();
+            for (List<Path> shard : CheckerRun.partition(files, Math.min(THREADS, files.size()))) {
+                Future<CheckerRun.Result> result = POOL.submit(
+                        () -> CheckerRun.compile(shard, options, List.of(new HemileiaChecker())));
+                shard.forEach(file -> resultOf.put(file, result));
+            }
+
+            List<DynamicTest> tests = new ArrayList<>();
+            for (Path file : files) {
+                tests.add(DynamicTest.dynamicTest(root.relativize(file).toString(), file.toUri(),
+                        () -> assertEquals(expected(file), actual(file, resultOf.get(file)),
+                                "diagnostics of " + file)));
+            }
+            containers.add(DynamicContainer.dynamicContainer(directory.name(), tests));
+        }
+        return containers;
+    }
+
+    /**
+     * Reads the expected diagnostics of a test file. A {@code // :: } comment line applies to
+     * the next line that is neither blank nor a comment, like in the Checker Framework test
+     * harness; commented-out expectations ({@code // // :: ...}) are ignored.
+     */
+    private static List<String> expected(Path file) throws IOException {
+        List<String> expected = new ArrayList<>();
+        List<String> pending = new ArrayList<>();
+        List<String> lines = Files.readAllLines(file);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.startsWith("// ::")) {
+                Matcher m = EXPECTED.matcher(line.substring("// ::".length()));
+                while (m.find()) {
+                    pending.add(m.group(1) + ": " + m.group(2));
+                }
+            } else if (!line.isEmpty() && !line.startsWith("//")) {
+                for (String diagnostic : pending) {
+                    expected.add((i + 1) + ": " + diagnostic);
+                }
+                pending.clear();
+            }
+        }
+        Collections.sort(expected);
+        return expected;
+    }
+
+    private static List<String> actual(Path file, Future<CheckerRun.Result> result)
+            throws InterruptedException, ExecutionException {
+        List<String> actual = new ArrayList<>();
+        for (CheckerRun.Finding finding : result.get().findings()) {
+            // Diagnostics without a file, such as invalid options, fail every file of the shard.
+            if (finding.file() != null && !file.equals(finding.file()) || finding.kind() == Diagnostic.Kind.NOTE) {
+                continue;
+            }
+            String kind = finding.kind() == Diagnostic.Kind.ERROR ? "error" : "warning";
+            actual.add(finding.line() + ": " + kind + ": " + finding.message().trim());
+        }
+        Collections.sort(actual);
+        return actual;
+    }
+
+    private static List<Path> sources(Path dir) throws IOException {
+        try (Stream<Path> walk = Files.walk(dir)) {
+            return walk.filter(p -> p.toString().endsWith(".java")).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package name.mateusborges.checker;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import javax.tools.Diagnostic;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import name.mateusborges.cli.CheckerRun;
+import name.mateusborges.workload.WorkloadGenerator;
+import name.mateusborges.workload.WorkloadSpec;
+
+/**
+ * Performance regression gate: checks generated workloads and compares the checker's work
+ * against {@code tests/perf/baseline.properties}.
+ *
+ * <p>The gate uses the deterministic counters of {@code -Ahemileia.stats} (block visits, store
+ * copies, merges, type lookups) with a tight tolerance, and the bytes allocated by the
+ * compiling thread with a looser one. Wall-clock time is printed but not gated. Metrics without
+ * a baseline entry are skipped.
+ *
+ * <p>Runs only in the {@code perf} Maven profile: {@code mvn test -Pperf}. After an intended
+ * change, refresh the baseline with {@code -Dhemileia.perf.updateBaseline=true} and commit it.
+ */
+public class HemileiaPerformanceTest {
+
+    private static final Path BASELINE = Path.of("tests", "perf", "baseline.properties");
+
+    /** Counters that only change when the checker does different work. */
+    private static final List<String> COUNTERS = List.of(
+            "graphs", "blockVisits", "leastUpperBounds", "widenings", "storeCopies", "typeLookups");
+
+    private static final double COUNTER_TOLERANCE = 0.05;
+    private static final double ALLOCATION_TOLERANCE = 0.25;
+
+    private static final Pattern JSON_NUMBER = Pattern.compile("^  \"(\\w+)\": (\\d+),?$", Pattern.MULTILINE);
+
+    private static final Properties baseline = new Properties();
+    private static final Map<String, Long> measured = new LinkedHashMap<>();
+
+    static Stream<Object[]> workloads() {
+        return Stream.of(
+                new Object[] {"medium", List.of("classes=2", "methods=20")},
+                new Object[] {"wide", List.of("methods=5", "ownedLocals=32", "borrows=2", "switchCases=64")},
+                new Object[] {"deep", List.of("methods=5", "loopDepth=6", "tryFinally=6", "callChain=32")});
+    }
+
+    @BeforeAll
+    static void loadBaseline() throws IOException {
+        if (Files.exists(BASELINE)) {
+            try (Reader reader = Files.newBufferedReader(BASELINE)) {
+                baseline.load(reader);
+            }
+        }
+    }
+
+    @AfterAll
+    static void updateBaseline() throws IOException {
+        if (!Boolean.getBoolean("hemileia.perf.updateBaseline")) {
+            return;
+        }
+        Map<String, String> updated = new TreeMap<>();
+        baseline.forEach((key, value) -> updated.put((String) key, (String) value));
+        measured.forEach((key, value) -> updated.put(key, Long.toString(value)));
+        StringBuilder text = new StringBuilder(
+                "# Hemileia performance baseline, see HemileiaPerformanceTest.\n"
+                + "# Regenerate with: mvn test -Pperf -Dhemileia.perf.updateBaseline=true\n"
+                + "# Measured on Java " + System.getProperty("java.version")
+                + "; allocatedBytes depends on the JDK, so regenerate after changing it.\n");
+        updated.forEach((key, value) -> text.append(key).append('=').append(value).append('\n'));
+        Files.createDirectories(BASELINE.getParent());
+        Files.writeString(BASELINE, text);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("workloads")
+    public void checkerWorkStaysWithinBaseline(String name, List<String> spec) throws IOException {
+        Path dir = Files.createTempDirectory("hemileia-perf-" + name);
+        Path statsFile = dir.resolve("stats.json");
+        List<Path> files = new ArrayList<>();
+        for (Path file : new WorkloadGenerator(WorkloadSpec.defaults().with(spec)).writeTo(dir)) {
+            files.add(file.toAbsolutePath().normalize());
+        }
+
+        List<String> options = List.of(
+                "-classpath", System.getProperty("java.class.path"),
+                "-A" + HemileiaChecker.STATS_OPTION,
+                "-A" + HemileiaChecker.STATS_FILE_OPTION + "=" + statsFile);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        CheckerRun.Result result = CheckerRun.compile(files, options, List.of(new HemileiaChecker()));
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        assertTrue(result.findings().stream().noneMatch(f -> f.kind() == Diagnostic.Kind.ERROR),
+                () -> "generated workload " + name + " does not check cleanly: " + result.findings());
+
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        Matcher matcher = JSON_NUMBER.matcher(Files.readString(statsFile));
+        while (matcher.find()) {
+            if (COUNTERS.contains(matcher.group(1))) {
+                metrics.put(matcher.group(1), Long.parseLong(matcher.group(2)));
+            }
+        }
+        metrics.put("allocatedBytes", allocated);
+        System.out.printf("perf %s: %d ms, %s%n", name, result.elapsedNanos() / 1_000_000, metrics);
+
+        List<String> regressions = new ArrayList<>();
+        boolean compared = false;
+        for (Map.Entry<String, Long> metric : metrics.entrySet()) {
+            String key = name + "." + metric.getKey();
+            measured.put(key, metric.getValue());
+            String expected = baseline.getProperty(key);
+            if (expected == null) {
+                continue;
+            }
+            compared = true;
+            double tolerance = metric.getKey().equals("allocatedBytes") ? ALLOCATION_TOLERANCE : COUNTER_TOLERANCE;
+            long limit = (long) Math.ceil(Long.parseLong(expected) * (1 + tolerance));
+            if (metric.getValue() > limit) {
+                regressions.add(String.format("%s = %d, baseline %s (limit %d)", key, metric.getValue(), expected, limit));
+            }
+        }
+        assumeTrue(compared, () -> "no baseline for workload " + name);
+        assertTrue(regressions.isEmpty(), () -> "checker regressed on " + name + ":\n  "
+                + String.join("\n  ", regressions));
+    }
+}
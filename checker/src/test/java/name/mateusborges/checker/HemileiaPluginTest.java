@@ -0,0 +1,76 @@
+package name.mateusborges.checker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.source.util.JavacTask;
+
+import name.mateusborges.cli.CheckerRun;
+
+/**
+ * Checks that {@link HemileiaPlugin} reports the same diagnostics as the annotation processor.
+ */
+public class HemileiaPluginTest {
+
+    @TempDir
+    Path output;
+
+    @Test
+    public void pluginReportsTheSameDiagnosticsAsTheProcessor() throws IOException {
+        List<Path> files = sources(Path.of("tests", "basictests"));
+        List<String> options = List.of("-classpath", System.getProperty("java.class.path"));
+
+        Set<String> expected = CheckerRun.compile(files, options, List.of(new HemileiaChecker())).findings()
+                .stream()
+                .map(f -> f.file().getFileName() + ":" + f.line() + ": " + f.message())
+                .collect(Collectors.toCollection(TreeSet::new));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, null)) {
+            fileManager.setLocationFromPaths(StandardLocation.CLASS_OUTPUT, List.of(output));
+            JavacTask task = (JavacTask) compiler.getTask(new PrintWriter(OutputStream.nullOutputStream()),
+                    fileManager, diagnostics, options, null, fileManager.getJavaFileObjectsFromPaths(files));
+            new HemileiaPlugin().init(task);
+            task.call();
+        }
+        Set<String> actual = diagnostics.getDiagnostics().stream()
+                .map(d -> Path.of(d.getSource().toUri()).getFileName() + ":" + d.getLineNumber() + ": "
+                        + d.getMessage(Locale.ROOT))
+                .collect(Collectors.toCollection(TreeSet::new));
+
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, actual);
+    }
+
+    private static List<Path> sources(Path dir) throws IOException {
+        try (Stream<Path> walk = Files.walk(dir)) {
+            return walk.filter(p -> p.toString().endsWith(".java"))
+                    .map(p -> p.toAbsolutePath().normalize())
+                    .sorted()
+                    .toList();
+        }
+    }
+}
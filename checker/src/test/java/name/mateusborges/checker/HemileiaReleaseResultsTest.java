@@ -0,0 +1,31 @@
+package name.mateusborges.checker;
+
+import java.io.File;
+import java.util.List;
+
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Runs the basic tests with per-method release of flow results, which must not change the
+ * reported diagnostics.
+ */
+public class HemileiaReleaseResultsTest extends CheckerFrameworkPerDirectoryTest {
+
+    public HemileiaReleaseResultsTest(List<File> testFiles) {
+        super(
+            testFiles,
+            HemileiaChecker.class,
+            "hemileia",
+            "-Anomsgtext",
+            "-A" + HemileiaChecker.RELEASE_METHOD_RESULTS_OPTION
+        );
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {
+                "basictests"
+        };
+    }
+}
@@ -0,0 +1,31 @@
+package name.mateusborges.checker;
+
+import java.io.File;
+import java.util.List;
+
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Runs the HemileiaChecker with {@code -Ahemileia.trackedTypes}, so that only the
+ * listed types (and qualifier-annotated declarations) have their ownership tracked.
+ */
+public class HemileiaScopedTrackingTest extends CheckerFrameworkPerDirectoryTest {
+
+    public HemileiaScopedTrackingTest(List<File> testFiles) {
+        super(
+            testFiles,
+            HemileiaChecker.class,
+            "hemileia",
+            "-Anomsgtext",
+            "-A" + HemileiaChecker.TRACKED_TYPES_OPTION + "=java.lang.StringBuilder,java.io.Closeable"
+        );
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {
+                "scopedtracking"
+        };
+    }
+}
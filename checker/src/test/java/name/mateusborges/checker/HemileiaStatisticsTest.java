@@ -0,0 +1,67 @@
+package name.mateusborges.checker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import name.mateusborges.cli.CheckerRun;
+
+/**
+ * Tests the aggregation and formatting of {@link HemileiaStatistics}, and its options.
+ */
+public class HemileiaStatisticsTest {
+
+    @Test
+    public void slowestMethodsAddAnalysisAndVisitorTime() {
+        HemileiaStatistics statistics = new HemileiaStatistics();
+        statistics.addFixpoint("A.fast()", 10, 3, 3);
+        statistics.addFixpoint("B.slow()", 50, 9, 7);
+        statistics.addVisit("A.fast()", 100);
+        statistics.addFixpoint("C.lambda$lambda", 5, 1, 1);
+
+        List<String> names = statistics.slowestMethods(2).stream()
+                .map(HemileiaStatistics.MethodStatistics::name)
+                .toList();
+        assertEquals(List.of("A.fast()", "B.slow()"), names);
+    }
+
+    @Test
+    public void jsonContainsTotalsAndEscapedNames() {
+        HemileiaStatistics statistics = new HemileiaStatistics();
+        statistics.addAnalyze(1_000);
+        statistics.addFixpoint("A.m(\"x\")", 400, 4, 2);
+        statistics.addMerge(100, false);
+        statistics.addMerge(50, true);
+        statistics.countStoreCopy();
+        statistics.countTypeLookup();
+
+        String json = statistics.toJson(10);
+        assertTrue(json.contains("\"cfgConstructionNanos\": 600"), json);
+        assertTrue(json.contains("\"transferNanos\": 250"), json);
+        assertTrue(json.contains("\"leastUpperBounds\": 1"), json);
+        assertTrue(json.contains("\"widenings\": 1"), json);
+        assertTrue(json.contains("\"name\": \"A.m(\\\"x\\\")\""), json);
+    }
+
+    @Test
+    public void statsTopMustBePositive(@TempDir Path directory) throws IOException {
+        Path source = Files.writeString(directory.resolve("Empty.java"), "class Empty {}");
+        for (String top : List.of("0", "-1")) {
+            List<CheckerRun.Finding> findings = CheckerRun.compile(List.of(source),
+                    List.of("-classpath", System.getProperty("java.class.path"), "-A" + HemileiaChecker.STATS_OPTION,
+                            "-A" + HemileiaChecker.STATS_TOP_OPTION + "=" + top),
+                    List.of(new HemileiaChecker())).findings();
+            assertTrue(findings.stream().anyMatch(f -> f.kind() == Diagnostic.Kind.ERROR
+                    && f.message().contains("-Ahemileia.statsTop must be positive, got " + top)), findings.toString());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package name.mateusborges.checker;
+
+import java.io.File;
+import java.util.List;
+
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Runs the HemileiaChecker on code using {@code StructuredTaskScope}, which is a preview API and
+ * only compiles with {@code --enable-preview}.
+ *
+ * <p>The API changed between previews, so the stub parser reports any stub method it does not
+ * find in this JDK's {@code StructuredTaskScope}, which fails the test.
+ */
+public class HemileiaStructuredConcurrencyTest extends CheckerFrameworkPerDirectoryTest {
+
+    public HemileiaStructuredConcurrencyTest(List<File> testFiles) {
+        super(
+            testFiles,
+            HemileiaChecker.class,
+            "hemileia",
+            "-Anomsgtext",
+            "-AstubWarnIfNotFound",
+            "--enable-preview",
+            "--release",
+            "25"
+        );
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {
+                "structured"
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package name.mateusborges.checker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.processing.Processor;
+
+import org.checkerframework.checker.nullness.NullnessChecker;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import name.mateusborges.cli.CheckerRun;
+
+/**
+ * Checks that a checker run through {@code -Ahemileia.subcheckers} reports what it reports when
+ * run on its own, without changing Hemileia's diagnostics.
+ */
+public class HemileiaSubcheckersTest {
+
+    @TempDir
+    Path sources;
+
+    @Test
+    public void combinedRunReportsTheDiagnosticsOfBothCheckers() throws IOException {
+        Path nullable = sources.resolve("NullableField.java");
+        Files.writeString(nullable, """
+                import org.checkerframework.checker.nullness.qual.Nullable;
+
+                class NullableField {
+                    @Nullable String name;
+
+                    int length() {
+                        return name.length();
+                    }
+                }
+                """);
+        List<Path> files = new ArrayList<>(sources(Path.of("tests", "basictests")));
+        files.add(nullable);
+        List<String> options = List.of("-classpath", System.getProperty("java.class.path"));
+
+        // Not one run with both processors: there a checker skips every class checked after
+        // the other one reported an error.
+        Set<String> separate = new TreeSet<>(findings(files, options, List.of(new HemileiaChecker())));
+        separate.addAll(findings(files, options, List.of(new NullnessChecker())));
+
+        List<String> shared = new ArrayList<>(options);
+        shared.add("-A" + HemileiaChecker.SUBCHECKERS_OPTION + "=" + NullnessChecker.class.getName());
+        Set<String> combined = findings(files, shared, List.of(new HemileiaChecker()));
+
+        assertTrue(separate.stream().anyMatch(f -> f.startsWith("NullableField.java:7: ")), separate::toString);
+        assertEquals(separate, combined);
+    }
+
+    private static Set<String> findings(List<Path> files, List<String> options, List<? extends Processor> processors)
+            throws IOException {
+        return CheckerRun.compile(files, options, processors).findings().stream()
+                .map(f -> f.file().getFileName() + ":" + f.line() + ": " + f.message())
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static List<Path> sources(Path dir) throws IOException {
+        try (Stream<Path> walk = Files.walk(dir)) {
+            return walk.filter(p -> p.toString().endsWith(".java"))
+                    .map(p -> p.toAbsolutePath().normalize())
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package name.mateusborges.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import name.mateusborges.checker.HemileiaChecker;
+
+/**
+ * Runs {@code hemileia check} on small source trees.
+ */
+public class CheckCommandTest {
+
+    private static final String FIRST = """
+            class First {
+                byte[] copy(byte[] data) {
+                    return data.clone();
+                }
+            }
+            """;
+
+    private static final String SECOND = """
+            import java.util.Arrays;
+
+            class Second {
+                byte[] copy(byte[] data) {
+                    return Arrays.copyOf(data, data.length);
+                }
+            }
+            """;
+
+    private static final String MOVER = """
+            class Mover {
+                void move() {
+                    StringBuilder sb = new StringBuilder();
+                    Taker.take(sb);
+                    sb.append(1);
+                }
+            }
+            """;
+
+    private static final String TAKER = """
+            class Taker {
+                static void take(StringBuilder sb) {
+                }
+
+                void alias() {
+                    StringBuilder a = new StringBuilder();
+                    StringBuilder b = a;
+                    a.append(b);
+                }
+            }
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void invalidArgumentsAreRejected() {
+        assertInvalid("unknown option --verbose", "src", "--verbose");
+        assertInvalid("--shards expects a number, got many", "src", "--shards", "many");
+        assertInvalid("--shards must be positive, got 0", "src", "--shards", "0");
+        assertInvalid("--classpath expects a value", "src", "--classpath");
+        assertInvalid("no source roots given", "-Ahemileia.stats");
+    }
+
+    @Test
+    public void invalidArgumentsExitWithUsage() throws Exception {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        assertEquals(2, check(List.of("--shards", "0", "src"), err));
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("usage: hemileia check"));
+    }
+
+    @Test
+    public void relativeRootsResolveAgainstTheWorkingDirectory() throws Exception {
+        Path sources = Files.createDirectories(directory.resolve("src"));
+        Files.writeString(sources.resolve("Mover.java"), MOVER);
+        Files.writeString(sources.resolve("Taker.java"), TAKER);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        String classpath = Stream.of(System.getProperty("java.class.path").split(File.pathSeparator))
+                .map(entry -> Path.of(entry).toAbsolutePath().toString())
+                .collect(Collectors.joining(File.pathSeparator));
+        int exit = CheckCommand.main(List.of("src", "--classpath", classpath),
+                directory, new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8));
+        assertEquals(1, exit);
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains(sources.resolve("Mover.java") + ":5: error:"),
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shardedCheckFindsWhatASingleTaskFinds() throws Exception {
+        Path sources = Files.createDirectories(directory.resolve("src"));
+        Files.writeString(sources.resolve("Mover.java"), MOVER);
+        Files.writeString(sources.resolve("Taker.java"), TAKER);
+        Files.writeString(sources.resolve("First.java"), FIRST);
+
+        String single = diagnostics(sources, 1);
+        assertEquals(2, single.lines().filter(line -> line.contains("use.after.move")).count(), single);
+        assertEquals(single, diagnostics(sources, 3));
+    }
+
+    @Test
+    public void shardsWriteOneMergedReport() throws Exception {
+        Path sources = Files.createDirectories(directory.resolve("src"));
+        Files.writeString(sources.resolve("First.java"), FIRST);
+        Files.writeString(sources.resolve("Second.java"), SECOND);
+        Path copies = directory.resolve("copies.json");
+        Path stats = directory.resolve("stats.json");
+
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int exit = check(List.of(sources.toString(), "--shards", "2",
+                "--classpath", System.getProperty("java.class.path"),
+                "-A" + HemileiaChecker.COPY_REPORT_OPTION + "=" + copies,
+                "-A" + HemileiaChecker.STATS_OPTION, "-A" + HemileiaChecker.STATS_FILE_OPTION + "=" + stats), err);
+        assertEquals(0, exit, err.toString(StandardCharsets.UTF_8));
+
+        String report = Files.readString(copies);
+        assertTrue(report.contains("First.java") && report.contains("Second.java"), report);
+        String statistics = Files.readString(stats);
+        assertTrue(statistics.contains("First.copy") && statistics.contains("Second.copy"), statistics);
+        assertEquals(1, Pattern.compile("Hemileia found 2 removable copies")
+                .matcher(err.toString(StandardCharsets.UTF_8)).results().count());
+    }
+
+    /** Runs the check with the given number of shards and returns the printed diagnostics. */
+    private static String diagnostics(Path sources, int shards) throws IOException, InterruptedException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int exit = CheckCommand.main(List.of(sources.toString(), "--shards", String.valueOf(shards),
+                "--classpath", System.getProperty("java.class.path")),
+                new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8));
+        assertEquals(1, exit);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private void assertInvalid(String message, String... args) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> CheckCommand.parse(List.of(args), directory));
+        assertEquals(message, e.getMessage());
+    }
+
+    private static int check(List<String> args, ByteArrayOutputStream err) throws IOException, InterruptedException {
+        try (PrintStream errStream = new PrintStream(err, true, StandardCharsets.UTF_8)) {
+            return CheckCommand.main(args, new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8),
+                    errStream);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package name.mateusborges.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import javax.tools.Diagnostic;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks how {@link CheckerRun} splits files into shards and orders findings.
+ */
+public class CheckerRunTest {
+
+    @TempDir
+    Path temp;
+
+    @Test
+    public void partitionCoversEveryFileOnce() throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            files.add(Files.writeString(temp.resolve("F" + i + ".java"), "x".repeat(10 * (i + 1))));
+        }
+        List<List<Path>> shards = CheckerRun.partition(files, 3);
+        assertEquals(3, shards.size());
+        List<Path> all = new ArrayList<>();
+        shards.forEach(all::addAll);
+        all.sort(null);
+        assertEquals(files, all);
+    }
+
+    @Test
+    public void partitionBalancesSizes() throws IOException {
+        Path large = Files.writeString(temp.resolve("Large.java"), "x".repeat(300));
+        List<Path> files = new ArrayList<>(List.of(large));
+        for (int i = 0; i < 6; i++) {
+            files.add(Files.writeString(temp.resolve("Small" + i + ".java"), "x".repeat(50)));
+        }
+        List<List<Path>> shards = CheckerRun.partition(files, 2);
+        assertEquals(List.of(large), shards.get(0));
+        assertEquals(6, shards.get(1).size());
+    }
+
+    @Test
+    public void partitionLeavesExtraShardsEmpty() throws IOException {
+        Path only = Files.writeString(temp.resolve("Only.java"), "class Only {}");
+        List<List<Path>> shards = CheckerRun.partition(List.of(only), 2);
+        assertEquals(List.of(only), shards.get(0));
+        assertTrue(shards.get(1).isEmpty());
+    }
+
+    @Test
+    public void findingsThatDifferOnlyByKindAreKept() {
+        Path file = temp.resolve("A.java");
+        CheckerRun.Finding error = new CheckerRun.Finding(file, 3, 5, Diagnostic.Kind.ERROR, "same");
+        CheckerRun.Finding warning = new CheckerRun.Finding(file, 3, 5, Diagnostic.Kind.WARNING, "same");
+        TreeSet<CheckerRun.Finding> findings = new TreeSet<>(List.of(error, warning));
+        assertEquals(2, findings.size());
+        assertEquals(0, error.compareTo(new CheckerRun.Finding(file, 3, 5, Diagnostic.Kind.ERROR, "same")));
+        assertNotEquals(0, error.compareTo(warning));
+    }
+}
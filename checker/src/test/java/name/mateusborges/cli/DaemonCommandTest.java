@@ -0,0 +1,80 @@
+package name.mateusborges.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import name.mateusborges.checker.HemileiaChecker;
+
+/**
+ * Sends requests from {@link DaemonClient} to a {@link DaemonCommand} running on another thread.
+ */
+public class DaemonCommandTest {
+
+    private static final String COPY = """
+            class Copy {
+                byte[] copy(byte[] data) {
+                    return data.clone();
+                }
+            }
+            """;
+
+    @TempDir
+    Path temp;
+
+    @Test
+    public void relativePathsResolveAgainstTheClientDirectory() throws Exception {
+        Path socket = temp.resolve("d.sock");
+        Path client = Files.createDirectories(temp.resolve("client"));
+        Files.writeString(Files.createDirectories(client.resolve("src")).resolve("Copy.java"), COPY);
+        String classpath = Stream.of(System.getProperty("java.class.path").split(File.pathSeparator))
+                .map(entry -> Path.of(entry).toAbsolutePath().toString())
+                .collect(Collectors.joining(File.pathSeparator));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        Future<Integer> daemon = executor.submit(() -> DaemonCommand.main(List.of("--socket", socket.toString()),
+                new PrintStream(log, true, StandardCharsets.UTF_8)));
+        try {
+            for (int i = 0; i < 600 && !DaemonClient.isAlive(socket); i++) {
+                assertFalse(daemon.isDone(), log.toString(StandardCharsets.UTF_8));
+                Thread.sleep(100);
+            }
+
+            ByteArrayOutputStream err = new ByteArrayOutputStream();
+            int exit = DaemonClient.send(socket, "check", client,
+                    List.of("src", "--classpath", classpath,
+                            "-A" + HemileiaChecker.COPY_REPORT_OPTION + "=copies.json",
+                            "-A" + HemileiaChecker.STATS_OPTION,
+                            "-A" + HemileiaChecker.STATS_FILE_OPTION + "=stats.json"),
+                    new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8),
+                    new PrintStream(err, true, StandardCharsets.UTF_8));
+            assertEquals(0, exit, err.toString(StandardCharsets.UTF_8));
+            assertTrue(Files.readString(client.resolve("copies.json")).contains("Copy.java"));
+            assertTrue(Files.readString(client.resolve("stats.json")).contains("Copy.copy"));
+        } finally {
+            ByteArrayOutputStream ignored = new ByteArrayOutputStream();
+            DaemonClient.send(socket, "stop", temp, List.of(), new PrintStream(ignored, true, StandardCharsets.UTF_8),
+                    new PrintStream(ignored, true, StandardCharsets.UTF_8));
+            assertEquals(0, daemon.get(1, TimeUnit.MINUTES));
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package name.mateusborges.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that the digest of a compiled library follows its ownership signature and ignores
+ * method bodies and private members.
+ */
+public class OwnershipSignaturesTest {
+
+    private static final String LIBRARY = """
+            import name.mateusborges.annotations.Borrowed;
+            import name.mateusborges.annotations.Owned;
+
+            public class Library {
+                public void consume(%s StringBuilder sb) {
+                    %s
+                }
+                %s
+            }
+            """;
+
+    @TempDir
+    Path temp;
+
+    @Test
+    public void bodiesAndPrivateMembersDoNotChangeTheDigest() throws IOException {
+        String digest = digest("@Owned", "sb.append(1);", "");
+        assertEquals(digest, digest("@Owned", "sb.append(2); sb.reverse();", ""));
+        assertEquals(digest, digest("@Owned", "sb.append(1);", "private int cache;"));
+    }
+
+    @Test
+    public void qualifiersAndApiChangeTheDigest() throws IOException {
+        String digest = digest("@Owned", "sb.append(1);", "");
+        assertNotEquals(digest, digest("@Borrowed", "sb.append(1);", ""));
+        assertNotEquals(digest, digest("@Owned", "sb.append(1);", "public void close() {}"));
+    }
+
+    @Test
+    public void signatureListsQualifiersOfParameters() throws IOException {
+        Path classes = compile("@Owned", "", "");
+        try (URLClassLoader loader = loader(classes)) {
+            String signature = OwnershipSignatures.signature(Class.forName("Library", false, loader));
+            assertTrue(signature.contains("consume(@name.mateusborges.annotations.Owned() java.lang.StringBuilder)"),
+                    signature);
+        } catch (ClassNotFoundException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private String digest(String qualifier, String body, String member) throws IOException {
+        Path classes = compile(qualifier, body, member);
+        try (URLClassLoader loader = loader(classes)) {
+            return OwnershipSignatures.digest(classes, loader);
+        }
+    }
+
+    private Path compile(String qualifier, String body, String member) throws IOException {
+        Path dir = Files.createTempDirectory(temp, "library");
+        Path source = dir.resolve("Library.java");
+        Files.writeString(source, LIBRARY.formatted(qualifier, body, member));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        int exit = compiler.run(null, null, null, List.of(
+                "-classpath", System.getProperty("java.class.path"),
+                "-d", dir.toString(),
+                source.toString()).toArray(String[]::new));
+        assertEquals(0, exit);
+        Files.delete(source);
+        return dir;
+    }
+
+    private URLClassLoader loader(Path classes) throws IOException {
+        return new URLClassLoader(new URL[] {classes.toUri().toURL()}, getClass().getClassLoader());
+    }
+}
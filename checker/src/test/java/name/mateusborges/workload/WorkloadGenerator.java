@@ -0,0 +1,186 @@
+package name.mateusborges.workload;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Generates Java sources that exercise the Hemileia ownership patterns at a configurable scale
+ * (see {@link WorkloadSpec}).
+ *
+ * <p>The generated programs compile with plain javac and, without {@link WorkloadSpec#errors()},
+ * check cleanly with the Hemileia checker. With it, every expected error is preceded by a
+ * {@code // :: error: (use.after.move)} marker, so the output can be used as a
+ * {@code CheckerFrameworkPerDirectoryTest} directory.
+ *
+ * <p>Only values that are moved on purpose are passed as arguments: passing a local to any
+ * method with an {@code @Owned} parameter (which includes {@code println(Object)}) moves it.
+ *
+ * <p>Usage: {@code WorkloadGenerator <output dir> [key=value...]}, e.g.
+ * {@code WorkloadGenerator /tmp/corpus classes=10 methods=200 errors=true}.
+ */
+public final class WorkloadGenerator {
+
+    private final WorkloadSpec spec;
+
+    public WorkloadGenerator(WorkloadSpec spec) {
+        this.spec = spec;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: WorkloadGenerator <output dir> [key=value...]");
+            System.exit(2);
+        }
+        WorkloadSpec spec = WorkloadSpec.defaults().with(Arrays.asList(args).subList(1, args.length));
+        List<Path> files = new WorkloadGenerator(spec).writeTo(Path.of(args[0]));
+        System.out.println("wrote " + files.size() + " files to " + args[0]);
+    }
+
+    /**
+     * Writes {@code Workload0.java} ... {@code WorkloadN.java} into {@code dir}, replacing
+     * existing files of the same name.
+     *
+     * @param dir the output directory, created if missing
+     * @return the written files
+     */
+    public List<Path> writeTo(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        List<Path> files = new ArrayList<>();
+        for (int c = 0; c < spec.classes(); c++) {
+            String name = "Workload" + c;
+            Path file = dir.resolve(name + ".java");
+            Files.writeString(file, generateClass(name));
+            files.add(file);
+        }
+        return files;
+    }
+
+    /**
+     * Generates one compilation unit.
+     *
+     * @param className the name of the generated top-level class
+     * @return the source text
+     */
+    public String generateClass(String className) {
+        Source out = new Source();
+        out.line("import name.mateusborges.annotations.Borrowed;");
+        out.line("import name.mateusborges.annotations.Owned;");
+        out.line("");
+        out.open("public class " + className + " {");
+        for (int d = 0; d < spec.callChain(); d++) {
+            out.line("");
+            out.open("int chain" + d + "(@Owned StringBuilder sb, int depth) {");
+            out.line(d + 1 < spec.callChain() ? "return chain" + (d + 1) + "(sb, depth + 1);"
+                    : "return sb.length() + depth;");
+            out.close("}");
+        }
+        for (int m = 0; m < spec.methods(); m++) {
+            out.line("");
+            generateMethod(out, "method" + m);
+        }
+        out.close("}");
+        return out.toString();
+    }
+
+    private void generateMethod(Source out, String name) {
+        out.open("int " + name + "(int k) {");
+        out.line("int total = 0;");
+        for (int v = 0; v < spec.ownedLocals(); v++) {
+            out.line("@Owned StringBuilder v" + v + " = new StringBuilder(\"v" + v + "\");");
+        }
+
+        if (spec.moveChain() > 0) {
+            out.line("@Owned StringBuilder m0 = new StringBuilder(\"m\");");
+            for (int i = 1; i <= spec.moveChain(); i++) {
+                out.line("@Owned StringBuilder m" + i + " = m" + (i - 1) + ";");
+            }
+            out.line("total += m" + spec.moveChain() + ".length();");
+            if (spec.errors()) {
+                out.line("// :: error: (use.after.move)");
+                out.line("total += m0.length();");
+            }
+        }
+
+        for (int v = 0; v < spec.ownedLocals(); v++) {
+            for (int b = 0; b < spec.borrows(); b++) {
+                String borrow = "b" + v + "_" + b;
+                out.line("@Borrowed StringBuilder " + borrow + " = v" + v + ";");
+                out.line("total += " + borrow + ".length();");
+            }
+        }
+
+        if (spec.loopDepth() > 0) {
+            for (int d = 0; d < spec.loopDepth(); d++) {
+                out.open("for (int i" + d + " = 0; i" + d + " < k; i" + d + "++) {");
+            }
+            out.line("total += v" + (spec.loopDepth() % spec.ownedLocals()) + ".length() + i"
+                    + (spec.loopDepth() - 1) + ";");
+            for (int d = 0; d < spec.loopDepth(); d++) {
+                out.close("}");
+            }
+        }
+
+        for (int t = 0; t < spec.tryFinally(); t++) {
+            String local = "v" + (t % spec.ownedLocals());
+            out.open("try {");
+            out.line("total += " + local + ".length();");
+            out.close("} finally {");
+            out.indent++;
+            out.line("total += " + local + ".toString().length();");
+            out.close("}");
+        }
+
+        if (spec.switchCases() > 0) {
+            out.open("switch (k % " + spec.switchCases() + ") {");
+            for (int s = 0; s < spec.switchCases(); s++) {
+                out.line("case " + s + " -> total += v" + (s % spec.ownedLocals()) + ".length() + " + s + ";");
+            }
+            out.line("default -> total -= 1;");
+            out.close("}");
+        }
+
+        if (spec.callChain() > 0) {
+            out.line("@Owned StringBuilder c = new StringBuilder(\"c\");");
+            out.line("total += chain0(c, 0);");
+            if (spec.errors()) {
+                out.line("// :: error: (use.after.move)");
+                out.line("total += c.length();");
+            }
+        }
+
+        out.line("return total;");
+        out.close("}");
+    }
+
+    /** A string builder that tracks indentation. */
+    private static final class Source {
+        private final StringBuilder text = new StringBuilder();
+        int indent;
+
+        void line(String line) {
+            if (!line.isEmpty()) {
+                text.append("    ".repeat(indent)).append(line);
+            }
+            text.append('\n');
+        }
+
+        void open(String line) {
+            line(line);
+            indent++;
+        }
+
+        void close(String line) {
+            indent--;
+            line(line);
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+}
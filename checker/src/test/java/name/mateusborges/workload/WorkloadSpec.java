@@ -0,0 +1,96 @@
+package name.mateusborges.workload;
+
+import java.util.List;
+
+/**
+ * The shape and scale of a generated workload. Every count is per generated method unless
+ * stated otherwise.
+ *
+ * @param classes number of generated compilation units
+ * @param methods methods per class
+ * @param ownedLocals {@code @Owned} locals declared at the top of each method
+ * @param moveChain length of the chain of moves {@code m0 -> m1 -> ... -> mN}
+ * @param borrows {@code @Borrowed} locals created from each owned local
+ * @param loopDepth depth of the nested loop that reads the owned locals
+ * @param tryFinally number of try/finally blocks
+ * @param switchCases number of cases in the switch over the owned locals
+ * @param callChain depth of the chain of helper methods an owned value is passed through
+ * @param errors whether to add one use-after-move per move chain and per call chain, each
+ *               preceded by its expected-error marker
+ */
+public record WorkloadSpec(
+        int classes,
+        int methods,
+        int ownedLocals,
+        int moveChain,
+        int borrows,
+        int loopDepth,
+        int tryFinally,
+        int switchCases,
+        int callChain,
+        boolean errors) {
+
+    /** A small workload that touches every pattern once. */
+    public static WorkloadSpec defaults() {
+        return new WorkloadSpec(1, 4, 4, 4, 2, 2, 1, 8, 4, false);
+    }
+
+    public WorkloadSpec {
+        if (classes < 1 || methods < 1 || ownedLocals < 1) {
+            throw new IllegalArgumentException("classes, methods and ownedLocals must be positive");
+        }
+        if (moveChain < 0 || borrows < 0 || loopDepth < 0 || tryFinally < 0 || switchCases < 0 || callChain < 0) {
+            throw new IllegalArgumentException("pattern counts must not be negative");
+        }
+    }
+
+    /**
+     * Applies {@code key=value} overrides to this spec, e.g. {@code methods=500}.
+     *
+     * @param overrides overrides named after the record components
+     * @return the updated spec
+     * @throws IllegalArgumentException for an unknown key or a malformed value
+     */
+    public WorkloadSpec with(List<String> overrides) {
+        WorkloadSpec spec = this;
+        for (String override : overrides) {
+            int eq = override.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("expected key=value, got " + override);
+            }
+            String key = override.substring(0, eq);
+            String value = override.substring(eq + 1);
+            spec = switch (key) {
+                case "errors" -> new WorkloadSpec(spec.classes, spec.methods, spec.ownedLocals, spec.moveChain,
+                        spec.borrows, spec.loopDepth, spec.tryFinally, spec.switchCases, spec.callChain,
+                        Boolean.parseBoolean(value));
+                default -> spec.withCount(key, Integer.parseInt(value));
+            };
+        }
+        return spec;
+    }
+
+    private WorkloadSpec withCount(String key, int n) {
+        return switch (key) {
+            case "classes" -> new WorkloadSpec(n, methods, ownedLocals, moveChain, borrows, loopDepth,
+                    tryFinally, switchCases, callChain, errors);
+            case "methods" -> new WorkloadSpec(classes, n, ownedLocals, moveChain, borrows, loopDepth,
+                    tryFinally, switchCases, callChain, errors);
+            case "ownedLocals" -> new WorkloadSpec(classes, methods, n, moveChain, borrows, loopDepth,
+                    tryFinally, switchCases, callChain, errors);
+            case "moveChain" -> new WorkloadSpec(classes, methods, ownedLocals, n, borrows, loopDepth,
+                    tryFinally, switchCases, callChain, errors);
+            case "borrows" -> new WorkloadSpec(classes, methods, ownedLocals, moveChain, n, loopDepth,
+                    tryFinally, switchCases, callChain, errors);
+            case "loopDepth" -> new WorkloadSpec(classes, methods, ownedLocals, moveChain, borrows, n,
+                    tryFinally, switchCases, callChain, errors);
+            case "tryFinally" -> new WorkloadSpec(classes, methods, ownedLocals, moveChain, borrows, loopDepth,
+                    n, switchCases, callChain, errors);
+            case "switchCases" -> new WorkloadSpec(classes, methods, ownedLocals, moveChain, borrows, loopDepth,
+                    tryFinally, n, callChain, errors);
+            case "callChain" -> new WorkloadSpec(classes, methods, ownedLocals, moveChain, borrows, loopDepth,
+                    tryFinally, switchCases, n, errors);
+            default -> throw new IllegalArgumentException("unknown workload key " + key);
+        };
+    }
+}
@@ -0,0 +1,180 @@
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import name.mateusborges.annotations.MutBorrowed;
+import name.mateusborges.util.ArraySlice;
+
+/**
+ * Splitting an array into disjoint slices lets fork/join tasks sort it in place: each slice moves
+ * into one task, and the array cannot be touched until every slice is released or its task joined.
+ */
+class ArraySliceTests {
+
+    static final class SortTask extends RecursiveAction {
+
+        private final ArraySlice<byte[]> slice;
+
+        SortTask(ArraySlice<byte[]> slice) {
+            this.slice = slice;
+        }
+
+        @Override
+        protected void compute() {
+            sort(slice);
+        }
+    }
+
+    static void sort(ArraySlice<byte[]> slice) {
+        if (slice.length() <= 1024) {
+            slice.sort();
+            return;
+        }
+        ArraySlice<byte[]> right = slice.splitOff(slice.length() / 2);
+        ForkJoinTask.invokeAll(new SortTask(slice), new SortTask(right));
+    }
+
+    void sortInParallel(byte @MutBorrowed [] data) {
+        try (ArraySlice<byte[]> slice = ArraySlice.of(data)) {
+            ForkJoinPool.commonPool().invoke(new SortTask(slice));
+        }
+        data[0] = 0;
+    }
+
+    void splitAndFork(byte @MutBorrowed [] data) {
+        try (ArraySlice<byte[]> left = ArraySlice.of(data)) {
+            ArraySlice<byte[]> right = left.splitOff(left.length() / 2);
+            ForkJoinTask.invokeAll(new SortTask(left), new SortTask(right));
+        }
+    }
+
+    void splitInThree(byte @MutBorrowed [] data) {
+        try (ArraySlice<byte[]> slice = ArraySlice.of(data)) {
+            ArraySlice<byte[]> middle = slice.splitOff(slice.length() / 3);
+            ArraySlice<byte[]> last = middle.splitOff(middle.length() / 2);
+            ForkJoinTask.invokeAll(new SortTask(slice), new SortTask(middle), new SortTask(last));
+        }
+        data[0] = 1;
+    }
+
+    void samePieceTwice(ArraySlice<byte[]> slice) {
+        ArraySlice<byte[]> right = slice.splitOff(slice.length() / 2);
+        // :: error: (use.after.move)
+        ForkJoinTask.invokeAll(new SortTask(right), new SortTask(right));
+    }
+
+    void pieceUsedAfterHandoff(ArraySlice<byte[]> slice) {
+        ArraySlice<byte[]> right = slice.splitOff(slice.length() / 2);
+        ForkJoinTask<Void> task = new SortTask(right).fork();
+        // :: error: (use.after.move)
+        right.sort();
+        task.join();
+    }
+
+    void arrayHeldBySlice(byte @MutBorrowed [] data) {
+        try (ArraySlice<byte[]> slice = ArraySlice.of(data)) {
+            ForkJoinTask<Void> task = new SortTask(slice).fork();
+            // :: error: (borrow.conflict)
+            data[0] = 1;
+            task.join();
+        }
+    }
+
+    void arrayUsableAfterJoin(byte @MutBorrowed [] data) {
+        try (ArraySlice<byte[]> slice = ArraySlice.of(data)) {
+            ArraySlice<byte[]> right = slice.splitOff(slice.length() / 2);
+            ForkJoinTask<Void> task = new SortTask(right).fork();
+            slice.sort();
+            task.join();
+        }
+        data[0] = 1;
+    }
+
+    void taskNeverJoined(byte @MutBorrowed [] data) {
+        try (ArraySlice<byte[]> slice = ArraySlice.of(data)) {
+            new SortTask(slice).fork();
+        }
+        // :: error: (borrow.conflict)
+        data[0] = 1;
+    }
+
+    void pieceOutlivesSlice(byte @MutBorrowed [] data) {
+        ArraySlice<byte[]> right;
+        try (ArraySlice<byte[]> slice = ArraySlice.of(data)) {
+            right = slice.splitOff(slice.length() / 2);
+        }
+        // :: error: (borrow.conflict)
+        data[0] = 1;
+        right.close();
+        data[0] = 2;
+    }
+
+    void pieceForkedFromSlice(byte @MutBorrowed [] data) {
+        ArraySlice<byte[]> slice = ArraySlice.of(data);
+        ArraySlice<byte[]> right = slice.splitOff(slice.length() / 2);
+        new SortTask(right).fork();
+        slice.close();
+        // :: error: (borrow.conflict)
+        data[0] = 1;
+    }
+
+    ArraySlice<byte[]> pieceReturned(byte @MutBorrowed [] data) {
+        ArraySlice<byte[]> slice = ArraySlice.of(data);
+        // :: error: (borrow.outlives.owner)
+        return slice.splitOff(1);
+    }
+
+    ArraySlice<byte[]> pieceReturnedThroughVariable(byte @MutBorrowed [] data) {
+        try (ArraySlice<byte[]> slice = ArraySlice.of(data)) {
+            ArraySlice<byte[]> right = slice.splitOff(1);
+            // :: error: (borrow.outlives.owner)
+            return right;
+        }
+    }
+
+    ArraySlice<byte[]> splitOfParameter(ArraySlice<byte[]> slice) {
+        return slice.splitOff(slice.length() / 2);
+    }
+
+    void typedAccessors(byte @MutBorrowed [] data) {
+        try (ArraySlice<byte[]> slice = ArraySlice.of(data, 4, 8)) {
+            slice.setByte(0, (byte) (slice.getByte(1) + 1));
+            ByteBuffer view = slice.asByteBuffer();
+            view.putInt(0, view.getInt(0) + 1);
+        }
+        data[0] = 1;
+    }
+
+    void viewOfHandedOffPiece(ArraySlice<byte[]> slice) {
+        ArraySlice<byte[]> right = slice.splitOff(slice.length() / 2);
+        ByteBuffer view = right.asByteBuffer();
+        ForkJoinTask<Void> task = new SortTask(right).fork();
+        // :: error: (borrow.invalidated)
+        view.get(0);
+        task.join();
+    }
+
+    void arrayNotReadableWhileHeld(byte @MutBorrowed [] data) {
+        try (ArraySlice<byte[]> slice = ArraySlice.of(data)) {
+            // :: error: (borrow.conflict)
+            int first = data[0];
+            ForkJoinPool.commonPool().invoke(new SortTask(slice));
+        }
+    }
+
+    void arraySlicedTwice(byte @MutBorrowed [] data) {
+        try (ArraySlice<byte[]> first = ArraySlice.of(data)) {
+            // :: error: (borrow.conflict)
+            ArraySlice<byte[]> second = ArraySlice.of(data);
+            ForkJoinTask.invokeAll(new SortTask(first), new SortTask(second));
+        }
+    }
+
+    void explicitClose(byte @MutBorrowed [] data) {
+        ArraySlice<byte[]> slice = ArraySlice.of(data, 0, data.length / 2);
+        sort(slice.splitOff(0));
+        slice.close();
+        data[0] = 1;
+    }
+}
@@ -0,0 +1,121 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import name.mateusborges.annotations.Borrowed;
+import name.mateusborges.annotations.MutBorrowed;
+
+/**
+ * Zero-copy handoff of buffers between pipeline stages: the sender must not touch a buffer once
+ * it was handed off.
+ */
+class BufferHandoffTests {
+
+    record Frame(ByteBuffer payload) {}
+
+    void channelWriteHandsOffBuffer(SocketChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        buffer.put((byte) 1);
+        buffer.flip();
+        channel.write(buffer);
+        // :: error: (use.after.move)
+        buffer.clear();
+    }
+
+    void channelReadOnlyBorrowsBuffer(SocketChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        channel.read(buffer);
+        buffer.flip();
+        System.out.println(buffer.get());
+    }
+
+    void codecStageTakesBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        Frame frame = new Frame(buffer);
+        // :: error: (use.after.move)
+        buffer.remaining();
+    }
+
+    void copyConstructorsOnlyBorrowTheirSource() {
+        List<String> names = new ArrayList<>();
+        Map<String, Integer> counts = new HashMap<>();
+        List<String> copy = new ArrayList<>(names);
+        Set<String> unique = new HashSet<>(names);
+        Map<String, Integer> snapshot = new TreeMap<>(counts);
+        StringBuilder text = new StringBuilder("a");
+        StringBuilder more = new StringBuilder(text);
+        names.add("a");
+        counts.clear();
+        text.append(copy.size() + unique.size() + snapshot.size() + more.length());
+    }
+
+    void wrapTakesArray() {
+        byte[] chunk = new byte[16];
+        ByteBuffer buffer = ByteBuffer.wrap(chunk);
+        // :: error: (use.after.move)
+        chunk[0] = 1;
+    }
+
+    void copiesOnlyBorrowArray() {
+        byte[] chunk = new byte[16];
+        byte[] copy = Arrays.copyOf(chunk, 16);
+        System.arraycopy(chunk, 0, copy, 0, 16);
+        String text = new String(chunk);
+        chunk[0] = 1;
+    }
+
+    void borrowedViewReads(@Borrowed ByteBuffer view) {
+        System.out.println(view.remaining() + view.get(0));
+    }
+
+    void borrowedViewCannotMoveCursor(@Borrowed ByteBuffer view) {
+        // :: error: (method.invocation)
+        view.flip();
+    }
+
+    void mutBorrowedViewMovesCursor(@MutBorrowed ByteBuffer view) {
+        view.flip();
+        view.position(4);
+    }
+
+    void borrowedViewCannotBeHandedOff(SocketChannel channel, @Borrowed ByteBuffer view) throws IOException {
+        // :: error: (argument)
+        channel.write(view);
+    }
+
+    void duplicateIsInvalidatedByHandoff(SocketChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        ByteBuffer view = buffer.duplicate();
+        channel.write(buffer);
+        // :: error: (borrow.invalidated)
+        view.get(0);
+    }
+
+    // Only byte[] is tracked among arrays; other arrays are passed around like primitives
+
+    static int sum(int[] values) {
+        int total = 0;
+        for (int value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    String ordinaryArraysAreNotMoved(int[] values, String[] names) {
+        String text = Arrays.toString(values);
+        Arrays.fill(values, 1);
+        int hash = Arrays.hashCode(values);
+        List<String> list = Arrays.asList(names);
+        String joined = String.join(",", names);
+        int total = sum(values) + sum(values);
+        return text + hash + list + joined + total + names.length + values[0];
+    }
+}
@@ -0,0 +1,188 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * An iterator borrows from its collection, so changing the collection's structure while the
+ * iterator is still used is a conflict, without a snapshot copy or a
+ * ConcurrentModificationException at run time.
+ */
+class IteratorInvalidationTests {
+
+    void iterateThenAdd() {
+        List<String> names = new ArrayList<>();
+        for (String name : names) {
+            name.length();
+        }
+        names.add("after");
+    }
+
+    void addWhileIterating() {
+        List<String> names = new ArrayList<>();
+        for (String name : names) {
+            if (name.isEmpty()) {
+                // :: error: (borrow.conflict)
+                names.add("racy");
+            }
+        }
+    }
+
+    void removeThenBreak() {
+        List<String> names = new ArrayList<>();
+        for (String name : names) {
+            if (name.isEmpty()) {
+                names.remove(name);
+                break;
+            }
+        }
+    }
+
+    void removeThenFlagThenBreak(List<String> names) {
+        boolean found = false;
+        for (String name : names) {
+            if (name.isEmpty()) {
+                names.remove(name);
+                found = true;
+                break;
+            }
+        }
+    }
+
+    void removeThenFlagThenContinue(List<String> names) {
+        boolean found = false;
+        for (String name : names) {
+            if (name.isEmpty()) {
+                // :: error: (borrow.conflict)
+                names.remove(name);
+                found = true;
+                continue;
+            }
+        }
+    }
+
+    void removeThenEitherBranchLeaves(List<String> names) {
+        for (String name : names) {
+            names.remove(name);
+            if (names.isEmpty()) {
+                break;
+            } else {
+                return;
+            }
+        }
+    }
+
+    void addToLinkedListWhileIterating(LinkedList<String> names) {
+        for (String name : names) {
+            // :: error: (borrow.conflict)
+            names.add(name);
+        }
+    }
+
+    void clearLinkedListWhileIterating(LinkedList<String> names) {
+        Iterator<String> it = names.iterator();
+        // :: error: (borrow.conflict)
+        names.clear();
+        it.next();
+    }
+
+    void addToTreeSetWhileIterating(TreeSet<String> names) {
+        for (String name : names) {
+            // :: error: (borrow.conflict)
+            names.add(name + "'");
+        }
+    }
+
+    void removeThenReturn(Set<String> names) {
+        for (String name : names) {
+            if (name.isEmpty()) {
+                names.remove(name);
+                return;
+            }
+        }
+    }
+
+    void breakOnlyLeavesInnerLoop(List<String> names, List<String> others) {
+        for (String name : names) {
+            for (String other : others) {
+                // :: error: (borrow.conflict)
+                names.remove(other);
+                break;
+            }
+        }
+    }
+
+    void labeledBreakLeavesOuterLoop(List<String> names, List<String> others) {
+        outer:
+        for (String name : names) {
+            for (String other : others) {
+                names.remove(other);
+                break outer;
+            }
+        }
+    }
+
+    void labeledBreakLeavesLoopAroundIt(List<String> names, List<String> others) {
+        outer:
+        for (String other : others) {
+            for (String name : names) {
+                names.remove(name);
+                break outer;
+            }
+        }
+    }
+
+    void labeledBreakInsideLoopDoesNotLeaveIt(List<String> names) {
+        for (String name : names) {
+            inner:
+            {
+                // :: error: (borrow.conflict)
+                names.remove(name);
+                break inner;
+            }
+        }
+    }
+
+    void iteratorUsedAfterAdd(ArrayList<String> names) {
+        Iterator<String> it = names.iterator();
+        // :: error: (borrow.conflict)
+        names.add("racy");
+        it.next();
+    }
+
+    void iteratorDoneBeforeAdd(ArrayList<String> names) {
+        Iterator<String> it = names.iterator();
+        while (it.hasNext()) {
+            it.next();
+        }
+        names.add("after");
+    }
+
+    void removeThroughIterator(List<String> names) {
+        Iterator<String> it = names.iterator();
+        while (it.hasNext()) {
+            if (it.next().isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    void clearInIteratorLoop(List<String> names) {
+        ListIterator<String> it = names.listIterator();
+        while (it.hasNext()) {
+            it.next();
+            // :: error: (borrow.conflict)
+            names.clear();
+        }
+    }
+
+    void concurrentCollectionsDoNotBorrow(CopyOnWriteArrayList<String> names) {
+        for (String name : names) {
+            names.add(name);
+        }
+    }
+}
@@ -113,7 +113,7 @@ public class SanityTests {
 
         @Owned FooResult result = foo(v1, v2);
 
-        // :: error: (use.after.move)
+        // :: error: (use.after.move) :: error: (use.after.move)
         System.out.println(v1 + ", " + v2);
     }
 
@@ -123,7 +123,7 @@ public class SanityTests {
 
         @Owned FooResult result = foo(v1, v2);
 
-        // :: error: (use.after.move)
+        // :: error: (use.after.move) :: error: (use.after.move)
         System.out.println(v1 + ", " + v2.toString());
     }
 
@@ -225,10 +225,10 @@ public class SanityTests {
 
         // :: error: (use.after.move)
         while (i < v1.length()) {
-            // :: error: (use.after.move)
+            // :: error: (use.after.move) :: error: (use.after.move)
             @Owned FooResult result = foo(v1, v2);
 
-            // :: error: (use.after.move)
+            // :: error: (use.after.move) :: error: (use.after.move)
             System.out.println(v1 + ", " + v2.toString());
             i++;
         }
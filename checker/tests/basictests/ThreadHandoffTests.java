@@ -0,0 +1,127 @@
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+import name.mateusborges.annotations.Borrowed;
+
+/**
+ * Handing a mutable object to another thread through a queue or an executor moves it, so the
+ * producer cannot race with the consumer.
+ */
+class ThreadHandoffTests {
+
+    void queueOfferMovesValue(BlockingQueue<StringBuilder> queue) {
+        StringBuilder message = new StringBuilder("m");
+        queue.offer(message);
+        // :: error: (use.after.move)
+        message.append("late");
+    }
+
+    void queuePutMovesValue(BlockingQueue<StringBuilder> queue) throws InterruptedException {
+        StringBuilder message = new StringBuilder("m");
+        queue.put(message);
+        // :: error: (use.after.move)
+        message.append("late");
+    }
+
+    void consumerOwnsTakenValue(BlockingQueue<StringBuilder> queue) throws InterruptedException {
+        StringBuilder message = queue.take();
+        message.append("mine");
+    }
+
+    void submittedTaskIsMoved(ExecutorService executor) {
+        Runnable task = () -> {};
+        executor.submit(task);
+        // :: error: (use.after.move)
+        task.run();
+    }
+
+    void lambdaCapturesAreMoved(ExecutorService executor) {
+        StringBuilder log = new StringBuilder("log");
+        executor.submit(() -> log.append("task"));
+        // :: error: (use.after.move)
+        log.append("producer");
+    }
+
+    void taskMayUseItsCaptures(Executor executor) {
+        StringBuilder log = new StringBuilder("log");
+        executor.execute(() -> {
+            log.append("first");
+            log.append("second");
+        });
+    }
+
+    void capturedParametersAreMoved(Executor executor, StringBuilder log) {
+        executor.execute(() -> log.append("task"));
+        // :: error: (use.after.move)
+        log.append("producer");
+    }
+
+    void methodReferenceReceiverIsMoved(ExecutorService executor) {
+        StringBuilder log = new StringBuilder("log");
+        executor.submit(log::reverse);
+        // :: error: (use.after.move)
+        log.append("producer");
+    }
+
+    void anonymousTaskCapturesAreMoved(Executor executor) {
+        StringBuilder log = new StringBuilder("log");
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                log.append("task");
+            }
+        });
+        // :: error: (use.after.move)
+        log.append("producer");
+    }
+
+    void threadCapturesAreMoved() {
+        StringBuilder log = new StringBuilder("log");
+        new Thread(() -> log.append("thread")).start();
+        // :: error: (use.after.move)
+        log.append("producer");
+    }
+
+    void asyncCapturesAreMoved() {
+        StringBuilder log = new StringBuilder("log");
+        CompletableFuture.runAsync(() -> log.append("async"));
+        // :: error: (use.after.move)
+        log.append("producer");
+    }
+
+    void asyncStageCapturesAreMoved(CompletableFuture<String> future) {
+        StringBuilder log = new StringBuilder("log");
+        future.thenAcceptAsync(value -> log.append(value));
+        // :: error: (use.after.move)
+        log.append("producer");
+    }
+
+    void capturesOfStoredLambdaAreMoved(Executor executor) {
+        StringBuilder log = new StringBuilder("log");
+        Runnable task = () -> log.append("task");
+        executor.execute(task);
+        // :: error: (use.after.move)
+        log.append("producer");
+    }
+
+    void storedLambdaMayBeRunOnTheSameThread() {
+        StringBuilder log = new StringBuilder("log");
+        Runnable task = () -> log.append("task");
+        task.run();
+        log.append("after");
+    }
+
+    void borrowedCapturesAreNotMoved(Executor executor, @Borrowed StringBuilder log) {
+        executor.execute(() -> System.out.println(log.length()));
+        System.out.println(log.length());
+    }
+
+    void sameThreadCallbacksDoNotMove(List<String> items) {
+        StringBuilder log = new StringBuilder("log");
+        items.forEach(log::append);
+        log.append("after");
+    }
+}
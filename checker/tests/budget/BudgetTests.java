@@ -0,0 +1,43 @@
+import name.mateusborges.annotations.Borrowed;
+import name.mateusborges.annotations.Owned;
+
+/**
+ * Run with {@code -Ahemileia.budget.blocks=40}.
+ */
+class BudgetTests {
+
+    void consume(@Owned StringBuilder sb) {}
+
+    void smallMethodsAreCheckedFlowSensitively() {
+        @Owned StringBuilder v1 = new StringBuilder();
+        consume(v1);
+        // :: error: (use.after.move)
+        consume(v1);
+    }
+
+    // :: warning: (analysis.budget.exceeded)
+    void largeMethodsFallBackToFlowInsensitiveChecks(@Borrowed StringBuilder borrowed, int n) {
+        @Owned StringBuilder v1 = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            if (i % 2 == 0) {
+                v1.append(i);
+            } else if (i % 3 == 0) {
+                v1.append(-i);
+            } else {
+                v1.append(i * i);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i; j++) {
+                if (i % 5 == j % 7) {
+                    v1.append(j);
+                }
+            }
+        }
+        consume(v1);
+        // Not reported: the flow-sensitive checks are skipped for this method
+        consume(v1);
+        // :: error: (argument)
+        consume(borrowed);
+    }
+}
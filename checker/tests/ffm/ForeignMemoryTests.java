@@ -0,0 +1,83 @@
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Arenas own native memory; the segments they allocate, and slices of those, borrow from them.
+ */
+class ForeignMemoryTests {
+
+    MemorySegment cached;
+
+    void segmentUsedWhileArenaIsOpen() {
+        Arena arena = Arena.ofConfined();
+        MemorySegment segment = arena.allocate(16);
+        segment.set(ValueLayout.JAVA_INT, 0, 42);
+        arena.close();
+    }
+
+    void segmentUsedAfterClose() {
+        Arena arena = Arena.ofConfined();
+        MemorySegment segment = arena.allocate(16);
+        arena.close();
+        // :: error: (borrow.invalidated)
+        segment.get(ValueLayout.JAVA_INT, 0);
+    }
+
+    void arenaUsedAfterClose() {
+        Arena arena = Arena.ofConfined();
+        arena.close();
+        // :: error: (use.after.move)
+        arena.allocate(16);
+    }
+
+    void sliceUsedAfterClose() {
+        Arena arena = Arena.ofConfined();
+        MemorySegment segment = arena.allocate(16);
+        MemorySegment slice = segment.asSlice(8);
+        arena.close();
+        // :: error: (borrow.invalidated)
+        slice.get(ValueLayout.JAVA_INT, 0);
+    }
+
+    void segmentUsedAfterTryWithResources() {
+        MemorySegment segment;
+        try (Arena arena = Arena.ofConfined()) {
+            segment = arena.allocate(16);
+            segment.set(ValueLayout.JAVA_INT, 0, 42);
+        }
+        // :: error: (borrow.invalidated)
+        segment.get(ValueLayout.JAVA_INT, 0);
+    }
+
+    MemorySegment segmentReturnedFromItsArenaScope() {
+        try (Arena arena = Arena.ofConfined()) {
+            // :: error: (borrow.outlives.owner)
+            return arena.allocate(16);
+        }
+    }
+
+    MemorySegment sliceReturnedFromItsArenaScope() {
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment segment = arena.allocate(16);
+            // :: error: (borrow.outlives.owner)
+            return segment.asSlice(4);
+        }
+    }
+
+    void segmentStoredInField() {
+        Arena arena = Arena.ofConfined();
+        MemorySegment segment = arena.allocate(16);
+        // :: error: (borrow.outlives.owner)
+        cached = segment;
+        arena.close();
+    }
+
+    MemorySegment sliceOfParameterMayBeReturned(MemorySegment segment) {
+        return segment.asSlice(4);
+    }
+
+    MemorySegment globalSegmentsMayEscape() {
+        return Arena.global().allocate(16);
+    }
+}
@@ -0,0 +1,46 @@
+import java.io.Closeable;
+import java.util.ArrayList;
+
+import name.mateusborges.annotations.Owned;
+
+/**
+ * Run with {@code -Ahemileia.trackedTypes=java.lang.StringBuilder,java.io.Closeable}.
+ */
+class ScopedTrackingTests {
+
+    @Owned static class Resource {}
+
+    static class Channel implements Closeable {
+        public void close() {}
+    }
+
+    void consume(@Owned Object o) {}
+
+    void listedTypesAreTracked() {
+        @Owned StringBuilder v1 = new StringBuilder();
+        @Owned StringBuilder v2 = v1;
+        // :: error: (use.after.move)
+        System.out.println(v1.length());
+    }
+
+    void unlistedTypesAreTreatedLikePrimitives() {
+        @Owned ArrayList<String> v1 = new ArrayList<>();
+        @Owned ArrayList<String> v2 = v1;
+        consume(v1);
+        System.out.println(v1.size());
+    }
+
+    void qualifiedDeclarationsAreTracked() {
+        Resource r = new Resource();
+        consume(r);
+        // :: error: (use.after.move)
+        consume(r);
+    }
+
+    void subtypesOfListedTypesAreTracked() {
+        Channel c = new Channel();
+        consume(c);
+        // :: error: (use.after.move)
+        consume(c);
+    }
+}
@@ -0,0 +1,105 @@
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.StructuredTaskScope;
+
+/**
+ * Subtasks forked in a StructuredTaskScope may share what they capture: the scope joins them
+ * before its block ends, so the caller only has to keep the values unchanged until then.
+ */
+class StructuredTaskScopeTests {
+
+    void subtasksShareCaptures() throws InterruptedException {
+        StringBuilder config = new StringBuilder("config");
+        try (var scope = StructuredTaskScope.open()) {
+            scope.fork(() -> config.length());
+            scope.fork(() -> config.length() + 1);
+            scope.join();
+        }
+        config.append("after");
+    }
+
+    void callerMayReadWhileShared() throws InterruptedException {
+        StringBuilder config = new StringBuilder("config");
+        try (var scope = StructuredTaskScope.open()) {
+            scope.fork(() -> config.length());
+            config.length();
+            scope.join();
+        }
+    }
+
+    void mutatingWhileSharedConflicts() throws InterruptedException {
+        StringBuilder config = new StringBuilder("config");
+        try (var scope = StructuredTaskScope.open()) {
+            scope.fork(() -> config.length());
+            // :: error: (borrow.conflict)
+            config.append("racy");
+            scope.join();
+        }
+    }
+
+    void movingWhileSharedConflicts() throws InterruptedException {
+        StringBuilder config = new StringBuilder("config");
+        try (var scope = StructuredTaskScope.open()) {
+            scope.fork(() -> config.length());
+            // :: error: (borrow.conflict)
+            StringBuilder stolen = config;
+            scope.join();
+        }
+    }
+
+    void handingSharedValueToExecutorConflicts(ExecutorService executor) throws InterruptedException {
+        StringBuilder config = new StringBuilder("config");
+        try (var scope = StructuredTaskScope.open()) {
+            scope.fork(() -> config.length());
+            // :: error: (borrow.conflict)
+            executor.execute(() -> config.length());
+            scope.join();
+        }
+    }
+
+    void joinEndsSharing() throws InterruptedException {
+        StringBuilder config = new StringBuilder("config");
+        try (var scope = StructuredTaskScope.open()) {
+            scope.fork(() -> config.length());
+            scope.join();
+            config.append("joined");
+        }
+    }
+
+    void closeEndsSharing() {
+        StringBuilder config = new StringBuilder("config");
+        try (var scope = StructuredTaskScope.open()) {
+            scope.fork(() -> config.length());
+        }
+        config.append("closed");
+    }
+
+    void subtaskMayNotMutateCaptures() throws InterruptedException {
+        StringBuilder config = new StringBuilder("config");
+        try (var scope = StructuredTaskScope.open()) {
+            // :: error: (method.invocation)
+            scope.fork(() -> config.append("racy"));
+            scope.join();
+        }
+    }
+
+    void subtaskMayNotMoveCaptures(BlockingQueue<StringBuilder> queue) throws InterruptedException {
+        StringBuilder config = new StringBuilder("config");
+        try (var scope = StructuredTaskScope.open()) {
+            // :: error: (argument)
+            scope.fork(() -> queue.offer(config));
+            scope.join();
+        }
+    }
+
+    void virtualThreadFanOut() throws InterruptedException {
+        StringBuilder config = new StringBuilder("config");
+        try (var scope = StructuredTaskScope.open()) {
+            for (int i = 0; i < 4; i++) {
+                scope.fork(() -> config.length());
+            }
+            scope.join();
+        }
+        config.append("done");
+    }
+}
@@ -0,0 +1,234 @@
+package name.mateusborges.maven;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import name.mateusborges.cli.OwnershipSignatures;
+
+/**
+ * The inputs of a successful check of one module: digests of its sources, of the checker
+ * options and of the checker itself, and the ownership signature of every classpath entry (see
+ * {@link OwnershipSignatures}). A module whose inputs equal those of its last successful check
+ * does not need to be checked again.
+ *
+ * <p>Signatures are only computed for entries built in the current reactor, where an edit to a
+ * method body rebuilds a dependency without changing what its users are checked against.
+ * Reading the signatures of a jar loads all its classes, which takes seconds for a large jar, so
+ * jars from the local repository are digested by content instead. Each entry is also stamped
+ * with its size and modification times. An entry with an unchanged stamp keeps the digest of the
+ * previous state, so it is not read again.
+ */
+final class CheckState {
+
+    /** A classpath entry: a cheap stamp of its files and the digest of its ownership signatures. */
+    record Entry(String stamp, String signatures) {
+    }
+
+    private final String sources;
+    private final String options;
+    private final String checker;
+    private final Map<String, Entry> classpath;
+
+    private CheckState(String sources, String options, String checker, Map<String, Entry> classpath) {
+        this.sources = sources;
+        this.options = options;
+        this.checker = checker;
+        this.classpath = classpath;
+    }
+
+    /**
+     * Computes the state of a module.
+     *
+     * @param files the sources to check
+     * @param classpath the compile classpath of the sources
+     * @param options the javac options of the check, including the classpath
+     * @param checker the location of the checker classes
+     * @param previous the state of the last successful check, or null
+     * @param byContent the classpath entries digested by content rather than by signature
+     * @return the current state
+     * @throws IOException if a file cannot be read
+     */
+    static CheckState compute(List<Path> files, List<Path> classpath, List<String> options, Path checker,
+            CheckState previous, Predicate<Path> byContent) throws IOException {
+        MessageDigest sources = sha256();
+        for (Path file : files) {
+            update(sources, file.toString());
+            sources.update(Files.readAllBytes(file));
+        }
+        MessageDigest optionsDigest = sha256();
+        options.forEach(option -> update(optionsDigest, option));
+
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        URLClassLoader loader = null;
+        try {
+            for (Path path : classpath) {
+                String key = path.toString();
+                String stamp = stamp(path);
+                Entry old = previous == null ? null : previous.classpath.get(key);
+                if (old != null && old.stamp().equals(stamp)) {
+                    entries.put(key, old);
+                    continue;
+                }
+                if (byContent.test(path)) {
+                    entries.put(key, new Entry(stamp, contentDigest(path)));
+                    continue;
+                }
+                if (loader == null) {
+                    loader = loader(classpath);
+                }
+                entries.put(key, new Entry(stamp, OwnershipSignatures.digest(path, loader)));
+            }
+        } finally {
+            if (loader != null) {
+                loader.close();
+            }
+        }
+        return new CheckState(hex(sources), hex(optionsDigest), stamp(checker), entries);
+    }
+
+    /**
+     * Checks whether a module with this state can skip its check.
+     *
+     * @param previous the state of the last successful check, or null
+     * @return true if sources, options and checker are unchanged and no classpath entry has a
+     *         different ownership signature
+     */
+    boolean sameInputs(CheckState previous) {
+        if (previous == null || !sources.equals(previous.sources) || !options.equals(previous.options)
+                || !checker.equals(previous.checker) || !classpath.keySet().equals(previous.classpath.keySet())) {
+            return false;
+        }
+        for (Map.Entry<String, Entry> entry : classpath.entrySet()) {
+            if (!entry.getValue().signatures().equals(previous.classpath.get(entry.getKey()).signatures())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a state written by {@link #write}.
+     *
+     * @param file the state file
+     * @return the state, or null if the file does not exist or cannot be understood
+     */
+    static CheckState read(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        Map<String, Entry> classpath = new LinkedHashMap<>();
+        for (int i = 0; properties.containsKey("classpath." + i + ".path"); i++) {
+            classpath.put(properties.getProperty("classpath." + i + ".path"), new Entry(
+                    properties.getProperty("classpath." + i + ".stamp", ""),
+                    properties.getProperty("classpath." + i + ".signatures", "")));
+        }
+        String sources = properties.getProperty("sources");
+        String options = properties.getProperty("options");
+        String checker = properties.getProperty("checker");
+        if (sources == null || options == null || checker == null) {
+            return null;
+        }
+        return new CheckState(sources, options, checker, classpath);
+    }
+
+    /** Writes the state, replacing any previous one. */
+    void write(Path file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("sources", sources);
+        properties.setProperty("options", options);
+        properties.setProperty("checker", checker);
+        int i = 0;
+        for (Map.Entry<String, Entry> entry : classpath.entrySet()) {
+            properties.setProperty("classpath." + i + ".path", entry.getKey());
+            properties.setProperty("classpath." + i + ".stamp", entry.getValue().stamp());
+            properties.setProperty("classpath." + i + ".signatures", entry.getValue().signatures());
+            i++;
+        }
+        Files.createDirectories(file.getParent());
+        try (OutputStream out = Files.newOutputStream(file)) {
+            properties.store(out, "Inputs of the last successful Hemileia check");
+        }
+    }
+
+    /** Sizes and modification times of a file or of every file in a directory. */
+    private static String stamp(Path path) throws IOException {
+        if (Files.isRegularFile(path)) {
+            return Files.size(path) + ":" + Files.getLastModifiedTime(path).toMillis();
+        }
+        if (!Files.isDirectory(path)) {
+            return "missing";
+        }
+        MessageDigest digest = sha256();
+        try (Stream<Path> walk = Files.walk(path)) {
+            for (Path file : walk.filter(Files::isRegularFile).sorted().toList()) {
+                update(digest, path.relativize(file) + ":" + Files.size(file) + ":"
+                        + Files.getLastModifiedTime(file).toMillis());
+            }
+        }
+        return hex(digest);
+    }
+
+    private static String contentDigest(Path path) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return stamp(path);
+        }
+        MessageDigest digest = sha256();
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] buffer = new byte[1 << 16];
+            for (int n; (n = in.read(buffer)) > 0;) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return hex(digest);
+    }
+
+    /** Loads the classpath without initializing classes, and without this plugin's classes. */
+    private static URLClassLoader loader(List<Path> classpath) {
+        URL[] urls = classpath.stream().map(path -> {
+            try {
+                return path.toUri().toURL();
+            } catch (MalformedURLException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).toArray(URL[]::new);
+        return new URLClassLoader(urls, ClassLoader.getPlatformClassLoader());
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static String hex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
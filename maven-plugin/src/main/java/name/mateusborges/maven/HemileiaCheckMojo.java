@@ -0,0 +1,245 @@
+package name.mateusborges.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.Diagnostic;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+import name.mateusborges.checker.HemileiaChecker;
+import name.mateusborges.cli.CheckerRun;
+
+/**
+ * The {@code hemileia:check} goal: checks the main sources of a module with
+ * {@link HemileiaChecker}, in-process in the Maven JVM.
+ *
+ * <p>The goal is thread-safe, so {@code mvn -T N} checks independent modules of a reactor in
+ * parallel. Within a module the sources can also be split into {@code shards} javac tasks, like
+ * {@code hemileia check} does (see {@link CheckerRun}); the statistics and copy report options
+ * then write one file with the reports of all shards.
+ *
+ * <p>After a check without errors the inputs are recorded in {@code target/hemileia} (see
+ * {@link CheckState}). The next run skips the module if its sources, the checker and its options
+ * are unchanged, no jar on its classpath changed, and no module of the reactor it depends on
+ * changed its ownership signature; a reactor module that was only recompiled after an edit
+ * inside a method body does not trigger a check. Each module logs how long its check took, or
+ * that it was skipped.
+ *
+ * <p>javac runs in the Maven JVM, so Maven itself needs the {@code --add-exports} flags of the
+ * Checker Framework, e.g. in {@code .mvn/jvm.config}.
+ */
+@Mojo(name = "check", defaultPhase = LifecyclePhase.PROCESS_CLASSES, threadSafe = true,
+        requiresDependencyResolution = ResolutionScope.COMPILE)
+public class HemileiaCheckMojo extends AbstractMojo {
+
+    /** Packages of {@code jdk.compiler} that the Checker Framework accesses. */
+    private static final List<String> EXPORTED_PACKAGES = List.of("api", "code", "comp", "file", "main", "model",
+            "parser", "processing", "tree", "util");
+
+    /** Packages of {@code jdk.compiler} that the Checker Framework accesses reflectively. */
+    private static final List<String> OPENED_PACKAGES = List.of("code", "comp");
+
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    private MavenProject project;
+
+    @Parameter(defaultValue = "${settings.localRepository}", readonly = true)
+    private File localRepository;
+
+    /** Checker options, e.g. {@code <option>-Ahemileia.trackedTypes=java.io.Closeable</option>}. */
+    @Parameter
+    private List<String> options = new ArrayList<>();
+
+    /** Number of javac tasks a module's sources are split into. */
+    @Parameter(property = "hemileia.shards", defaultValue = "1")
+    private int shards;
+
+    /** Whether modules whose inputs are unchanged since their last successful check are skipped. */
+    @Parameter(property = "hemileia.incremental", defaultValue = "true")
+    private boolean incremental;
+
+    /** Whether checker errors fail the build. */
+    @Parameter(property = "hemileia.failOnError", defaultValue = "true")
+    private boolean failOnError;
+
+    @Parameter(property = "hemileia.skip", defaultValue = "false")
+    private boolean skip;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (skip) {
+            getLog().info("Hemileia: skipped");
+            return;
+        }
+        if (shards <= 0) {
+            throw new MojoExecutionException("hemileia.shards must be positive, got " + shards);
+        }
+        List<Path> roots = project.getCompileSourceRoots().stream()
+                .map(Path::of)
+                .filter(Files::isDirectory)
+                .toList();
+        try {
+            List<Path> files = sources(roots);
+            if (files.isEmpty()) {
+                getLog().info("Hemileia: no sources to check");
+                return;
+            }
+            checkCompilerAccess();
+            long start = System.nanoTime();
+            List<Path> classpath = classpath();
+            List<String> javacOptions = javacOptions(roots, classpath);
+            Path stateFile = Path.of(project.getBuild().getDirectory(), "hemileia", "check.properties");
+            CheckState previous = incremental ? CheckState.read(stateFile) : null;
+            Path repository = localRepository == null ? null : localRepository.toPath().toAbsolutePath().normalize();
+            CheckState current = CheckState.compute(files, classpath, javacOptions, checkerLocation(), previous,
+                    path -> repository != null && path.startsWith(repository));
+            if (current.sameInputs(previous)) {
+                getLog().info(String.format("Hemileia: %d files up to date, skipped in %d ms", files.size(),
+                        (System.nanoTime() - start) / 1_000_000));
+                return;
+            }
+            Files.deleteIfExists(stateFile);
+
+            List<HemileiaChecker> checkers = Collections.synchronizedList(new ArrayList<>());
+            List<CheckerRun.Result> results = CheckerRun.compileAll(
+                    CheckerRun.partition(files, Math.min(shards, files.size())), javacOptions, () -> {
+                        HemileiaChecker checker = new HemileiaChecker();
+                        checker.deferReports();
+                        checkers.add(checker);
+                        return List.of(checker);
+                    });
+            TreeSet<CheckerRun.Finding> findings = new TreeSet<>();
+            results.forEach(result -> findings.addAll(result.findings()));
+            long errors = report(findings);
+            HemileiaChecker.writeReports(checkers, (kind, message) -> {
+                if (kind == Diagnostic.Kind.NOTE) {
+                    getLog().info(message);
+                } else {
+                    getLog().warn(message);
+                }
+            });
+            getLog().info(String.format("Hemileia: %d files checked in %d ms (%d errors, %d warnings)",
+                    files.size(), (System.nanoTime() - start) / 1_000_000, errors,
+                    findings.stream().filter(f -> isWarning(f.kind())).count()));
+
+            if (errors == 0) {
+                current.write(stateFile);
+            } else if (failOnError) {
+                throw new MojoFailureException("Hemileia reported " + errors + " errors");
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Hemileia check failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Hemileia check interrupted", e);
+        }
+    }
+
+    /** Logs each finding at its level and returns the number of errors. */
+    private long report(Iterable<CheckerRun.Finding> findings) {
+        long errors = 0;
+        for (CheckerRun.Finding finding : findings) {
+            if (finding.kind() == Diagnostic.Kind.ERROR) {
+                getLog().error(finding.format());
+                errors++;
+            } else if (isWarning(finding.kind())) {
+                getLog().warn(finding.format());
+            } else {
+                getLog().info(finding.format());
+            }
+        }
+        return errors;
+    }
+
+    private static boolean isWarning(Diagnostic.Kind kind) {
+        return kind == Diagnostic.Kind.WARNING || kind == Diagnostic.Kind.MANDATORY_WARNING;
+    }
+
+    private static List<Path> sources(List<Path> roots) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path root : roots) {
+            try (Stream<Path> walk = Files.walk(root)) {
+                walk.filter(p -> p.toString().endsWith(".java") && Files.isRegularFile(p))
+                        .map(p -> p.toAbsolutePath().normalize())
+                        .forEach(files::add);
+            }
+        }
+        return files.stream().distinct().sorted().toList();
+    }
+
+    /** The compile classpath without the module's own output, which the sources replace. */
+    private List<Path> classpath() throws MojoExecutionException {
+        Path output = Path.of(project.getBuild().getOutputDirectory()).toAbsolutePath().normalize();
+        try {
+            return project.getCompileClasspathElements().stream()
+                    .map(element -> Path.of(element).toAbsolutePath().normalize())
+                    .filter(path -> !path.equals(output))
+                    .toList();
+        } catch (DependencyResolutionRequiredException e) {
+            throw new MojoExecutionException("cannot resolve the compile classpath", e);
+        }
+    }
+
+    private List<String> javacOptions(List<Path> roots, List<Path> classpath) {
+        List<String> javacOptions = new ArrayList<>();
+        javacOptions.add("-sourcepath");
+        javacOptions.add(roots.stream().map(Path::toString).collect(Collectors.joining(File.pathSeparator)));
+        javacOptions.add("-classpath");
+        javacOptions.add(classpath.stream().map(Path::toString).collect(Collectors.joining(File.pathSeparator)));
+        javacOptions.addAll(options);
+        return javacOptions;
+    }
+
+    /** The jar or directory the checker was loaded from; a new build of it invalidates all states. */
+    private static Path checkerLocation() throws MojoExecutionException {
+        CodeSource source = HemileiaChecker.class.getProtectionDomain().getCodeSource();
+        if (source == null) {
+            throw new MojoExecutionException("cannot locate the Hemileia checker");
+        }
+        try {
+            return Path.of(source.getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new MojoExecutionException("cannot locate the Hemileia checker", e);
+        }
+    }
+
+    /** Fails with instructions if Maven was started without the flags the Checker Framework needs. */
+    private void checkCompilerAccess() throws MojoExecutionException {
+        Module compiler = ModuleLayer.boot().findModule("jdk.compiler")
+                .orElseThrow(() -> new MojoExecutionException("Hemileia needs a JDK with the jdk.compiler module"));
+        Module self = getClass().getModule();
+        List<String> missing = new ArrayList<>();
+        for (String name : EXPORTED_PACKAGES) {
+            if (!compiler.isExported("com.sun.tools.javac." + name, self)) {
+                missing.add("--add-exports=jdk.compiler/com.sun.tools.javac." + name + "=ALL-UNNAMED");
+            }
+        }
+        for (String name : OPENED_PACKAGES) {
+            if (!compiler.isOpen("com.sun.tools.javac." + name, self)) {
+                missing.add("--add-opens=jdk.compiler/com.sun.tools.javac." + name + "=ALL-UNNAMED");
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new MojoExecutionException("Hemileia runs javac inside Maven, which must be started with "
+                    + String.join(" ", missing) + "; add these lines to .mvn/jvm.config");
+        }
+    }
+}
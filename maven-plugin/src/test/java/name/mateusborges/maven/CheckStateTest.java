@@ -0,0 +1,160 @@
+package name.mateusborges.maven;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import name.mateusborges.annotations.Owned;
+
+/**
+ * Checks when {@link CheckState} lets a module skip its check.
+ */
+public class CheckStateTest {
+
+    private static final String LIBRARY = """
+            import name.mateusborges.annotations.Borrowed;
+            import name.mateusborges.annotations.Owned;
+
+            public class Library {
+                public void consume(%s StringBuilder sb) {
+                    %s
+                }
+            }
+            """;
+
+    @TempDir
+    Path temp;
+
+    @Test
+    public void stateSurvivesWriteAndRead() throws IOException {
+        Path library = compile("library", "@Owned", "sb.append(1);");
+        CheckState state = compute(List.of(library), null);
+        Path file = temp.resolve("target/hemileia/check.properties");
+        state.write(file);
+        CheckState read = CheckState.read(file);
+        assertTrue(state.sameInputs(read));
+        assertTrue(read.sameInputs(state));
+    }
+
+    @Test
+    public void missingOrIncompleteStateIsNull() throws IOException {
+        assertNull(CheckState.read(temp.resolve("none.properties")));
+        Path file = Files.writeString(temp.resolve("partial.properties"), "sources=abc\n");
+        assertNull(CheckState.read(file));
+        assertFalse(compute(List.of(), null).sameInputs(null));
+    }
+
+    @Test
+    public void changedSourcesOrOptionsAreChecked() throws IOException {
+        CheckState state = compute(List.of(), null);
+        Files.writeString(temp.resolve("Checked.java"), "class Checked { int x; }");
+        assertFalse(compute(List.of(), null).sameInputs(state));
+        Files.writeString(temp.resolve("Checked.java"), "class Checked {}");
+        assertFalse(CheckState.compute(List.of(source()), List.of(), List.of("-Ahemileia.stats"), checker(), null,
+                path -> false).sameInputs(state));
+    }
+
+    @Test
+    public void bodyOnlyRebuildOfReactorModuleIsSkipped() throws IOException {
+        Path library = compile("library", "@Owned", "sb.append(1);");
+        CheckState state = compute(List.of(library), null);
+        touch(compile("library", "@Owned", "sb.append(2); sb.reverse();"));
+        assertTrue(compute(List.of(library), state).sameInputs(state));
+    }
+
+    @Test
+    public void changedQualifierOfReactorModuleIsChecked() throws IOException {
+        Path library = compile("library", "@Owned", "sb.append(1);");
+        CheckState state = compute(List.of(library), null);
+        touch(compile("library", "@Borrowed", "sb.append(1);"));
+        assertFalse(compute(List.of(library), state).sameInputs(state));
+    }
+
+    @Test
+    public void unchangedStampReusesThePreviousDigest() throws IOException {
+        Path library = compile("library", "@Owned", "sb.append(1);");
+        Path file = temp.resolve("check.properties");
+        compute(List.of(library), null).write(file);
+        Files.writeString(file, Files.readString(file).replaceAll("(classpath\\.0\\.signatures=).*", "$1stale"));
+        CheckState stale = CheckState.read(file);
+
+        // The entry is not read again, so the stale digest is carried over
+        assertTrue(compute(List.of(library), stale).sameInputs(stale));
+        assertFalse(compute(List.of(library), null).sameInputs(stale));
+    }
+
+    @Test
+    public void repositoryJarsAreDigestedByContent() throws IOException {
+        Path jar = Files.write(temp.resolve("dependency.jar"), new byte[] {1, 2, 3});
+        CheckState state = CheckState.compute(List.of(source()), List.of(jar), List.of(), checker(), null,
+                path -> true);
+        Files.write(jar, new byte[] {1, 2, 4});
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 2000));
+        assertFalse(CheckState.compute(List.of(source()), List.of(jar), List.of(), checker(), state, path -> true)
+                .sameInputs(state));
+    }
+
+    /**
+     * Computes the state with the annotations on the classpath after {@code classpath}, as in a
+     * module that uses them; without them the loaded classes carry no qualifiers.
+     */
+    private CheckState compute(List<Path> classpath, CheckState previous) throws IOException {
+        List<Path> withAnnotations = new ArrayList<>(classpath);
+        try {
+            withAnnotations.add(Path.of(Owned.class.getProtectionDomain().getCodeSource().getLocation().toURI()));
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+        return CheckState.compute(List.of(source()), withAnnotations, List.of(), checker(), previous,
+                path -> false);
+    }
+
+    private Path source() throws IOException {
+        Path file = temp.resolve("Checked.java");
+        if (!Files.exists(file)) {
+            Files.writeString(file, "class Checked {}");
+        }
+        return file;
+    }
+
+    private Path checker() throws IOException {
+        return Files.createDirectories(temp.resolve("checker"));
+    }
+
+    /** Compiles the library into {@code directory}, replacing what was there. */
+    private Path compile(String directory, String qualifier, String body) throws IOException {
+        Path sources = Files.createDirectories(temp.resolve(directory + "-src"));
+        Path classes = Files.createDirectories(temp.resolve(directory));
+        Path source = Files.writeString(sources.resolve("Library.java"), LIBRARY.formatted(qualifier, body));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        int exit = compiler.run(null, null, null, "-classpath", System.getProperty("java.class.path"),
+                "-d", classes.toString(), source.toString());
+        assertEquals(0, exit);
+        return classes;
+    }
+
+    /** Moves the modification times forward so the new class files get a new stamp. */
+    private static void touch(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 2000));
+            }
+        }
+    }
+}
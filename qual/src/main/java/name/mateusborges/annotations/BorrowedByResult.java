@@ -0,0 +1,27 @@
+package name.mateusborges.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a parameter whose argument the method's result holds until the result ends its borrows
+ * (see {@link EndsBorrows}).
+ * Equivalent to a Rust function returning a value with the lifetime of its argument.
+ *
+ * <p>If the parameter is {@code @MutBorrowed} the result holds the argument exclusively: the
+ * caller may not use it at all until the borrows end. Otherwise the caller may still read it,
+ * but borrowing it mutably or moving it is an error.
+ *
+ * <p>Example:
+ * <pre>
+ * try (ArraySlice&lt;byte[]&gt; slice = ArraySlice.of(data)) {  // &#64;BorrowedByResult: slice holds data
+ *     data[0] = 1;                                      // error: data is held by slice
+ * }                                                     // &#64;EndsBorrows: data is released
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface BorrowedByResult {
+}
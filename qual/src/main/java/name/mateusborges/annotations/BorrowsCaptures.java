@@ -0,0 +1,29 @@
+package name.mateusborges.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a parameter whose lambda argument shares what it captures with the receiver until the
+ * receiver ends its borrows (see {@link EndsBorrows}).
+ * Equivalent to a closure passed to Rust's {@code std::thread::Scope::spawn}.
+ *
+ * <p>Inside the lambda, captured variables are {@code @Borrowed}: the task may read them but not
+ * mutate or move them. Until the receiver's borrows end, the caller may read them too, but
+ * borrowing them mutably or moving them is an error.
+ *
+ * <p>Example:
+ * <pre>
+ * try (var scope = StructuredTaskScope.open()) {
+ *     scope.fork(() -&gt; config.length());     // &#64;BorrowsCaptures: scope shares config
+ *     config.append("x");                    // error: config is shared with a subtask
+ *     scope.join();                          // &#64;EndsBorrows: the subtasks are done
+ * }
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface BorrowsCaptures {
+}
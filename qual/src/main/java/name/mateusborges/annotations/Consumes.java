@@ -0,0 +1,26 @@
+package name.mateusborges.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method that takes ownership of its receiver.
+ * Equivalent to a Rust method taking {@code self} by value.
+ *
+ * <p>After the call the receiver is moved: using it again is an error, and so is using any value
+ * that borrows from it. Closing methods of resources are the typical case.
+ *
+ * <p>Example:
+ * <pre>
+ * Arena arena = Arena.ofConfined();
+ * MemorySegment segment = arena.allocate(16);  // borrows from arena
+ * arena.close();                              // &#64;Consumes: arena is moved
+ * segment.get(ValueLayout.JAVA_INT, 0);       // error: segment outlived arena
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Consumes {
+}
@@ -0,0 +1,23 @@
+package name.mateusborges.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method after which the receiver holds no borrows taken through
+ * {@link BorrowsCaptures} or {@link BorrowedByResult} parameters, e.g. because the tasks that
+ * used them have completed. Equivalent to the end of a Rust {@code std::thread::scope} block.
+ *
+ * <p>On a parameter, the method runs its argument to completion, e.g.
+ * {@code ForkJoinPool.invoke(task)}: the borrows held by the argument, and by the variables moved
+ * into it, such as {@code slice} in {@code new SortTask(slice)}, end when the method returns.
+ *
+ * <p>A receiver that was moved keeps its borrows: they went with it, e.g. into a task that has
+ * not completed yet.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.PARAMETER})
+public @interface EndsBorrows {
+}
@@ -0,0 +1,27 @@
+package name.mateusborges.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method that structurally modifies its receiver, so that values borrowing from it (see
+ * {@link ReturnsBorrow}) are no longer valid.
+ * Equivalent to a Rust method taking {@code &mut self}, such as {@code Vec::push}, called while
+ * the receiver is borrowed.
+ *
+ * <p>Calling the method is an error if a value borrowing from the receiver is used afterwards,
+ * e.g. an iterator over a collection the method adds to.
+ *
+ * <p>Example:
+ * <pre>
+ * Iterator&lt;String&gt; it = names.iterator();  // borrows from names
+ * names.add("x");                           // error: it is used below
+ * it.next();
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface InvalidatesBorrows {
+}
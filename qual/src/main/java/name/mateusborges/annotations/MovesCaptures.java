@@ -0,0 +1,27 @@
+package name.mateusborges.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a parameter that takes ownership of everything a lambda, method reference or anonymous
+ * class passed to it captures.
+ * Equivalent to a Rust {@code move} closure passed to {@code std::thread::spawn}.
+ *
+ * <p>After the call every {@code @Owned} local variable the argument captures is moved, so the
+ * caller can no longer use it. Parameters that run the argument on another thread, such as
+ * {@code Executor.execute}, are the typical case.
+ *
+ * <p>Example:
+ * <pre>
+ * StringBuilder log = new StringBuilder();
+ * executor.execute(() -&gt; log.append("done"));  // &#64;MovesCaptures: log is moved
+ * log.append("more");                         // error: log was moved to the task
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface MovesCaptures {
+}
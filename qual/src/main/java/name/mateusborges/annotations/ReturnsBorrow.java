@@ -0,0 +1,25 @@
+package name.mateusborges.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method whose result borrows from its receiver.
+ * Equivalent to a Rust method returning a reference with the lifetime of {@code &self}.
+ *
+ * <p>A variable that holds the result is valid only as long as the receiver is: once the
+ * receiver is moved or consumed (see {@link Consumes}), using the variable is an error. The
+ * result must not be returned from or stored outside the method that owns the receiver.
+ *
+ * <p>Example:
+ * <pre>
+ * MemorySegment segment = arena.allocate(16);  // borrows from arena
+ * MemorySegment slice = segment.asSlice(8);    // borrows from segment, and so from arena
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ReturnsBorrow {
+}
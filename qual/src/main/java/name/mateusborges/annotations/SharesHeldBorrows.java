@@ -0,0 +1,29 @@
+package name.mateusborges.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method whose result holds what its receiver holds (see {@link BorrowedByResult}), e.g.
+ * a piece split off a slice. Equivalent to a Rust method returning a value with the lifetime the
+ * receiver borrows for.
+ *
+ * <p>The held variables stay held until the receiver and every variable holding the result have
+ * ended their borrows (see {@link EndsBorrows}). The result must not be returned from or stored
+ * outside the method that owns the receiver.
+ *
+ * <p>Example:
+ * <pre>
+ * try (ArraySlice&lt;byte[]&gt; slice = ArraySlice.of(data)) {  // slice holds data
+ *     ArraySlice&lt;byte[]&gt; right = slice.splitOff(8);       // right holds data too
+ *     new SortTask(right).fork();                          // the task holds it now
+ * }
+ * data[0] = 1;                                             // error: the task was never joined
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface SharesHeldBorrows {
+}
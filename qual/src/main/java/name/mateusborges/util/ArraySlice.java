@@ -0,0 +1,371 @@
+package name.mateusborges.util;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+import name.mateusborges.annotations.Borrowed;
+import name.mateusborges.annotations.BorrowedByResult;
+import name.mateusborges.annotations.EndsBorrows;
+import name.mateusborges.annotations.MutBorrowed;
+import name.mateusborges.annotations.ReturnsBorrow;
+import name.mateusborges.annotations.SharesHeldBorrows;
+
+/**
+ * A range of an array that one task may mutate while other tasks mutate other ranges of the same
+ * array. Equivalent to a Rust {@code &mut [T]}, with {@link #splitOff} as its
+ * {@code split_at_mut}.
+ *
+ * <p>{@link #of} holds the array exclusively until {@link #close}: the checker reports any use of
+ * the array in between, if it tracks the array's type ({@code byte[]} by default). A slice and the
+ * slices split off it cover disjoint ranges, and each one is an {@code @Owned} value that moves
+ * into the task it is handed to, so no two tasks can reach the same element. The array itself is
+ * not exposed: the accessors, such as {@link #getByte} and {@link #setByte}, the buffer of
+ * {@link #asByteBuffer} and {@link #sort} only reach the slice's range.
+ *
+ * <p>Every piece holds the array too, and a piece moved into a task keeps holding it until the
+ * task is joined or invoked, e.g. by {@code ForkJoinTask.invokeAll}. The array is released once
+ * the slice and every piece have ended their borrows, not when the slice alone is closed.
+ *
+ * <p>Example:
+ * <pre>
+ * try (ArraySlice&lt;byte[]&gt; slice = ArraySlice.of(data)) {
+ *     ArraySlice&lt;byte[]&gt; right = slice.splitOff(slice.length() / 2);
+ *     ForkJoinTask.invokeAll(new SortTask(slice), new SortTask(right));
+ * }
+ * </pre>
+ *
+ * @param <A> the array type, e.g. {@code byte[]}
+ */
+public final class ArraySlice<A> implements AutoCloseable {
+
+    private final A array;
+    private final int from;
+    private int to;
+
+    private ArraySlice(A array, int from, int to) {
+        this.array = array;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Returns a slice of a whole array.
+     *
+     * @param array the array
+     * @return the slice, which holds the array until it is closed
+     * @throws IllegalArgumentException if {@code array} is not an array
+     */
+    public static <A> ArraySlice<A> of(@BorrowedByResult @MutBorrowed A array) {
+        return new ArraySlice<>(array, 0, Array.getLength(array));
+    }
+
+    /**
+     * Returns a slice of the range {@code [from, to)} of an array.
+     *
+     * @param array the array
+     * @param from the first index of the range
+     * @param to the index after the last one of the range
+     * @return the slice, which holds the array until it is closed
+     * @throws IllegalArgumentException if {@code array} is not an array
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public static <A> ArraySlice<A> of(@BorrowedByResult @MutBorrowed A array, int from, int to) {
+        Objects.checkFromToIndex(from, to, Array.getLength(array));
+        return new ArraySlice<>(array, from, to);
+    }
+
+    /**
+     * Returns an element of this slice of an array of references. Arrays of primitives have
+     * their own accessors, such as {@link #getInt}, which do not box.
+     *
+     * @param index the index within this slice, from 0 to {@link #length} exclusive
+     * @return the element
+     * @throws IndexOutOfBoundsException if {@code index} is outside this slice
+     * @throws ClassCastException if the array is an array of primitives
+     */
+    public Object get(@Borrowed ArraySlice<A> this, int index) {
+        return ((Object[]) array)[index(index)];
+    }
+
+    /**
+     * Replaces an element of this slice of an array of references.
+     *
+     * @param index the index within this slice, from 0 to {@link #length} exclusive
+     * @param value the new element
+     * @throws IndexOutOfBoundsException if {@code index} is outside this slice
+     * @throws ClassCastException if the array is an array of primitives
+     * @throws ArrayStoreException if {@code value} cannot be stored in the array
+     */
+    public void set(@MutBorrowed ArraySlice<A> this, int index, Object value) {
+        ((Object[]) array)[index(index)] = value;
+    }
+
+    /**
+     * Returns an element of this slice of a {@code boolean[]}.
+     *
+     * @param index the index within this slice, from 0 to {@link #length} exclusive
+     * @throws IndexOutOfBoundsException if {@code index} is outside this slice
+     * @throws ClassCastException if the array is not a {@code boolean[]}
+     */
+    public boolean getBoolean(@Borrowed ArraySlice<A> this, int index) {
+        return ((boolean[]) array)[index(index)];
+    }
+
+    /**
+     * Replaces an element of this slice of a {@code boolean[]}.
+     *
+     * @param index the index within this slice, from 0 to {@link #length} exclusive
+     * @param value the new element
+     * @throws IndexOutOfBoundsException if {@code index} is outside this slice
+     * @throws ClassCastException if the array is not a {@code boolean[]}
+     */
+    public void setBoolean(@MutBorrowed ArraySlice<A> this, int index, boolean value) {
+        ((boolean[]) array)[index(index)] = value;
+    }
+
+    /**
+     * Returns an element of this slice of a {@code byte[]}.
+     *
+     * @param index the index within this slice, from 0 to {@link #length} exclusive
+     * @throws IndexOutOfBoundsException if {@code index} is outside this slice
+     * @throws ClassCastException if the array is not a {@code byte[]}
+     */
+    public byte getByte(@Borrowed ArraySlice<A> this, int index) {
+        return ((byte[]) array)[index(index)];
+    }
+
+    /**
+     * Replaces an element of this slice of a {@code byte[]}.
+     *
+     * @param index the index within this slice, from 0 to {@link #length} exclusive
+     * @param value the new element
+     * @throws IndexOutOfBoundsException if {@code index} is outside this slice
+     * @throws ClassCastException if the array is not a {@code byte[]}
+     */
+    public void setByte(@MutBorrowed ArraySlice<A> this, int index, byte value) {
+        ((byte[]) array)[index(index)] = value;
+    }
+
+    /**
+     * Returns an element of this slice of a {@code short[]}.
+     *
+     * @param index the index within this slice, from 0 to {@link #length} exclusive
+     * @throws IndexOutOfBoundsException if {@code index} is outside this slice
+     * @throws ClassCastException if the array is not a {@code short[]}
+     */
+    public short getShort(@Borrowed ArraySlice<A> this, int index) {
+        return ((short[]) array)[index(index)];
+    }
+
+    /**
+     * Replaces an element of this slice of a {@code short[]}.
+     *
+     * @param index the index within this slice, from 0 to {@link #length} exclusive
+     * @param value the new element
+     * @throws IndexOutOfBoundsException if {@code index} is outside this slice
+     * @throws ClassCastException if the array is not a {@code short[]}
+     */
+    public void setShort(@MutBorrowed ArraySlice<A> this, int index, short value) {
+        ((short[]) array)[index(index)] = value;
+    }
+
+    /**
+     * Returns an element of this slice of a {@code char[]}.
+     *
+     * @param index the index within this slice, from 0 to {@link #length} exclusive
+     * @throws IndexOutOfBoundsException if {@code index} is outside this slice
+     * @throws ClassCastException if the array is not a {@code char[]}
+     */
+    public char getChar(@Borrowed ArraySlice<A> this, int index) {
+        return ((char[]) array)[index(index)];
+    }
+
+    /**
+     * Replaces an element of this slice of a {@code char[]}.
+     *
+     * @param index the index within this slice, from 0 to {@link #length} exclusive
+     * @param value the new element
+     * @throws IndexOutOfBoundsException if {@code index} is outside this slice
+     * @throws ClassCastException if the array is not a {@code char[]}
+     */
+    public void setChar(@MutBorrowed ArraySlice<A> this, int index, char value) {
+        ((char[]) array)[index(index)] = value;
+    }
+
+    /**
+     * Returns an element of this slice of a {@code int[]}.
+     *
+     * @param index the index within this slice, from 0 to {@link #length} exclusive
+     * @throws IndexOutOfBoundsException if {@code index} is outside this slice
+     * @throws ClassCastException if the array is not a {@code int[]}
+     */
+    public int getInt(@Borrowed ArraySlice<A> this, int index) {
+        return ((int[]) array)[index(index)];
+    }
+
+    /**
+     * Replaces an element of this slice of a {@code int[]}.
+     *
+     * @param index the index within this slice, from 0 to {@link #length} exclusive
+     * @param value the new element
+     * @throws IndexOutOfBoundsException if {@code index} is outside this slice
+     * @throws ClassCastException if the array is not a {@code int[]}
+     */
+    public void setInt(@MutBorrowed ArraySlice<A> this, int index, int value) {
+        ((int[]) array)[index(index)] = value;
+    }
+
+    /**
+     * Returns an element of this slice of a {@code long[]}.
+     *
+     * @param index the index within this slice, from 0 to {@link #length} exclusive
+     * @throws IndexOutOfBoundsException if {@code index} is outside this slice
+     * @throws ClassCastException if the array is not a {@code long[]}
+     */
+    public long getLong(@Borrowed ArraySlice<A> this, int index) {
+        return ((long[]) array)[index(index)];
+    }
+
+    /**
+     * Replaces an element of this slice of a {@code long[]}.
+     *
+     * @param index the index within this slice, from 0 to {@link #length} exclusive
+     * @param value the new element
+     * @throws IndexOutOfBoundsException if {@code index} is outside this slice
+     * @throws ClassCastException if the array is not a {@code long[]}
+     */
+    public void setLong(@MutBorrowed ArraySlice<A> this, int index, long value) {
+        ((long[]) array)[index(index)] = value;
+    }
+
+    /**
+     * Returns an element of this slice of a {@code float[]}.
+     *
+     * @param index the index within this slice, from 0 to {@link #length} exclusive
+     * @throws IndexOutOfBoundsException if {@code index} is outside this slice
+     * @throws ClassCastException if the array is not a {@code float[]}
+     */
+    public float getFloat(@Borrowed ArraySlice<A> this, int index) {
+        return ((float[]) array)[index(index)];
+    }
+
+    /**
+     * Replaces an element of this slice of a {@code float[]}.
+     *
+     * @param index the index within this slice, from 0 to {@link #length} exclusive
+     * @param value the new element
+     * @throws IndexOutOfBoundsException if {@code index} is outside this slice
+     * @throws ClassCastException if the array is not a {@code float[]}
+     */
+    public void setFloat(@MutBorrowed ArraySlice<A> this, int index, float value) {
+        ((float[]) array)[index(index)] = value;
+    }
+
+    /**
+     * Returns an element of this slice of a {@code double[]}.
+     *
+     * @param index the index within this slice, from 0 to {@link #length} exclusive
+     * @throws IndexOutOfBoundsException if {@code index} is outside this slice
+     * @throws ClassCastException if the array is not a {@code double[]}
+     */
+    public double getDouble(@Borrowed ArraySlice<A> this, int index) {
+        return ((double[]) array)[index(index)];
+    }
+
+    /**
+     * Replaces an element of this slice of a {@code double[]}.
+     *
+     * @param index the index within this slice, from 0 to {@link #length} exclusive
+     * @param value the new element
+     * @throws IndexOutOfBoundsException if {@code index} is outside this slice
+     * @throws ClassCastException if the array is not a {@code double[]}
+     */
+    public void setDouble(@MutBorrowed ArraySlice<A> this, int index, double value) {
+        ((double[]) array)[index(index)] = value;
+    }
+
+    /**
+     * Returns a buffer over this slice of a {@code byte[]}, for bulk and multi-byte reads and
+     * writes. Index 0 of the buffer is the first element of this slice, and its capacity is
+     * {@link #length}, so it cannot reach the rest of the array. The buffer borrows from this
+     * slice: it cannot be used once the slice has been handed to a task.
+     *
+     * @return a buffer whose position is 0 and whose limit is {@link #length}
+     * @throws ClassCastException if the array is not a {@code byte[]}
+     */
+    @ReturnsBorrow
+    public ByteBuffer asByteBuffer(@MutBorrowed ArraySlice<A> this) {
+        return ByteBuffer.wrap((byte[]) array, from, to - from).slice();
+    }
+
+    /**
+     * Sorts this slice in place, leaving the rest of the array untouched.
+     *
+     * @throws UnsupportedOperationException if the array is a {@code boolean[]}
+     * @throws ClassCastException if the array's elements are not mutually comparable
+     */
+    public void sort(@MutBorrowed ArraySlice<A> this) {
+        switch (array) {
+            case byte[] a -> Arrays.sort(a, from, to);
+            case short[] a -> Arrays.sort(a, from, to);
+            case char[] a -> Arrays.sort(a, from, to);
+            case int[] a -> Arrays.sort(a, from, to);
+            case long[] a -> Arrays.sort(a, from, to);
+            case float[] a -> Arrays.sort(a, from, to);
+            case double[] a -> Arrays.sort(a, from, to);
+            case Object[] a -> Arrays.sort(a, from, to);
+            default -> throw new UnsupportedOperationException("cannot sort " + array.getClass().getSimpleName());
+        }
+    }
+
+    /** The first index of this slice. */
+    public int from(@Borrowed ArraySlice<A> this) {
+        return from;
+    }
+
+    /** The index after the last one of this slice. */
+    public int to(@Borrowed ArraySlice<A> this) {
+        return to;
+    }
+
+    public int length(@Borrowed ArraySlice<A> this) {
+        return to - from;
+    }
+
+    /**
+     * Splits this slice at an offset. This slice keeps {@code [from(), from() + at)} and the
+     * returned slice gets {@code [from() + at, to())}.
+     *
+     * @param at the offset within this slice
+     * @return the second part, which holds the array for as long as this slice does
+     * @throws IndexOutOfBoundsException if {@code at} is negative or greater than {@link #length}
+     */
+    @SharesHeldBorrows
+    public ArraySlice<A> splitOff(@MutBorrowed ArraySlice<A> this, int at) {
+        Objects.checkFromToIndex(0, at, to - from);
+        ArraySlice<A> rest = new ArraySlice<>(array, from + at, to);
+        to = from + at;
+        return rest;
+    }
+
+    /**
+     * Ends this slice's hold on the array. The array is released once the pieces split off this
+     * slice have ended theirs too.
+     */
+    @Override
+    @EndsBorrows
+    public void close() {
+    }
+
+    /** Translates an index within this slice to an index in the array. */
+    private int index(int index) {
+        return from + Objects.checkIndex(index, to - from);
+    }
+
+    @Override
+    public String toString() {
+        return "ArraySlice[" + from + ", " + to + ")";
+    }
+}